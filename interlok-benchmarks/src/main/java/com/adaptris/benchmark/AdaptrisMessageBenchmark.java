@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.AdaptrisMessageFactory;
+import com.adaptris.core.DefaultMessageFactory;
+import com.adaptris.core.MetadataElement;
+
+/**
+ * Benchmarks metadata access, expression resolution, payload access and cloning on
+ * {@link com.adaptris.core.AdaptrisMessageImp}.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AdaptrisMessageBenchmark {
+
+  @Param({"10", "100"})
+  private int metadataCount;
+
+  @Param({"1024", "1048576"})
+  private int payloadSize;
+
+  private AdaptrisMessageFactory factory;
+  private AdaptrisMessage message;
+  private String lastKey;
+  private String expression;
+
+  @Setup
+  public void setup() {
+    factory = new DefaultMessageFactory();
+    message = factory.newMessage(BenchmarkHelper.createPayload(payloadSize));
+    for (MetadataElement e : BenchmarkHelper.createMetadata(metadataCount)) {
+      message.addMetadata(e);
+    }
+    lastKey = BenchmarkHelper.METADATA_KEY_PREFIX + (metadataCount - 1);
+    expression = "jms:queue:%message{" + BenchmarkHelper.METADATA_KEY_PREFIX + "0}"
+        + "?priority=%message{" + lastKey + "}&id=%message{%uniqueId}";
+  }
+
+  @Benchmark
+  public AdaptrisMessage addMetadata() {
+    AdaptrisMessage msg = factory.newMessage();
+    for (int i = 0; i < metadataCount; i++) {
+      msg.addMetadata(BenchmarkHelper.METADATA_KEY_PREFIX + i, BenchmarkHelper.METADATA_VALUE_PREFIX + i);
+    }
+    return msg;
+  }
+
+  @Benchmark
+  public AdaptrisMessage replaceMetadata() {
+    message.addMetadata(lastKey, BenchmarkHelper.METADATA_VALUE_PREFIX);
+    return message;
+  }
+
+  @Benchmark
+  public String getMetadataValue() {
+    return message.getMetadataValue(lastKey);
+  }
+
+  @Benchmark
+  public boolean headersContainsKey() {
+    return message.headersContainsKey(lastKey);
+  }
+
+  @Benchmark
+  public Object getMetadata() {
+    return message.getMetadata();
+  }
+
+  @Benchmark
+  public String resolve() {
+    return message.resolve(expression);
+  }
+
+  @Benchmark
+  public String resolve_NoExpression() {
+    return message.resolve(lastKey);
+  }
+
+  @Benchmark
+  public byte[] getPayload() {
+    return message.getPayload();
+  }
+
+  @Benchmark
+  public Object cloneMessage() throws CloneNotSupportedException {
+    return message.clone();
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.adaptris.core.Channel;
+import com.adaptris.core.CoreException;
+import com.adaptris.core.MetadataElement;
+import com.adaptris.core.NullProcessingExceptionHandler;
+import com.adaptris.core.ProcessingExceptionHandler;
+import com.adaptris.core.Workflow;
+import com.adaptris.core.util.LifecycleHelper;
+
+/**
+ * Common fixtures shared by the benchmarks.
+ *
+ */
+final class BenchmarkHelper {
+
+  static final String METADATA_KEY_PREFIX = "key";
+  static final String METADATA_VALUE_PREFIX = "value";
+
+  private BenchmarkHelper() {
+  }
+
+  static byte[] createPayload(int size) {
+    byte[] result = new byte[size];
+    Arrays.fill(result, (byte) 'A');
+    return result;
+  }
+
+  static List<MetadataElement> createMetadata(int count) {
+    List<MetadataElement> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(new MetadataElement(METADATA_KEY_PREFIX + i, METADATA_VALUE_PREFIX + i));
+    }
+    return result;
+  }
+
+  /**
+   * Create a simple XML document with the specified number of repeating {@code /envelope/document} elements.
+   *
+   */
+  static String createXml(int documentCount) {
+    StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<envelope>\n");
+    for (int i = 0; i < documentCount; i++) {
+      sb.append("  <document>\n");
+      sb.append("    <id>").append(i).append("</id>\n");
+      sb.append("    <name>Document ").append(i).append("</name>\n");
+      sb.append("    <amount>").append(i * 10).append(".00</amount>\n");
+      sb.append("  </document>\n");
+    }
+    sb.append("</envelope>\n");
+    return sb.toString();
+  }
+
+  /**
+   * Wrap the workflow in a channel (with no-op connections) and start it.
+   *
+   */
+  static Channel start(Workflow workflow) throws CoreException {
+    Channel channel = new Channel();
+    channel.setUniqueId(workflow.getUniqueId() + "-channel");
+    ProcessingExceptionHandler errorHandler = new NullProcessingExceptionHandler();
+    channel.setMessageErrorHandler(errorHandler);
+    channel.registerActiveMsgErrorHandler(errorHandler);
+    workflow.registerActiveMsgErrorHandler(errorHandler);
+    channel.getWorkflowList().add(workflow);
+    return LifecycleHelper.initAndStart(channel, false);
+  }
+
+  static void stop(Channel c) {
+    LifecycleHelper.stopAndClose(c, false);
+  }
+}
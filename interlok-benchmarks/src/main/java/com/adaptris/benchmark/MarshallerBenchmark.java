@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.adaptris.core.AdaptrisMarshaller;
+import com.adaptris.core.DefaultMarshaller;
+import com.adaptris.core.ServiceList;
+import com.adaptris.core.services.metadata.AddMetadataService;
+import com.adaptris.core.transform.XmlTransformService;
+
+/**
+ * Benchmarks {@link DefaultMarshaller#roundTrip(Object)} which is how service collections are copied by
+ * {@link com.adaptris.core.PoolingWorkflow} and the split-join services.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MarshallerBenchmark {
+
+  @Param({"1", "10"})
+  private int serviceCount;
+
+  private AdaptrisMarshaller marshaller;
+  private ServiceList services;
+  private String marshalled;
+
+  @Setup
+  public void setup() throws Exception {
+    marshaller = DefaultMarshaller.getDefaultMarshaller();
+    services = new ServiceList();
+    for (int i = 0; i < serviceCount; i++) {
+      XmlTransformService transform = new XmlTransformService();
+      transform.setUrl("file:///./config/transform-" + i + ".xsl");
+      services.add(new AddMetadataService(BenchmarkHelper.createMetadata(5)));
+      services.add(transform);
+    }
+    marshalled = marshaller.marshal(services);
+  }
+
+  @Benchmark
+  public ServiceList roundTrip() throws Exception {
+    return DefaultMarshaller.roundTrip(services);
+  }
+
+  @Benchmark
+  public String marshal() throws Exception {
+    return marshaller.marshal(services);
+  }
+
+  @Benchmark
+  public Object unmarshal() throws Exception {
+    return marshaller.unmarshal(marshalled);
+  }
+}
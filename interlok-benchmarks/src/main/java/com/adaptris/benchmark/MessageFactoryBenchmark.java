@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.AdaptrisMessageFactory;
+import com.adaptris.core.DefaultMessageFactory;
+import com.adaptris.core.MetadataElement;
+
+/**
+ * Benchmarks {@link DefaultMessageFactory#newMessage()} and its variants.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageFactoryBenchmark {
+
+  @Param({"1024", "1048576"})
+  private int payloadSize;
+
+  @Param({"10"})
+  private int metadataCount;
+
+  private AdaptrisMessageFactory factory;
+  private byte[] payload;
+  private String content;
+  private Set<MetadataElement> metadata;
+
+  @Setup
+  public void setup() {
+    factory = new DefaultMessageFactory();
+    payload = BenchmarkHelper.createPayload(payloadSize);
+    content = new String(payload);
+    metadata = new HashSet<>(BenchmarkHelper.createMetadata(metadataCount));
+  }
+
+  @Benchmark
+  public AdaptrisMessage newMessage() {
+    return factory.newMessage();
+  }
+
+  @Benchmark
+  public AdaptrisMessage newMessage_Bytes() {
+    return factory.newMessage(payload);
+  }
+
+  @Benchmark
+  public AdaptrisMessage newMessage_BytesWithMetadata() {
+    return factory.newMessage(payload, metadata);
+  }
+
+  @Benchmark
+  public AdaptrisMessage newMessage_String() {
+    return factory.newMessage(content);
+  }
+}
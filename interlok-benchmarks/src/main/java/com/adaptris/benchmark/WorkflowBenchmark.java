@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.benchmark;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.AdaptrisMessageFactory;
+import com.adaptris.core.Channel;
+import com.adaptris.core.DefaultMessageFactory;
+import com.adaptris.core.NullMessageConsumer;
+import com.adaptris.core.NullMessageProducer;
+import com.adaptris.core.PoolingWorkflow;
+import com.adaptris.core.ProduceException;
+import com.adaptris.core.ServiceList;
+import com.adaptris.core.StandardWorkflow;
+import com.adaptris.core.WorkflowImp;
+import com.adaptris.core.services.metadata.AddMetadataService;
+
+/**
+ * Compares message dispatch through {@link StandardWorkflow} and {@link PoolingWorkflow}.
+ * <p>
+ * Each invocation submits a batch of messages to the workflow and waits for all of them to be produced, so the score
+ * reflects the end-to-end cost per message including any hand-off between threads.
+ * </p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkflowBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+
+  @Param({"standard", "pooling"})
+  private String workflowType;
+
+  @Param({"10"})
+  private int poolSize;
+
+  @Param({"1024"})
+  private int payloadSize;
+
+  private AdaptrisMessageFactory factory;
+  private byte[] payload;
+  private CountingProducer producer;
+  private WorkflowImp workflow;
+  private Channel channel;
+
+  @Setup
+  public void setup() throws Exception {
+    factory = new DefaultMessageFactory();
+    payload = BenchmarkHelper.createPayload(payloadSize);
+    producer = new CountingProducer();
+    workflow = createWorkflow();
+    workflow.setUniqueId(workflowType + "-workflow");
+    workflow.setConsumer(new NullMessageConsumer());
+    workflow.setProducer(producer);
+    workflow.setServiceCollection(new ServiceList(new AddMetadataService(BenchmarkHelper.createMetadata(5))));
+    channel = BenchmarkHelper.start(workflow);
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkHelper.stop(channel);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void dispatch() throws Exception {
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      workflow.onAdaptrisMessage(factory.newMessage(payload));
+    }
+    producer.await(BATCH_SIZE);
+  }
+
+  private WorkflowImp createWorkflow() {
+    if ("pooling".equalsIgnoreCase(workflowType)) {
+      PoolingWorkflow result = new PoolingWorkflow();
+      result.setPoolSize(poolSize);
+      result.setMinIdle(poolSize);
+      result.setMaxIdle(poolSize);
+      return result;
+    }
+    return new StandardWorkflow();
+  }
+
+  private static class CountingProducer extends NullMessageProducer {
+    private final Semaphore produced = new Semaphore(0);
+
+    @Override
+    public void produce(AdaptrisMessage msg) throws ProduceException {
+      produced.release();
+    }
+
+    void await(int count) throws InterruptedException {
+      produced.acquire(count);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.benchmark;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.AdaptrisMessageFactory;
+import com.adaptris.core.DefaultMessageFactory;
+import com.adaptris.core.transform.XmlTransformService;
+import com.adaptris.core.util.LifecycleHelper;
+
+/**
+ * Benchmarks {@link XmlTransformService} with and without transform caching.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class XmlTransformServiceBenchmark {
+
+  private static final String STYLESHEET = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n"
+      + "  <xsl:output method=\"xml\" indent=\"no\"/>\n"
+      + "  <xsl:template match=\"/\">\n"
+      + "    <summary>\n"
+      + "      <xsl:for-each select=\"/envelope/document\">\n"
+      + "        <item id=\"{id}\"><xsl:value-of select=\"name\"/></item>\n"
+      + "      </xsl:for-each>\n"
+      + "    </summary>\n"
+      + "  </xsl:template>\n"
+      + "</xsl:stylesheet>\n";
+
+  @Param({"10", "1000"})
+  private int documentCount;
+
+  @Param({"true", "false"})
+  private boolean cacheTransforms;
+
+  private AdaptrisMessageFactory factory;
+  private String input;
+  private File stylesheet;
+  private XmlTransformService service;
+
+  @Setup
+  public void setup() throws Exception {
+    factory = new DefaultMessageFactory();
+    input = BenchmarkHelper.createXml(documentCount);
+    stylesheet = File.createTempFile(getClass().getSimpleName(), ".xsl");
+    FileUtils.write(stylesheet, STYLESHEET, StandardCharsets.UTF_8);
+    service = new XmlTransformService();
+    service.setUrl(stylesheet.toURI().toString());
+    service.setCacheTransforms(cacheTransforms);
+    LifecycleHelper.initAndStart(service, false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    LifecycleHelper.stopAndClose(service, false);
+    FileUtils.deleteQuietly(stylesheet);
+  }
+
+  @Benchmark
+  public AdaptrisMessage transform() throws Exception {
+    AdaptrisMessage msg = factory.newMessage(input, "UTF-8");
+    service.doService(msg);
+    return msg;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.AdaptrisMessageFactory;
+import com.adaptris.core.DefaultMessageFactory;
+import com.adaptris.core.services.splitter.XpathMessageSplitter;
+import com.adaptris.interlok.util.CloseableIterable;
+
+/**
+ * Benchmarks {@link XpathMessageSplitter}, consuming every split message.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class XpathMessageSplitterBenchmark {
+
+  @Param({"10", "1000"})
+  private int documentCount;
+
+  @Param({"10"})
+  private int metadataCount;
+
+  private AdaptrisMessage message;
+  private XpathMessageSplitter splitter;
+
+  @Setup
+  public void setup() throws Exception {
+    AdaptrisMessageFactory factory = new DefaultMessageFactory();
+    message = factory.newMessage(BenchmarkHelper.createXml(documentCount), "UTF-8");
+    BenchmarkHelper.createMetadata(metadataCount).forEach(e -> message.addMetadata(e));
+    splitter = new XpathMessageSplitter("/envelope/document", "UTF-8");
+  }
+
+  @Benchmark
+  public int split(Blackhole bh) throws Exception {
+    int count = 0;
+    try (CloseableIterable<AdaptrisMessage> messages = splitter.splitMessage(message)) {
+      for (AdaptrisMessage m : messages) {
+        bh.consume(m);
+        count++;
+      }
+    }
+    return count;
+  }
+}
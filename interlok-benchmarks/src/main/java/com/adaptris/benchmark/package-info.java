@@ -0,0 +1,9 @@
+/**
+ * JMH benchmarks covering the message, workflow and service hot paths.
+ * <p>
+ * Run them with {@code gradle :interlok-benchmarks:jmh -PjmhArgs="-prof gc"} or build the self-contained jar with
+ * {@code gradle :interlok-benchmarks:jmhJar} and use {@code java -jar interlok-benchmarks-<version>-jmh.jar}. Standard JMH
+ * arguments (a regexp to select benchmarks, {@code -p param=value}, {@code -prof gc}) all apply.
+ * </p>
+ */
+package com.adaptris.benchmark;
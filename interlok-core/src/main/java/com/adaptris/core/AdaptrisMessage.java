@@ -16,6 +16,9 @@
 
 package com.adaptris.core;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Set;
 
@@ -48,6 +51,34 @@ public interface AdaptrisMessage extends InterlokMessage {
    */
   byte[] getPayload();
 
+  /**
+   * Returns a read-only view of this message's payload.
+   * <p>
+   * Unlike {@link #getPayload()} this need not copy the payload; the view is only valid until the payload is next modified, so
+   * don't hold on to it.
+   * </p>
+   *
+   * @return a read-only {@link ByteBuffer} positioned at the start of the payload.
+   * @implNote The default implementation simply wraps {@link #getPayload()}.
+   * @since 3.11.0
+   */
+  default ByteBuffer getPayloadView() {
+    return ByteBuffer.wrap(getPayload()).asReadOnlyBuffer();
+  }
+
+  /**
+   * Return an ouputstream ready for writing the payload, when the caller knows roughly how much will be written.
+   *
+   * @param expectedSize the expected size of the payload in bytes; this is a hint and not a limit.
+   * @return an OutputStream that can be used to write the payload.
+   * @throws IOException if the OutputStream could not be created.
+   * @implNote The default implementation ignores the hint and returns {@link #getOutputStream()}.
+   * @since 3.11.0
+   */
+  default OutputStream getOutputStream(long expectedSize) throws IOException {
+    return getOutputStream();
+  }
+
   /**
    * Return the size of the payload.
    *
@@ -213,7 +244,11 @@ public interface AdaptrisMessage extends InterlokMessage {
 
   /**
    * <p>
-   * Returns a shallow clone of this message's metadata.
+   * Returns a copy of this message's metadata.
+   * </p>
+   * <p>
+   * Both the set and the <code>MetadataElement</code>s within it are copies; modifying either has no effect on the message. Use
+   * {@link #addMetadata(MetadataElement)} or {@link #setMetadata(Set)} to change the message's metadata.
    * </p>
    *
    * @return a <code>Set</code> of all <code>MetadataElements</code>s
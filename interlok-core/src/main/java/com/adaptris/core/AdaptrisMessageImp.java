@@ -36,7 +36,6 @@ import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -72,13 +71,13 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
   private static final String RESOLVE_REGEXP = "^.*%message\\{([\\w!\\$\"#&%'\\*\\+,\\-\\.:=]+)\\}.*$";
 
   private transient Logger log = LoggerFactory.getLogger(AdaptrisMessage.class);
-  private transient Pattern normalResolver = Pattern.compile(RESOLVE_REGEXP);
-  private transient Pattern dotAllResolver = Pattern.compile(RESOLVE_REGEXP, Pattern.DOTALL);
+  private static final Pattern NORMAL_RESOLVER = Pattern.compile(RESOLVE_REGEXP);
+  private static final Pattern DOTALL_RESOLVER = Pattern.compile(RESOLVE_REGEXP, Pattern.DOTALL);
 
   private IdGenerator guidGenerator;
   // persistent fields
   private String uniqueId;
-  private Set<MetadataElement> metadata;
+  private CopyOnWriteMetadata metadata;
   private String contentEncoding;
 
   // in memory only e.g. lost on send or persist
@@ -138,7 +137,7 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
   protected AdaptrisMessageImp(IdGenerator guid, AdaptrisMessageFactory fac) {
     this();
     factory = fac;
-    metadata = new HashSet<MetadataElement>();
+    metadata = new CopyOnWriteMetadata();
     objectMetadata = new HashMap<>();
     guidGenerator = guid;
     messageLifeCycle = new MessageLifecycleEvent();
@@ -169,11 +168,11 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
   /** @see AdaptrisMessage#headersContainsKey(String) */
   @Override
   public boolean headersContainsKey(String key) {
-    return metadata.contains(new MetadataElement(resolveKey(this, key), ""));
+    return metadata.containsKey(resolveKey(this, key));
   }
 
   @Override
-  public synchronized void addMetadata(String key, String value) {
+  public void addMetadata(String key, String value) {
     this.addMessageHeader(resolveKey(this, key), value);
   }
 
@@ -184,29 +183,24 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
 
   /** @see AdaptrisMessage#addMetadata(MetadataElement) */
   @Override
-  public synchronized void addMetadata(MetadataElement e) {
-    e.setKey(resolveKey(this, e.getKey()));
-    if (metadata.contains(e)) {
-      removeMetadata(e);
-    }
-    metadata.add(e);
+  public void addMetadata(MetadataElement e) {
+    metadata.put(Args.notBlank(resolveKey(this, e.getKey()), "key"), e.getValue());
   }
 
   /** @see AdaptrisMessage#removeMetadata(MetadataElement) */
   @Override
   public void removeMetadata(MetadataElement element) {
-    element.setKey(resolveKey(this, element.getKey()));
-    metadata.remove(element);
+    metadata.remove(resolveKey(this, element.getKey()));
   }
 
   /** @see AdaptrisMessage#removeMessageHeader(String) */
   @Override
   public void removeMessageHeader(String key) {
-    metadata.remove(new MetadataElement(resolveKey(this, key), ""));
+    metadata.remove(resolveKey(this, key));
   }
 
   @Override
-  public synchronized void setMetadata(Set<MetadataElement> set) {
+  public void setMetadata(Set<MetadataElement> set) {
     if (set != null) {
       for (MetadataElement e : set) {
         addMetadata(e);
@@ -223,8 +217,8 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
 
   /** @see AdaptrisMessage#clearMetadata() */
   @Override
-  public synchronized void clearMetadata() {
-    metadata = new HashSet<MetadataElement>();
+  public void clearMetadata() {
+    metadata.clear();
   }
 
   /** @see AdaptrisMessage#getMetadataValue(String) */
@@ -238,7 +232,7 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
 
   /** @see AdaptrisMessage#getMetadata(String) */
   @Override
-  public MetadataElement getMetadata(String key) { // lgtm [java/unsynchronized-getter]
+  public MetadataElement getMetadata(String key) {
     String resolved = resolveKey(this, key);
 
     if (key != null && headersContainsKey(resolved)) {
@@ -249,16 +243,12 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
 
   @Override
   public Map<String, String> getMessageHeaders() {
-    Map<String, String> newSet = new HashMap<String, String>();
-    for (MetadataElement kp : metadata) {
-      newSet.put(kp.getKey(), kp.getValue());
-    }
-    return newSet;
+    return metadata.toMap();
   }
 
   @Override
-  public Set<MetadataElement> getMetadata() { // lgtm [java/unsynchronized-getter]
-    return new HashSet<MetadataElement>(metadata);
+  public Set<MetadataElement> getMetadata() {
+    return metadata.elements();
   }
 
   @Override
@@ -396,7 +386,20 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
     }
     // see if there are any external resolvers before processing any %message{...}'s
     s = ExternalResolver.resolve(s, this);
-    return resolve(s, dotAll ? dotAllResolver : normalResolver);
+    MessageTemplate template = MessageTemplate.compile(s);
+    if (!template.hasLookups(dotAll)) {
+      return s;
+    }
+    String result = template.render(this::resolveOrFail, dotAll);
+    return result != null ? result : resolve(s, dotAll ? DOTALL_RESOLVER : NORMAL_RESOLVER);
+  }
+
+  private String resolveOrFail(String key) {
+    String value = internalResolve(key);
+    if (value == null) {
+      throw new UnresolvedMetadataException("Could not resolve [" + key + "] as metadata/uniqueId/size/payload");
+    }
+    return value;
   }
 
   private String resolve(String s, Pattern pattern) {
@@ -404,11 +407,7 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
     Matcher m = pattern.matcher(s);
     while (m.matches()) {
       String key = m.group(1);
-      String metadataValue = internalResolve(key);
-      // Optional<String> metadataValue = (Optional<String>) Optional.ofNullable(internalResolve(key));
-      if (metadataValue == null) {
-        throw new UnresolvedMetadataException("Could not resolve [" + key + "] as metadata/uniqueId/size/payload");
-      }
+      String metadataValue = resolveOrFail(key);
       String toReplace = "%message{" + key + "}";
       result = result.replace(toReplace, metadataValue);
       // result = result.replace(toReplace, metadataValue
@@ -470,7 +469,7 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
     String result = getMetadataValue(key);
     if (result == null) {
       String resolvedKey = resolveKey(this, key);
-      for (MetadataElement e : metadata) {
+      for (MetadataElement e : metadata.elements()) {
         if (e.getKey().equalsIgnoreCase(resolvedKey)) {
           result = e.getValue();
           break;
@@ -485,8 +484,7 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
   public Object clone() throws CloneNotSupportedException {
     AdaptrisMessage result = (AdaptrisMessage) super.clone();
 
-    result.clearMetadata();
-    result.setMetadata(cloneMetadata());
+    ((AdaptrisMessageImp) result).metadata = metadata.share();
 
     MessageLifecycleEvent copy = getMessageLifecycleEvent().clone();
     ((AdaptrisMessageImp) result).messageLifeCycle = copy;
@@ -498,15 +496,6 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
     return result;
   }
 
-  private Set<MetadataElement> cloneMetadata() throws CloneNotSupportedException {
-    Set<MetadataElement> metadata = getMetadata();
-    Set<MetadataElement> result = new HashSet<MetadataElement>();
-    for (MetadataElement m : metadata) {
-      result.add((MetadataElement) m.clone());
-    }
-    return result;
-  }
-
   /**
    * Copy the payload from one AdaptrisMessage to another.
    *
@@ -524,12 +513,7 @@ public abstract class AdaptrisMessageImp implements AdaptrisMessage, Cloneable {
   }
 
   private String getValue(String key) {
-    for (MetadataElement e : metadata) {
-      if (e.getKey().equals(key)) {
-        return e.getValue();
-      }
-    }
-    return null;
+    return metadata.get(key);
   }
 
   private class ContentEncodingOnClose extends OutputStreamWriter {
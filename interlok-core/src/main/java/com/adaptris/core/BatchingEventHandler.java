@@ -0,0 +1,327 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.validation.constraints.Min;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import com.adaptris.annotation.AdapterComponent;
+import com.adaptris.annotation.AdvancedConfig;
+import com.adaptris.annotation.ComponentProfile;
+import com.adaptris.annotation.DisplayOrder;
+import com.adaptris.annotation.InputFieldDefault;
+import com.adaptris.core.util.ExceptionHelper;
+import com.adaptris.core.util.ManagedThreadFactory;
+import com.adaptris.util.NumberUtils;
+import com.adaptris.util.TimeInterval;
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * {@link DefaultEventHandler} that marshals and sends events in batches on a background thread.
+ * <p>
+ * Events are placed on a bounded queue and the calling thread returns immediately (or blocks if the
+ * queue is full and {@link #getWhenFull()} is {@link WhenFull#Block}). A background thread
+ * collects up to {@link #getBatchSize()} events, or as many as arrive within
+ * {@link #getBatchWindow()}, and sends them as a single message. If a batch contains more than one
+ * event, the payload is a marshalled {@link java.util.List} of events and the metadata key
+ * {@value com.adaptris.core.CoreConstants#EVENT_CLASS} is {@code java.util.List}. A batch of one
+ * event is sent exactly as {@link DefaultEventHandler} would.
+ * </p>
+ * <p>
+ * Events sent with additional properties (e.g. via {@link #send(Event, Map)}) bypass the queue and
+ * are sent individually.
+ * </p>
+ *
+ * @config batching-event-handler
+ * @since 3.11.0
+ */
+@XStreamAlias("batching-event-handler")
+@AdapterComponent
+@ComponentProfile(summary = "Sends events to the specified location in batches", tag = "base,events")
+@DisplayOrder(order = {"connection", "producer", "batchSize", "batchWindow", "queueSize",
+    "whenFull", "compactFormat"})
+public class BatchingEventHandler extends DefaultEventHandler {
+
+  private static final int DEFAULT_BATCH_SIZE = 100;
+  private static final int DEFAULT_QUEUE_SIZE = 10000;
+  private static final TimeInterval DEFAULT_BATCH_WINDOW = new TimeInterval(1L, TimeUnit.SECONDS);
+
+  /**
+   * What to do with an event when the queue is full.
+   */
+  public enum WhenFull {
+    /**
+     * The thread sending the event waits until there is space on the queue.
+     */
+    Block,
+    /**
+     * The event is discarded.
+     */
+    Discard
+  }
+
+  /**
+   * The maximum number of events sent in a single message.
+   * <p>
+   * Defaults to 100 if not specified.
+   * </p>
+   */
+  @Min(1)
+  @InputFieldDefault(value = "100")
+  @Getter
+  @Setter
+  private Integer batchSize;
+
+  /**
+   * The maximum time to wait for a batch to fill before it is sent.
+   * <p>
+   * Defaults to 1 second if not specified.
+   * </p>
+   */
+  @AdvancedConfig
+  @InputFieldDefault(value = "1 second")
+  @Getter
+  @Setter
+  private TimeInterval batchWindow;
+
+  /**
+   * The maximum number of events waiting to be sent.
+   * <p>
+   * Defaults to 10000 if not specified.
+   * </p>
+   */
+  @AdvancedConfig
+  @Min(1)
+  @InputFieldDefault(value = "10000")
+  @Getter
+  @Setter
+  private Integer queueSize;
+
+  /**
+   * What to do when the queue is full.
+   * <p>
+   * Defaults to {@link WhenFull#Block} if not specified.
+   * </p>
+   */
+  @AdvancedConfig
+  @InputFieldDefault(value = "Block")
+  @Getter
+  @Setter
+  private WhenFull whenFull;
+
+  /**
+   * Whether to marshal events without indentation or line breaks.
+   * <p>
+   * Only has an effect if the marshaller is an {@link XStreamMarshaller}; defaults to false.
+   * </p>
+   */
+  @AdvancedConfig
+  @InputFieldDefault(value = "false")
+  @Getter
+  @Setter
+  private Boolean compactFormat;
+
+  private transient BlockingQueue<Event> queue;
+  private transient Thread batcher;
+  private transient volatile boolean running;
+  private transient AtomicLong discarded = new AtomicLong();
+
+  public BatchingEventHandler() {
+    super();
+  }
+
+  public BatchingEventHandler(AdaptrisMessageProducer producer) {
+    super(producer);
+  }
+
+  public BatchingEventHandler(AdaptrisConnection connection, AdaptrisMessageProducer producer) {
+    super(connection, producer);
+  }
+
+  @Override
+  public void send(Event evt, Map<String, String> properties) throws CoreException {
+    if (!running || properties != null && !properties.isEmpty()) {
+      super.send(evt, properties);
+      return;
+    }
+    evt.setSourceId(retrieveSourceId());
+    if (whenFull() == WhenFull.Block) {
+      try {
+        queue.put(evt);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw ExceptionHelper.wrapCoreException(e);
+      }
+    }
+    else if (!queue.offer(evt)) {
+      long count = discarded.incrementAndGet();
+      log.trace("Event queue full, discarded [{}], total discarded [{}]", evt.getUniqueId(), count);
+    }
+  }
+
+  @Override
+  protected void eventHandlerStart() throws CoreException {
+    super.eventHandlerStart();
+    queue = new ArrayBlockingQueue<>(queueSize());
+    running = true;
+    batcher = new ManagedThreadFactory(getClass().getSimpleName()).newThread(() -> batchAndSend());
+    batcher.setDaemon(true);
+    batcher.start();
+  }
+
+  @Override
+  protected void eventHandlerStop() {
+    running = false;
+    if (batcher != null) {
+      try {
+        batcher.join(TimeUnit.SECONDS.toMillis(shutdownWaitSeconds()));
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      batcher = null;
+    }
+    super.eventHandlerStop();
+  }
+
+  private void batchAndSend() {
+    List<Event> batch = new ArrayList<>();
+    while (running || !queue.isEmpty()) {
+      try {
+        Event first = queue.poll(batchWindowMs(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + batchWindowMs();
+        while (batch.size() < batchSize()) {
+          long wait = running ? deadline - System.currentTimeMillis() : 0;
+          Event next = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        send(batch);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void send(List<Event> batch) {
+    try {
+      retrieveProducer().produce(createMessage(batch));
+    }
+    catch (Exception e) {
+      if (logAllExceptions()) {
+        log.error("Failed to produce [{}] events to destination. Results dependent on these events may not be accurate.",
+            batch.size(), e);
+      }
+    }
+  }
+
+  private AdaptrisMessage createMessage(List<Event> batch) throws CoreException {
+    Event first = batch.get(0);
+    boolean single = batch.size() == 1;
+    AdaptrisMessage result = currentMessageFactory().newMessage(marshal(single ? first : new ArrayList<>(batch)));
+    if (single) {
+      result.setUniqueId(first.getUniqueId());
+    }
+    if (batch.stream().map(Event::getNameSpace).distinct().count() == 1) {
+      result.addMetadata(CoreConstants.EVENT_NAME_SPACE_KEY, first.getNameSpace());
+    }
+    result.addMetadata(CoreConstants.EVENT_CLASS, single ? first.getClass().getName() : List.class.getName());
+    return result;
+  }
+
+  private String marshal(Object o) throws CoreException {
+    AdaptrisMarshaller m = currentMarshaller();
+    if (compactFormat() && m instanceof XStreamMarshaller) {
+      return ((XStreamMarshaller) m).marshalCompact(o);
+    }
+    return m.marshal(o);
+  }
+
+  /**
+   * The number of events discarded because the queue was full.
+   *
+   */
+  public long discardedEvents() {
+    return discarded.get();
+  }
+
+  int batchSize() {
+    return NumberUtils.toIntDefaultIfNull(getBatchSize(), DEFAULT_BATCH_SIZE);
+  }
+
+  int queueSize() {
+    return NumberUtils.toIntDefaultIfNull(getQueueSize(), DEFAULT_QUEUE_SIZE);
+  }
+
+  long batchWindowMs() {
+    return TimeInterval.toMillisecondsDefaultIfNull(getBatchWindow(), DEFAULT_BATCH_WINDOW);
+  }
+
+  WhenFull whenFull() {
+    return ObjectUtils.defaultIfNull(getWhenFull(), WhenFull.Block);
+  }
+
+  boolean compactFormat() {
+    return BooleanUtils.toBooleanDefaultIfNull(getCompactFormat(), false);
+  }
+
+  public BatchingEventHandler withBatchSize(Integer i) {
+    setBatchSize(i);
+    return this;
+  }
+
+  public BatchingEventHandler withBatchWindow(TimeInterval t) {
+    setBatchWindow(t);
+    return this;
+  }
+
+  public BatchingEventHandler withQueueSize(Integer i) {
+    setQueueSize(i);
+    return this;
+  }
+
+  public BatchingEventHandler withWhenFull(WhenFull w) {
+    setWhenFull(w);
+    return this;
+  }
+
+  public BatchingEventHandler withCompactFormat(Boolean b) {
+    setCompactFormat(b);
+    return this;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metadata store used by {@link AdaptrisMessageImp}.
+ * <p>
+ * Metadata is held as a simple key to value map; {@link #share()} hands out a new store that refers to the same underlying
+ * entries, and whichever store is modified first takes a private copy of them. This makes cloning a message cheap since the
+ * metadata is only copied if the clone (or the original) actually changes it.
+ * </p>
+ * <p>
+ * {@link #elements()} returns a new set of new {@link MetadataElement} instances each time; since elements are mutable (and
+ * their hashcode depends on their key), handing out shared instances would let callers corrupt each other's view.
+ * </p>
+ * <p>
+ * Lookups do not lock; the entries are held in a {@link ConcurrentHashMap} so that they are safe even while another thread is
+ * modifying the store. Modifications are serialized on the store itself so that copy-on-write is never bypassed.
+ * </p>
+ *
+ * @since 3.11.0
+ */
+final class CopyOnWriteMetadata {
+
+  private volatile Entries entries;
+
+  CopyOnWriteMetadata() {
+    this(new Entries(new ConcurrentHashMap<>()));
+  }
+
+  private CopyOnWriteMetadata(Entries e) {
+    entries = e;
+  }
+
+  String get(String key) {
+    return key != null ? entries.map.get(key) : null;
+  }
+
+  boolean containsKey(String key) {
+    return key != null && entries.map.containsKey(key);
+  }
+
+  synchronized void put(String key, String value) {
+    writable().put(key, value);
+  }
+
+  synchronized void remove(String key) {
+    if (containsKey(key)) {
+      writable().remove(key);
+    }
+  }
+
+  synchronized void clear() {
+    entries = new Entries(new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Return a copy of the metadata.
+   * <p>
+   * Both the set and each {@link MetadataElement} are copies, changing them has no effect on this store.
+   * </p>
+   */
+  Set<MetadataElement> elements() {
+    Map<String, String> map = entries.map;
+    Set<MetadataElement> result = new HashSet<>(Math.max(map.size() * 2, 16));
+    for (Map.Entry<String, String> e : map.entrySet()) {
+      result.add(new MetadataElement(e.getKey(), e.getValue()));
+    }
+    return result;
+  }
+
+  /**
+   * Return a modifiable copy of the metadata.
+   */
+  Map<String, String> toMap() {
+    return new HashMap<>(entries.map);
+  }
+
+  /**
+   * Create a new store that shares the current entries with this one until either is modified.
+   */
+  synchronized CopyOnWriteMetadata share() {
+    entries.shared = true;
+    return new CopyOnWriteMetadata(entries);
+  }
+
+  @Override
+  public String toString() {
+    return elements().toString();
+  }
+
+  private Map<String, String> writable() {
+    if (entries.shared) {
+      entries = new Entries(new ConcurrentHashMap<>(entries.map));
+    }
+    return entries.map;
+  }
+
+  // Once shared, the map is never modified again by either store.
+  private static final class Entries {
+    private final Map<String, String> map;
+    private volatile boolean shared;
+
+    Entries(Map<String, String> m) {
+      map = m;
+    }
+  }
+}
@@ -414,4 +414,16 @@ public abstract class CoreConstants {
    */
   public static final String OBJ_METADATA_ON_SUCCESS_CALLBACK = "_onSuccessCallback";
 
+  /**
+   * Object metadata that stores the callback that hands a message to the workflow's error handler.
+   * <p>
+   * This is for components that only discover a failure after the workflow has finished with the
+   * message, such as a pipelined JMS producer.
+   * </p>
+   *
+   * @see ListenerCallbackHelper#handleFailureCallback(AdaptrisMessage)
+   * @since 3.11.0
+   */
+  public static final String OBJ_METADATA_ON_FAILURE_CALLBACK = "_onFailureCallback";
+
 }
@@ -20,10 +20,10 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 
@@ -39,7 +39,14 @@ import com.adaptris.util.IdGenerator;
  */
 public class DefaultAdaptrisMessageImp extends AdaptrisMessageImp {
 
+  // Initial size of the buffer used by getOutputStream() if there's no size hint.
+  private static final int DEFAULT_BUFFER_SIZE = 1024;
+  // The size hint usually comes from somewhere we don't control (e.g. a Content-Length header), so don't trust it too far.
+  private static final int MAX_INITIAL_BUFFER_SIZE = 1024 * 1024;
+
+  // The payload may be a buffer handed over by getOutputStream() so only the first payloadLength bytes are valid.
   private byte[] payload;
+  private int payloadLength;
 
   protected DefaultAdaptrisMessageImp(IdGenerator guid, AdaptrisMessageFactory fac) throws RuntimeException {
     super(guid, fac);
@@ -54,7 +61,7 @@ public class DefaultAdaptrisMessageImp extends AdaptrisMessageImp {
     boolean result = false;
 
     if (StringUtils.equals(getUniqueId(), other.getUniqueId())) {
-      if (Arrays.equals(getPayload(), other.getPayload())) {
+      if (getPayloadView().equals(other.getPayloadView())) {
         if (StringUtils.equals(getContentEncoding(), other.getContentEncoding())) {
           if (this.getMetadata().equals(other.getMetadata())) {
             result = true;
@@ -69,24 +76,32 @@ public class DefaultAdaptrisMessageImp extends AdaptrisMessageImp {
   @Override
   public void setPayload(byte[] bytes) {
     if (bytes == null) {
-      payload = new byte[0];
+      setPayload(new byte[0], 0);
     }
     else {
-      payload = bytes;
+      setPayload(bytes, bytes.length);
     }
   }
 
+  private void setPayload(byte[] bytes, int length) {
+    payload = bytes;
+    payloadLength = length;
+  }
+
   /** @see AdaptrisMessage#getPayload() */
   @Override
   public byte[] getPayload() {
-    byte[] result = null;
-
-    if (payload != null) {
-      result = new byte[payload.length];
-      System.arraycopy(payload, 0, result, 0, payload.length);
-    }
+    return Arrays.copyOf(payload, payloadLength);
+  }
 
-    return result;
+  /**
+   * Returns a read-only view over the underlying payload without copying it.
+   *
+   * @see AdaptrisMessage#getPayloadView()
+   */
+  @Override
+  public ByteBuffer getPayloadView() {
+    return ByteBuffer.wrap(payload, 0, payloadLength).asReadOnlyBuffer();
   }
 
   /**
@@ -95,7 +110,7 @@ public class DefaultAdaptrisMessageImp extends AdaptrisMessageImp {
    */
   @Override
   public long getSize() {
-    return payload != null ? payload.length : 0;
+    return payloadLength;
   }
 
   /** @see AdaptrisMessage#setContent(String, String) */
@@ -104,11 +119,11 @@ public class DefaultAdaptrisMessageImp extends AdaptrisMessageImp {
     if (payloadString != null) {
         Charset charset =
             Charset.forName(StringUtils.defaultIfBlank(charEnc, Charset.defaultCharset().name()));
-        payload = payloadString.getBytes(charset);
+        setPayload(payloadString.getBytes(charset));
         setContentEncoding(charEnc);
     }
     else {
-      payload = new byte[0];
+      setPayload(new byte[0]);
       setContentEncoding(charEnc);
     }
   }
@@ -116,15 +131,10 @@ public class DefaultAdaptrisMessageImp extends AdaptrisMessageImp {
   /** @see AdaptrisMessage#getContent() */
   @Override
   public String getContent() {
-    if (payload != null) {
-      if (isEmpty(getContentEncoding())) {
-        return new String(payload);
-      }
-      else {
-        return new String(payload, Charset.forName(getContentEncoding()));
-      }
+    if (isEmpty(getContentEncoding())) {
+      return new String(payload, 0, payloadLength);
     }
-    return null;
+    return new String(payload, 0, payloadLength, Charset.forName(getContentEncoding()));
   }
 
   /** @see Object#clone() */
@@ -132,14 +142,7 @@ public class DefaultAdaptrisMessageImp extends AdaptrisMessageImp {
   public Object clone() throws CloneNotSupportedException {
     DefaultAdaptrisMessageImp result = (DefaultAdaptrisMessageImp) super.clone();
     // clone the payload.
-    try {
-      byte[] newPayload = new byte[payload.length];
-      System.arraycopy(payload, 0, newPayload, 0, payload.length);
-      result.setPayload(newPayload);
-    }
-    catch (Exception e) {
-      throw new RuntimeException(e);
-    }
+    result.setPayload(getPayload());
     return result;
   }
 
@@ -149,27 +152,54 @@ public class DefaultAdaptrisMessageImp extends AdaptrisMessageImp {
    */
   @Override
   public InputStream getInputStream() throws IOException {
-    return payload != null ? new ByteArrayInputStream(payload) : new ByteArrayInputStream(new byte[0]);
+    return new ByteArrayInputStream(payload, 0, payloadLength);
   }
 
   /**
+   * Returns an OutputStream that hands its internal buffer over as the new payload when closed, rather than copying it.
    *
    * @see com.adaptris.core.AdaptrisMessage#getOutputStream()
    */
   @Override
   public OutputStream getOutputStream() throws IOException {
-    return new ByteFilterStream(new ByteArrayOutputStream());
+    return new PayloadOutputStream(DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Returns an OutputStream whose initial buffer is sized to the hint (up to 1MB); if the hint is accurate then the payload
+   * is never resized or copied.
+   *
+   * @see com.adaptris.core.AdaptrisMessage#getOutputStream(long)
+   */
+  @Override
+  public OutputStream getOutputStream(long expectedSize) throws IOException {
+    int size = expectedSize > 0 ? (int) Math.min(expectedSize, MAX_INITIAL_BUFFER_SIZE) : DEFAULT_BUFFER_SIZE;
+    return new PayloadOutputStream(size);
   }
 
-  private class ByteFilterStream extends FilterOutputStream {
-    ByteFilterStream(OutputStream out) {
-      super(out);
+  private class PayloadOutputStream extends ByteArrayOutputStream {
+    private boolean closed = false;
+
+    PayloadOutputStream(int size) {
+      super(size);
     }
 
     @Override
     public void close() throws IOException {
-      super.close();
-      payload = ((ByteArrayOutputStream) super.out).toByteArray();
+      if (!closed) {
+        closed = true;
+        int unused = buf.length - count;
+        // The buffer lives as long as the message; don't keep a lot of slack from growing it, or from a bad hint.
+        if (unused > DEFAULT_BUFFER_SIZE && unused > buf.length / 4) {
+          setPayload(toByteArray(), count);
+        }
+        else {
+          setPayload(buf, count);
+        }
+        // Detach from the buffer so that writes after close() can't modify the payload.
+        buf = new byte[0];
+        count = 0;
+      }
     }
   }
 
@@ -237,7 +237,7 @@ public abstract class EventHandlerBase implements EventHandler {
     this.logAllExceptions = logAllExceptions;
   }
 
-  private boolean logAllExceptions() {
+  boolean logAllExceptions() {
     return BooleanUtils.toBooleanDefaultIfNull(getLogAllExceptions(), false);
   }
 
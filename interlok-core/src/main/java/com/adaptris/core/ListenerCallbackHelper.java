@@ -1,5 +1,6 @@
 package com.adaptris.core;
 
+import static com.adaptris.core.CoreConstants.OBJ_METADATA_ON_FAILURE_CALLBACK;
 import static com.adaptris.core.CoreConstants.OBJ_METADATA_ON_SUCCESS_CALLBACK;
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 import java.util.function.Consumer;
@@ -19,4 +20,21 @@ public class ListenerCallbackHelper {
     c.accept(msg);
     return msg;
   }
+
+  /**
+   * Hand the message to the failure callback registered by the workflow (if any).
+   *
+   * @param msg the message, which should already have {@link CoreConstants#OBJ_METADATA_EXCEPTION}
+   *        set.
+   * @return true if there was a callback to handle the message, false otherwise.
+   * @since 3.11.0
+   */
+  public static boolean handleFailureCallback(AdaptrisMessage msg) {
+    Consumer c = (Consumer) msg.getObjectHeaders().get(OBJ_METADATA_ON_FAILURE_CALLBACK);
+    if (c == null) {
+      return false;
+    }
+    c.accept(msg);
+    return true;
+  }
 }
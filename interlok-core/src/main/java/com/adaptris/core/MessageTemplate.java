@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+
+package com.adaptris.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A {@code %message{...}} expression that has been parsed into literal and lookup segments.
+ * <p>
+ * Used by {@link AdaptrisMessageImp#resolve(String, boolean)} so that each expression is only parsed once rather than on
+ * every call. Strings that contain no <code>%message{</code> at all are never parsed or cached; otherwise up to
+ * {@value #MAX_CACHE_SIZE} expressions of at most {@value #MAX_CACHEABLE_LENGTH} characters are cached, an arbitrary
+ * entry being discarded to make room once it is full. The cache is shared by all threads without locking. Longer expressions are more likely to be per-message data than configuration, so they are parsed
+ * each time.
+ * </p>
+ * <p>
+ * Rendering a template gives the same result as repeatedly matching the expression regular expression; where that might not
+ * hold (e.g. a resolved value that itself contains {@code %message{}}) {@link #render(Function, boolean)} returns null so that
+ * the caller can fall back to the original behaviour.
+ * </p>
+ *
+ * @since 3.11.0
+ */
+final class MessageTemplate {
+
+  static final String EXPRESSION_PREFIX = "%message{";
+  static final int MAX_CACHE_SIZE = 1024;
+  static final int MAX_CACHEABLE_LENGTH = 512;
+
+  private static final MessageTemplate NO_LOOKUPS = new MessageTemplate("");
+
+  private static final Map<String, MessageTemplate> CACHE = new ConcurrentHashMap<>();
+
+  private final String[] literals;
+  // the distinct keys, ordered by their last occurrence in the expression, last first.
+  private final String[] keys;
+  // for each lookup in the expression, the index into keys.
+  private final int[] lookups;
+  private final boolean hasLineTerminators;
+  private final boolean literalsHaveExpressions;
+
+  private MessageTemplate(String s) {
+    List<String> literalList = new ArrayList<>();
+    List<String> lookupList = new ArrayList<>();
+    int literalStart = 0;
+    int from = 0;
+    int start;
+    while ((start = s.indexOf(EXPRESSION_PREFIX, from)) >= 0) {
+      int keyStart = start + EXPRESSION_PREFIX.length();
+      int keyEnd = keyStart;
+      while (keyEnd < s.length() && isKeyChar(s.charAt(keyEnd))) {
+        keyEnd++;
+      }
+      if (keyEnd > keyStart && keyEnd < s.length() && s.charAt(keyEnd) == '}') {
+        literalList.add(s.substring(literalStart, start));
+        lookupList.add(s.substring(keyStart, keyEnd));
+        literalStart = keyEnd + 1;
+        from = literalStart;
+      } else {
+        from = start + 1;
+      }
+    }
+    literalList.add(s.substring(literalStart));
+    literals = literalList.toArray(new String[0]);
+    List<String> distinct = new ArrayList<>();
+    lookups = new int[lookupList.size()];
+    for (int i = lookupList.size() - 1; i >= 0; i--) {
+      String key = lookupList.get(i);
+      int index = distinct.indexOf(key);
+      if (index < 0) {
+        index = distinct.size();
+        distinct.add(key);
+      }
+      lookups[i] = index;
+    }
+    keys = distinct.toArray(new String[0]);
+    hasLineTerminators = hasLineTerminators(s);
+    literalsHaveExpressions = literalList.stream().anyMatch(l -> l.contains(EXPRESSION_PREFIX));
+  }
+
+  static MessageTemplate compile(String s) {
+    if (s.indexOf(EXPRESSION_PREFIX) < 0) {
+      return NO_LOOKUPS;
+    }
+    if (s.length() > MAX_CACHEABLE_LENGTH) {
+      return new MessageTemplate(s);
+    }
+    MessageTemplate result = CACHE.get(s);
+    if (result == null) {
+      if (CACHE.size() >= MAX_CACHE_SIZE) {
+        evictOne();
+      }
+      result = new MessageTemplate(s);
+      MessageTemplate existing = CACHE.putIfAbsent(s, result);
+      if (existing != null) {
+        result = existing;
+      }
+    }
+    return result;
+  }
+
+  // Racing threads may each evict an entry, or briefly take the cache over its limit; neither matters.
+  private static void evictOne() {
+    Iterator<String> keys = CACHE.keySet().iterator();
+    if (keys.hasNext()) {
+      keys.next();
+      keys.remove();
+    }
+  }
+
+  static int cacheSize() {
+    return CACHE.size();
+  }
+
+  /**
+   * Whether the expression contains any {@code %message{...}} lookups at all.
+   * <p>
+   * If the expression is not multi-line, then any line terminators mean that the lookups are never resolved.
+   * </p>
+   */
+  boolean hasLookups(boolean dotAll) {
+    return keys.length > 0 && (dotAll || !hasLineTerminators);
+  }
+
+  /**
+   * Render the template.
+   *
+   * @param lookup resolves each distinct key; it is expected to throw an exception if the key cannot be resolved.
+   * @param dotAll whether the expression is treated as multi-line.
+   * @return the rendered expression, or null if the template cannot guarantee the same result as regular expression matching.
+   */
+  String render(Function<String, String> lookup, boolean dotAll) {
+    if (literalsHaveExpressions) {
+      return null;
+    }
+    String[] values = new String[keys.length];
+    int length = 0;
+    for (int i = 0; i < keys.length; i++) {
+      String value = lookup.apply(keys[i]);
+      if (value.contains(EXPRESSION_PREFIX) || !dotAll && hasLineTerminators(value)) {
+        return null;
+      }
+      values[i] = value;
+    }
+    for (String literal : literals) {
+      length += literal.length();
+    }
+    for (int index : lookups) {
+      length += values[index].length();
+    }
+    StringBuilder result = new StringBuilder(length);
+    for (int i = 0; i < lookups.length; i++) {
+      result.append(literals[i]).append(values[lookups[i]]);
+    }
+    result.append(literals[literals.length - 1]);
+    // A value may combine with the text that follows it to make a new expression.
+    return result.indexOf(EXPRESSION_PREFIX) < 0 ? result.toString() : null;
+  }
+
+  // Same as [\w!\$"#&%'\*\+,\-\.:=] in the original regular expression.
+  private static boolean isKeyChar(char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || "_!$\"#&%'*+,-.:=".indexOf(c) >= 0;
+  }
+
+  // '.' does not match these unless Pattern.DOTALL is used.
+  private static boolean hasLineTerminators(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      switch (s.charAt(i)) {
+        case '\n':
+        case '\r':
+        case '\u0085':
+        case '\u2028':
+        case '\u2029':
+          return true;
+        default:
+      }
+    }
+    return false;
+  }
+}
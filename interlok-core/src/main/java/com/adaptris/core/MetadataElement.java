@@ -68,7 +68,6 @@ public class MetadataElement implements NameValuePair, Cloneable {
 
 
   public MetadataElement(String key, String value) {
-    this();
     setKey(key);
     setValue(value);
   }
@@ -22,6 +22,8 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -29,6 +31,7 @@ import java.util.function.Consumer;
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.Range;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectFactory;
@@ -70,6 +73,13 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
  * <code>AdaptrisMessageConsumer</code> is succesfully stopped will be treated as <b>bad</b> messages and sent directly to the
  * configured {@link com.adaptris.core.ProcessingExceptionHandler}.
  * </p>
+ * <p>
+ * Where the services spend most of their time waiting on blocking I/O (e.g. JDBC, HTTP or JMS), the pool-size is really a limit on
+ * the number of concurrent calls. In that situation you can set {@link #setVirtualThreads(Boolean)} so that each message is
+ * processed on its own virtual thread (if the JVM supports it) rather than a platform thread; and if the services are thread-safe,
+ * {@link #setShareServiceCollection(Boolean)} so that a single instance of the service-collection is used for all messages rather
+ * than a pool of clones. In all cases the number of messages processed concurrently is capped at the pool-size.
+ * </p>
  * 
  * @config pooling-workflow
  * 
@@ -81,7 +91,8 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @XStreamAlias("pooling-workflow")
 @AdapterComponent
 @ComponentProfile(summary = "Workflow with a thread pool handling the service chain", tag = "workflow,base")
-@DisplayOrder(order = {"poolSize", "minIdle", "maxIdle", "threadPriority", "disableDefaultMessageCount"})
+@DisplayOrder(order = {"poolSize", "minIdle", "maxIdle", "threadPriority", "virtualThreads", "shareServiceCollection",
+    "disableDefaultMessageCount"})
 public class PoolingWorkflow extends WorkflowImp {
 
   /**
@@ -145,9 +156,17 @@ public class PoolingWorkflow extends WorkflowImp {
   @Min(Thread.MIN_PRIORITY)
   @Max(Thread.MAX_PRIORITY)
   private Integer threadPriority;
+  @AdvancedConfig
+  @InputFieldDefault(value = "false")
+  private Boolean virtualThreads;
+  @AdvancedConfig
+  @InputFieldDefault(value = "false")
+  private Boolean shareServiceCollection;
 
   private transient ExecutorService threadPool;
   private transient GenericObjectPool<Worker> objectPool;
+  private transient Worker sharedWorker;
+  private transient Semaphore concurrency;
   private transient FifoMutexLock poolLock;
   private transient AdaptrisMarshaller serviceListMarshaller;
   private transient String currentThreadName;
@@ -266,9 +285,15 @@ public class PoolingWorkflow extends WorkflowImp {
   @Override
   protected void startWorkflow() throws CoreException {
     LifecycleHelper.start(getProducer());
-    objectPool = createObjectPool();
+    concurrency = new Semaphore(poolSize(), true);
     threadPool = createExecutor();
-    populatePool();
+    if (shareServiceCollection()) {
+      sharedWorker = new Worker();
+      sharedWorker.start();
+    } else {
+      objectPool = createObjectPool();
+      populatePool();
+    }
     LifecycleHelper.start(getConsumer());
   }
 
@@ -333,7 +358,7 @@ public class PoolingWorkflow extends WorkflowImp {
       if (poolLock.permitAvailable()) {
         workflowStart(msg);
         // workflowCompletion.add(msg, threadPool.submit(new CallableWorker(msg)));
-        threadPool.submit(new CallableWorker(msg));
+        submit(new CallableWorker(msg));
       }
       else {
         log.warn("Attempt to process message during shutdown; failing it");
@@ -346,6 +371,18 @@ public class PoolingWorkflow extends WorkflowImp {
     }
   }
 
+  // Take the permit (and worker) immediately before submitting, and hand them back if the pool won't take the task.
+  private void submit(CallableWorker task) throws Exception {
+    task.reserve();
+    try {
+      threadPool.submit(task);
+    }
+    catch (RejectedExecutionException e) {
+      task.abandon();
+      throw e;
+    }
+  }
+
   /**
    *
    * @see WorkflowImp#handleBadMessage(AdaptrisMessage)
@@ -409,6 +446,13 @@ public class PoolingWorkflow extends WorkflowImp {
   }
 
   private ExecutorService createExecutor() {
+    if (virtualThreads()) {
+      ExecutorService virtual = ManagedThreadFactory.newVirtualThreadPerTaskExecutor();
+      if (virtual != null) {
+        return virtual;
+      }
+      log.warn("Virtual threads are not supported by this JVM, using platform threads");
+    }
     ExecutorService es = Executors.newCachedThreadPool(new WorkerThreadFactory());
     if (es instanceof ThreadPoolExecutor) {
       ((ThreadPoolExecutor) es).setKeepAliveTime(threadLifetimeMs(), TimeUnit.MILLISECONDS);
@@ -459,7 +503,12 @@ public class PoolingWorkflow extends WorkflowImp {
         handleBadMessage(sd.getMessage());
       }
       log.trace("All children terminated; existence pointless");
-      objectPool.close();
+      if (objectPool != null) {
+        objectPool.close();
+      }
+      if (sharedWorker != null) {
+        sharedWorker.stop();
+      }
     }
     catch (Exception e) {
       log.warn("Exception shutting down Pool : ", e);
@@ -467,6 +516,7 @@ public class PoolingWorkflow extends WorkflowImp {
     finally {
       threadPool = null;
       objectPool = null;
+      sharedWorker = null;
     }
     poolLock.release();
   }
@@ -533,6 +583,61 @@ public class PoolingWorkflow extends WorkflowImp {
     return NumberUtils.toIntDefaultIfNull(getMaxIdle(), DEFAULT_MAX_IDLE);
   }
 
+  public Boolean getVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Process each message on a new virtual thread.
+   * <p>
+   * Virtual threads require Java 21 or later; on earlier JVMs a warning is logged and the normal thread pool is used.
+   * {@link #setThreadPriority(Integer)} and {@link #setThreadKeepAlive(TimeInterval)} have no effect on virtual threads. The number
+   * of messages processed concurrently is still capped by {@link #setPoolSize(Integer)}.
+   * </p>
+   *
+   * @param b true to use virtual threads, default is false.
+   * @since 3.11.0
+   */
+  public void setVirtualThreads(Boolean b) {
+    virtualThreads = b;
+  }
+
+  public PoolingWorkflow withVirtualThreads(Boolean b) {
+    setVirtualThreads(b);
+    return this;
+  }
+
+  boolean virtualThreads() {
+    return BooleanUtils.toBooleanDefaultIfNull(getVirtualThreads(), false);
+  }
+
+  public Boolean getShareServiceCollection() {
+    return shareServiceCollection;
+  }
+
+  /**
+   * Use a single instance of the service-collection for all messages rather than a pool of clones.
+   * <p>
+   * Only set this to true if every service in the collection is thread-safe; when true, min-idle and max-idle are ignored, and the
+   * number of messages processed concurrently is capped by {@link #setPoolSize(Integer)}.
+   * </p>
+   *
+   * @param b true to share the service-collection between threads, default is false.
+   * @since 3.11.0
+   */
+  public void setShareServiceCollection(Boolean b) {
+    shareServiceCollection = b;
+  }
+
+  public PoolingWorkflow withShareServiceCollection(Boolean b) {
+    setShareServiceCollection(b);
+    return this;
+  }
+
+  boolean shareServiceCollection() {
+    return BooleanUtils.toBooleanDefaultIfNull(getShareServiceCollection(), false);
+  }
+
   public int threadPriority() {
     int priority = NumberUtils.toIntDefaultIfNull(getThreadPriority(), Thread.NORM_PRIORITY);
     if (!PRIORITY_RANGE.contains(priority)) {
@@ -575,6 +680,9 @@ public class PoolingWorkflow extends WorkflowImp {
    * @return the total number of objects in the pool.
    */
   public int currentObjectPoolCount() {
+    if (objectPool == null) {
+      return sharedWorker != null ? 1 : 0;
+    }
     return objectPool.getNumActive() + objectPool.getNumIdle();
   }
 
@@ -585,6 +693,9 @@ public class PoolingWorkflow extends WorkflowImp {
    * @return the currently active objects.
    */
   public int currentlyActiveObjects() {
+    if (objectPool == null) {
+      return inFlight();
+    }
     return objectPool.getNumActive();
   }
 
@@ -594,9 +705,16 @@ public class PoolingWorkflow extends WorkflowImp {
    * @return the number of idle objects.
    */
   public int currentlyIdleObjects() {
+    if (objectPool == null) {
+      return 0;
+    }
     return objectPool.getNumIdle();
   }
 
+  private int inFlight() {
+    return concurrency != null ? poolSize() - concurrency.availablePermits() : 0;
+  }
+
   private ServiceCollection cloneServiceCollection(ServiceCollection original) throws CoreException {
     ServiceCollection result = null;
     result = (ServiceCollection) serviceListMarshaller.unmarshal(serviceListMarshaller.marshal(original));
@@ -611,6 +729,10 @@ public class PoolingWorkflow extends WorkflowImp {
    * @return the number of threads in the threadpool.
    */
   public int currentThreadPoolCount() {
+    if (!(threadPool instanceof ThreadPoolExecutor)) {
+      // virtual threads are not pooled, so the best we can do is the number of messages in flight.
+      return inFlight();
+    }
     return ((ThreadPoolExecutor) threadPool).getPoolSize();
   }
 
@@ -685,10 +807,33 @@ public class PoolingWorkflow extends WorkflowImp {
   private class CallableWorker implements Callable<AdaptrisMessage> {
     private AdaptrisMessage message;
     private Worker worker;
+    private boolean pooled;
 
-    CallableWorker(AdaptrisMessage msg) throws Exception {
+    CallableWorker(AdaptrisMessage msg) {
       message = msg;
-      worker = objectPool.borrowObject();
+    }
+
+    void reserve() throws Exception {
+      concurrency.acquire();
+      try {
+        pooled = sharedWorker == null;
+        worker = pooled ? objectPool.borrowObject() : sharedWorker;
+      } catch (Exception e) {
+        concurrency.release();
+        throw e;
+      }
+    }
+
+    void abandon() {
+      try {
+        if (pooled) {
+          objectPool.returnObject(worker);
+        }
+      } catch (Exception ignoredIntentionally) {
+        log.trace("[{}] failed to return worker", PoolingWorkflow.this.toString());
+      } finally {
+        concurrency.release();
+      }
     }
 
     private AdaptrisMessage getMessage() {
@@ -708,15 +853,21 @@ public class PoolingWorkflow extends WorkflowImp {
         processingStart(message);
         result = worker.handleMessage(message);
         workflowEnd(message, result);
-        objectPool.returnObject(worker);
+        if (pooled) {
+          objectPool.returnObject(worker);
+        }
       } catch (Exception e) {
         log.trace("[{}] failed pool re-entry, attempting to invalidate", toString());
         try {
-          objectPool.invalidateObject(worker);
+          if (pooled) {
+            objectPool.invalidateObject(worker);
+          }
           log.trace("[{}] invalidated", toString());
         } catch (Exception ignoredIntentionally) {
           log.trace("[{}] not invalidated", toString());
         }
+      } finally {
+        concurrency.release();
       }
       Thread.currentThread().setName(oldName);
       return result;
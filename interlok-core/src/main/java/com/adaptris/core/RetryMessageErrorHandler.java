@@ -32,9 +32,14 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
  * deemed to have failed, and passed off to any configured {@link #getProcessingExceptionService()}.
  * </p>
  * <p>
+ * If {@link #setPersistentStore(String)} is configured, then messages waiting for retry are written to that file instead of being
+ * kept in memory; this limits the memory used during a prolonged outage, and means that messages waiting for retry survive a
+ * restart (they are not failed when this component is stopped).
+ * </p>
+ * <p>
  * In the event that the {@link AdaptrisComponent} that owns this implementation is stopped or closed (using
- * {@link AdaptrisComponent#stop()} or {@link AdaptrisComponent#close()} then all messages are deemed to have failed, and treated as
- * a message that has failed.
+ * {@link AdaptrisComponent#stop()} or {@link AdaptrisComponent#close()} then all messages held in memory are deemed to have failed,
+ * and treated as a message that has failed.
  * </p>
  * <p>
  * Note that messages are not guaranteed to be in order (even if they were originally) once a message has entered retry mode. Also
@@ -49,7 +54,7 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @AdapterComponent
 @ComponentProfile(summary = "An exception handler instance that supports automated retries defined by schedule",
     tag = "error-handling,base")
-@DisplayOrder(order = {"retryLimit"})
+@DisplayOrder(order = {"retryLimit", "persistentStore"})
 public class RetryMessageErrorHandler extends RetryMessageErrorHandlerImp {
 
   public RetryMessageErrorHandler() {
@@ -16,7 +16,9 @@
 
 package com.adaptris.core;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -24,17 +26,18 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.WeakHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import javax.management.MalformedObjectNameException;
+import com.adaptris.annotation.AdvancedConfig;
 import com.adaptris.annotation.InputFieldDefault;
 import com.adaptris.core.runtime.ParentRuntimeInfoComponent;
 import com.adaptris.core.runtime.RuntimeInfoComponent;
 import com.adaptris.core.runtime.RuntimeInfoComponentFactory;
+import com.adaptris.core.util.ExceptionHelper;
 import com.adaptris.core.util.ManagedThreadFactory;
 import com.adaptris.util.NumberUtils;
 import com.adaptris.util.TimeInterval;
@@ -47,6 +50,7 @@ public abstract class RetryMessageErrorHandlerImp extends StandardProcessingExce
 
   private static final TimeInterval DEFAULT_RETRY_INTERVAL = new TimeInterval(10L, TimeUnit.MINUTES);
   private static final TimeInterval DEFAULT_POOL_TIMEOUT = new TimeInterval(30L, TimeUnit.SECONDS);
+  private static final long MAX_TICK_MS = TimeUnit.SECONDS.toMillis(1);
 
   private static final int RETRY_LIMIT_DEFAULT = 10;
   protected static final String IS_RETRY_KEY = "autoRetryInProgress";
@@ -58,12 +62,14 @@ public abstract class RetryMessageErrorHandlerImp extends StandardProcessingExce
   @InputFieldDefault(value = "10 minutes")
   private TimeInterval retryInterval;
 
+  @AdvancedConfig
+  private String persistentStore;
+
   protected transient ScheduledExecutorService executor;
-  protected transient List<AdaptrisMessage> retryList;
   protected transient List<AdaptrisMessage> inProgress;
-  private transient Set<ScheduledFuture> retries = Collections.newSetFromMap(new WeakHashMap<ScheduledFuture, Boolean>());
-  private transient ScheduledFuture sweeper = null;
-  private transient boolean failAll = false;
+  private transient RetryQueue retryQueue;
+  private transient ScheduledFuture ticker = null;
+  private transient volatile boolean failAll = false;
 
   static {
     RuntimeInfoComponentFactory.registerComponentFactory(new JmxFactory());
@@ -71,12 +77,12 @@ public abstract class RetryMessageErrorHandlerImp extends StandardProcessingExce
 
   public RetryMessageErrorHandlerImp() {
     super();
-    retryList = Collections.synchronizedList(new ArrayList<AdaptrisMessage>());
+    retryQueue = new RetryQueue();
     inProgress = Collections.synchronizedList(new ArrayList<AdaptrisMessage>());
   }
 
   @Override
-  public synchronized void handleProcessingException(AdaptrisMessage msg) {
+  public void handleProcessingException(AdaptrisMessage msg) {
     if (shouldFail(msg) || failAll) {
       failMessage(msg);
     }
@@ -106,25 +112,37 @@ public abstract class RetryMessageErrorHandlerImp extends StandardProcessingExce
 
   @Override
   public void start() throws CoreException {
+    try {
+      retryQueue = isBlank(getPersistentStore()) ? new RetryQueue() : new RetryQueue(new File(getPersistentStore()));
+      retryQueue.open(System.currentTimeMillis() + retryIntervalMs());
+    }
+    catch (Exception e) {
+      throw ExceptionHelper.wrapCoreException(e);
+    }
     executor = Executors.newScheduledThreadPool(1, new ManagedThreadFactory(getClass().getSimpleName()));
-    sweeper = executor.scheduleWithFixedDelay(new CleanupTask(), 100L, retryIntervalMs(), TimeUnit.MILLISECONDS);
+    long tick = Math.min(retryIntervalMs(), MAX_TICK_MS);
+    ticker = executor.scheduleWithFixedDelay(() -> retryDueMessages(), tick, tick, TimeUnit.MILLISECONDS);
     failAll = false;
     super.start();
   }
 
   @Override
   public void stop() {
-    failAllMessages();
-    shutdownExecutor();
+    if (retryQueue.isPersistent()) {
+      shutdownExecutor();
+      retryQueue.close();
+    }
+    else {
+      failAllMessages();
+      shutdownExecutor();
+    }
     super.stop();
   }
 
   private void shutdownExecutor() {
-    sweeper.cancel(true);
-    for (ScheduledFuture f : retries) {
-      f.cancel(true);
+    if (ticker != null) {
+      ticker.cancel(false);
     }
-    retries.clear();
     ManagedThreadFactory.shutdownQuietly(executor, DEFAULT_POOL_TIMEOUT);
     executor = null;
   }
@@ -169,11 +187,39 @@ public abstract class RetryMessageErrorHandlerImp extends StandardProcessingExce
     retryInterval = interval;
   }
 
+  public String getPersistentStore() {
+    return persistentStore;
+  }
+
+  /**
+   * Set the file where messages waiting to be retried are stored.
+   * <p>
+   * If specified, messages waiting for retry are written to this file rather than being held in
+   * memory; they are not failed when this component is stopped, and are retried (after the retry
+   * interval) once it is restarted. If not specified, messages are held in memory and are deemed to
+   * have failed when this component is stopped.
+   * </p>
+   * <p>
+   * Only the payload and metadata are written to the file, so any object metadata is lost for
+   * messages that are retried from it.
+   * </p>
+   *
+   * @param s the file; default is null (messages are held in memory).
+   */
+  public void setPersistentStore(String s) {
+    persistentStore = s;
+  }
+
   protected void failAllMessages() {
-    for (AdaptrisMessage msg : new ArrayList<AdaptrisMessage>(retryList)) {
-      failMessage(msg);
+    AdaptrisMessage msg;
+    while ((msg = nextMessage(Long.MAX_VALUE)) != null) {
+      try {
+        failMessage(msg);
+      }
+      finally {
+        retryQueue.complete(msg);
+      }
     }
-    retryList.clear();
   }
 
   protected void failFutureMessages(boolean failFuture) {
@@ -181,18 +227,12 @@ public abstract class RetryMessageErrorHandlerImp extends StandardProcessingExce
   }
 
   protected Collection<String> waitingForRetry() {
-    Set<String> result = new HashSet<String>();
-    for (AdaptrisMessage msg : new ArrayList<AdaptrisMessage>(retryList)) {
-      result.add(msg.getUniqueId());
-    }
-    return result;
+    return new HashSet<String>(retryQueue.ids());
   }
 
   protected void failMessage(String s) {
-    for (AdaptrisMessage msg : new ArrayList<AdaptrisMessage>(retryList)) {
-      if (msg.getUniqueId().equals(s)) {
-        failMessage(msg);
-      }
+    for (AdaptrisMessage msg : retryQueue.remove(s)) {
+      failMessage(msg);
     }
   }
 
@@ -208,8 +248,11 @@ public abstract class RetryMessageErrorHandlerImp extends StandardProcessingExce
   protected void scheduleNextRun(AdaptrisMessage msg) {
     log.trace("Message [{}] should be retried", msg.getUniqueId());
     try {
-      ScheduledFuture f = executor.schedule(new RetryThread(msg), retryIntervalMs(), TimeUnit.MILLISECONDS);
-      retries.add(f);
+      if (executor == null || executor.isShutdown()) {
+        throw new RejectedExecutionException("No executor to retry messages");
+      }
+      Object count = msg.getObjectHeaders().get(RETRY_COUNT_KEY);
+      retryQueue.add(msg, count != null ? Integer.parseInt(count.toString()) : 0, System.currentTimeMillis() + retryIntervalMs());
     }
     catch (Exception e) {
       log.warn("Failed to reschedule retry, failing message");
@@ -227,67 +270,57 @@ public abstract class RetryMessageErrorHandlerImp extends StandardProcessingExce
     }
     return result;
   }
-  /**
-   * Private thread used to resubmit messages.
-   *
-   */
-  protected class RetryThread implements Runnable {
-    private AdaptrisMessage msg;
-
-    RetryThread(AdaptrisMessage m) {
-      msg = m;
-      retryList.add(msg);
-    }
-
-    @Override
-    public void run() {
-      String oldName = Thread.currentThread().getName();
-      Thread.currentThread().setName(toString());
+  private void retryDueMessages() {
+    AdaptrisMessage msg;
+    while (!Thread.currentThread().isInterrupted()
+        && (msg = nextMessage(System.currentTimeMillis())) != null) {
       try {
-        retryList.remove(msg);
-        inProgress.add(msg);
-        log.trace("Retrying message [{}]", msg.getUniqueId());
-        Workflow workflow = filterStarted(registeredWorkflows()).get(msg.getMetadataValue(Workflow.WORKFLOW_ID_KEY));
-        if (workflow != null) {
-          log.trace("Retrying message [{}] in workflow [{}]", msg.getUniqueId(), workflow.obtainWorkflowId());
-          workflow.onAdaptrisMessage(msg);
-        }
-        else {
-          log.warn("Workflow [{}] not registered, or not started, failing message", msg.getMetadataValue(Workflow.WORKFLOW_ID_KEY));
-          log.debug("Registered Workflows :{}", registeredWorkflows().keySet());
-          failMessage(msg);
-        }
-        inProgress.remove(msg);
+        retry(msg);
+      }
+      catch (RuntimeException e) {
+        log.error("Failed to retry message [{}], rescheduling", msg.getUniqueId(), e);
+        scheduleNextRun(msg);
       }
       finally {
-        Thread.currentThread().setName(oldName);
+        // Only now has the message been handed off, so it can leave the persistent store.
+        retryQueue.complete(msg);
       }
     }
-
-    @Override
-    public String toString() {
-      return "RetryMessageErrorHandler#RetryThread";
-    }
-
   }
 
-  private class CleanupTask implements Runnable {
-
-    @Override
-    public void run() {
-      retries.removeAll(filter(new ArrayList<ScheduledFuture>(retries)));
+  private AdaptrisMessage nextMessage(long now) {
+    while (true) {
+      try {
+        return retryQueue.poll(now);
+      }
+      catch (RetryQueue.UnreadableMessageException e) {
+        // It can't be retried, but it still needs to go through the normal failure path.
+        log.error("Message [{}] could not be read from the retry store", e.getUnreadable().getUniqueId(), e);
+        failMessage(e.getUnreadable());
+      }
     }
+  }
 
-    private List<ScheduledFuture> filter(Collection<ScheduledFuture> workingSet) {
-      // surely time for a filter() lambda...
-      // return workingSet.stream().filter(future -> future.isDone()).collect(Collectors.toList());
-      List<ScheduledFuture> done = new ArrayList<>();
-      for (ScheduledFuture f : workingSet) {
-        if (f.isDone()) {
-          done.add(f);
-        }
+  private void retry(AdaptrisMessage msg) {
+    String oldName = Thread.currentThread().getName();
+    Thread.currentThread().setName("RetryMessageErrorHandler#RetryThread");
+    try {
+      inProgress.add(msg);
+      log.trace("Retrying message [{}]", msg.getUniqueId());
+      Workflow workflow = filterStarted(registeredWorkflows()).get(msg.getMetadataValue(Workflow.WORKFLOW_ID_KEY));
+      if (workflow != null) {
+        log.trace("Retrying message [{}] in workflow [{}]", msg.getUniqueId(), workflow.obtainWorkflowId());
+        workflow.onAdaptrisMessage(msg);
       }
-      return done;
+      else {
+        log.warn("Workflow [{}] not registered, or not started, failing message", msg.getMetadataValue(Workflow.WORKFLOW_ID_KEY));
+        log.debug("Registered Workflows :{}", registeredWorkflows().keySet());
+        failMessage(msg);
+      }
+    }
+    finally {
+      inProgress.remove(msg);
+      Thread.currentThread().setName(oldName);
     }
   }
 
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.adaptris.interlok.util.Closer;
+
+/**
+ * Messages waiting to be retried by {@link RetryMessageErrorHandlerImp}, in the order that they
+ * are due.
+ * <p>
+ * Every message waits for the same retry interval, so insertion order is also due order; a single
+ * periodic task can simply take messages from the head until it reaches one that is not yet due.
+ * If a file is specified then messages are appended to it (mime encoded) rather than being held in
+ * memory, so only a small index entry per message is kept on the heap; the file is replayed when
+ * the queue is opened, so messages waiting for retry survive a restart. A message taken from the
+ * file is only removed from it once the retry has been handed off (see {@link #complete(AdaptrisMessage)}),
+ * so a message that was being retried when the process died is retried again.
+ * </p>
+ * <p>
+ * Only the mime encoded message (payload and metadata) is written to the file, so object metadata is
+ * not retained for messages that are held on disk.
+ * </p>
+ */
+class RetryQueue {
+
+  private static final int MAGIC = 0x52545131;
+  private static final int HEADER_SIZE = Integer.BYTES;
+  private static final byte OP_ADD = 1;
+  private static final byte OP_REMOVE = 2;
+  private static final long MIN_BYTES_BEFORE_COMPACTION = 1024 * 1024;
+
+  private transient Logger log = LoggerFactory.getLogger(this.getClass().getName());
+
+  private final File file;
+  private final MimeEncoder encoder = new MimeEncoder(true, null, null);
+  private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>();
+  // Messages that have been taken from the queue, but are still in the file until complete() is called.
+  private final Map<AdaptrisMessage, Entry> inFlight = new IdentityHashMap<>();
+  private RandomAccessFile journal;
+  private long sequence;
+  private long liveBytes;
+
+  /**
+   * Create a queue that holds messages in memory.
+   */
+  RetryQueue() {
+    this(null);
+  }
+
+  /**
+   * Create a queue that persists messages to the specified file.
+   */
+  RetryQueue(File f) {
+    file = f;
+  }
+
+  boolean isPersistent() {
+    return file != null;
+  }
+
+  /**
+   * Open the queue, replaying anything already in the file.
+   *
+   * @param replayedDue when messages read from the file are next due.
+   */
+  synchronized void open(long replayedDue) throws IOException {
+    if (!isPersistent() || journal != null) {
+      return;
+    }
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    journal = new RandomAccessFile(file, "rw");
+    entries.clear();
+    liveBytes = 0;
+    if (journal.length() == 0) {
+      journal.writeInt(MAGIC);
+      return;
+    }
+    if (journal.length() < HEADER_SIZE || journal.readInt() != MAGIC) {
+      close();
+      throw new IOException("[" + file.getAbsolutePath() + "] is not a retry store");
+    }
+    replay(replayedDue);
+  }
+
+  /**
+   * Add a message to the tail of the queue.
+   */
+  synchronized void add(AdaptrisMessage msg, int retryCount, long due) throws IOException, CoreException {
+    long seq = ++sequence;
+    Entry e = new Entry(seq, msg.getUniqueId(), retryCount, due);
+    if (isPersistent()) {
+      byte[] payload = encoder.encode(msg);
+      byte[] id = e.id.getBytes(UTF_8);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(id.length + 32);
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(OP_ADD);
+      out.writeLong(seq);
+      out.writeLong(due);
+      out.writeInt(retryCount);
+      out.writeInt(id.length);
+      out.write(id);
+      out.writeInt(payload.length);
+      long start = journal.length();
+      journal.seek(start);
+      journal.write(bytes.toByteArray());
+      journal.write(payload);
+      e.offset = start + bytes.size();
+      e.length = payload.length;
+      e.recordLength = bytes.size() + payload.length;
+      liveBytes += e.recordLength;
+    }
+    else {
+      e.msg = msg;
+    }
+    entries.put(seq, e);
+  }
+
+  /**
+   * Remove the message at the head of the queue if it is due.
+   * <p>
+   * If the queue is persistent, then the message stays in the file until
+   * {@link #complete(AdaptrisMessage)} is called.
+   * </p>
+   *
+   * @return the message, or null if there is nothing due.
+   * @throws UnreadableMessageException if the message at the head of the queue was removed but could
+   *         not be read back.
+   */
+  synchronized AdaptrisMessage poll(long now) throws UnreadableMessageException {
+    Iterator<Entry> i = entries.values().iterator();
+    if (!i.hasNext()) {
+      return null;
+    }
+    Entry e = i.next();
+    if (e.due > now) {
+      return null;
+    }
+    i.remove();
+    AdaptrisMessage msg;
+    try {
+      msg = read(e);
+    }
+    catch (UnreadableMessageException ex) {
+      journalRemove(e);
+      throw ex;
+    }
+    if (isPersistent()) {
+      inFlight.put(msg, e);
+    }
+    return msg;
+  }
+
+  /**
+   * Mark a message returned by {@link #poll(long)} as dealt with, removing it from the file.
+   */
+  synchronized void complete(AdaptrisMessage msg) {
+    Entry e = inFlight.remove(msg);
+    if (e != null) {
+      journalRemove(e);
+    }
+  }
+
+  /**
+   * Remove all the messages with the specified unique-id.
+   * <p>
+   * Any message that cannot be read back is returned as {@link UnreadableMessageException#getUnreadable()}.
+   * </p>
+   */
+  synchronized List<AdaptrisMessage> remove(String uniqueId) {
+    List<Entry> matches = new ArrayList<>();
+    for (Iterator<Entry> i = entries.values().iterator(); i.hasNext();) {
+      Entry e = i.next();
+      if (e.id.equals(uniqueId)) {
+        matches.add(e);
+        i.remove();
+      }
+    }
+    List<AdaptrisMessage> result = new ArrayList<>();
+    for (Entry e : matches) {
+      try {
+        result.add(removed(e));
+      }
+      catch (UnreadableMessageException ex) {
+        result.add(ex.getUnreadable());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * The unique-ids of the messages in the queue.
+   */
+  synchronized List<String> ids() {
+    List<String> result = new ArrayList<>(entries.size());
+    for (Entry e : entries.values()) {
+      result.add(e.id);
+    }
+    return result;
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  synchronized void close() {
+    Closer.closeQuietly(journal);
+    journal = null;
+    if (isPersistent()) {
+      entries.clear();
+      inFlight.clear();
+    }
+  }
+
+  private AdaptrisMessage removed(Entry e) throws UnreadableMessageException {
+    try {
+      return read(e);
+    }
+    finally {
+      if (isPersistent()) {
+        journalRemove(e);
+      }
+    }
+  }
+
+  private AdaptrisMessage read(Entry e) throws UnreadableMessageException {
+    if (!isPersistent()) {
+      return e.msg;
+    }
+    byte[] payload = new byte[0];
+    try {
+      byte[] record = new byte[e.length];
+      journal.seek(e.offset);
+      journal.readFully(record);
+      payload = record;
+      AdaptrisMessage msg = encoder.decode(payload);
+      msg.addObjectHeader(RetryMessageErrorHandlerImp.IS_RETRY_KEY, "true");
+      msg.addObjectHeader(RetryMessageErrorHandlerImp.RETRY_COUNT_KEY, String.valueOf(e.retryCount));
+      return msg;
+    }
+    catch (IOException | CoreException ex) {
+      throw new UnreadableMessageException(e.id, payload, ex);
+    }
+  }
+
+  private void journalRemove(Entry e) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(Byte.BYTES + Long.BYTES);
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(OP_REMOVE);
+      out.writeLong(e.seq);
+      journal.seek(journal.length());
+      journal.write(bytes.toByteArray());
+      liveBytes -= e.recordLength;
+      compactIfRequired();
+    }
+    catch (IOException ex) {
+      log.warn("Failed to record the removal of [{}], it will be replayed on restart", e.id, ex);
+    }
+  }
+
+  private void replay(long replayedDue) throws IOException {
+    long good = HEADER_SIZE;
+    try {
+      while (true) {
+        byte op = journal.readByte();
+        long seq = journal.readLong();
+        if (op == OP_ADD) {
+          journal.readLong();
+          int retryCount = journal.readInt();
+          int idLength = journal.readInt();
+          if (idLength < 0 || journal.getFilePointer() + idLength > journal.length()) {
+            throw new EOFException();
+          }
+          byte[] id = new byte[idLength];
+          journal.readFully(id);
+          int len = journal.readInt();
+          long offset = journal.getFilePointer();
+          if (offset + len > journal.length()) {
+            throw new EOFException();
+          }
+          journal.seek(offset + len);
+          Entry e = new Entry(seq, new String(id, UTF_8), retryCount, replayedDue);
+          e.offset = offset;
+          e.length = len;
+          e.recordLength = journal.getFilePointer() - good;
+          entries.put(seq, e);
+          liveBytes += e.recordLength;
+        }
+        else if (op == OP_REMOVE) {
+          Entry e = entries.remove(seq);
+          if (e != null) {
+            liveBytes -= e.recordLength;
+          }
+        }
+        else {
+          throw new IOException("[" + file.getAbsolutePath() + "] is corrupt at offset " + good);
+        }
+        sequence = Math.max(sequence, seq);
+        good = journal.getFilePointer();
+      }
+    }
+    catch (EOFException e) {
+      // Anything after the last complete record was partially written.
+      journal.setLength(good);
+    }
+  }
+
+  private void compactIfRequired() {
+    long dead = journal.length() - HEADER_SIZE - liveBytes;
+    try {
+      if (entries.isEmpty() && inFlight.isEmpty()) {
+        journal.setLength(HEADER_SIZE);
+      }
+      else if (dead > Math.max(liveBytes, MIN_BYTES_BEFORE_COMPACTION)) {
+        compact();
+      }
+    }
+    catch (IOException e) {
+      // The journal is still valid, just larger than it needs to be.
+      log.warn("Failed to compact [{}]", file.getAbsolutePath(), e);
+    }
+  }
+
+  private void compact() throws IOException {
+    File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    Map<Long, Long> offsets = new HashMap<>();
+    List<Entry> live = new ArrayList<>(inFlight.values());
+    live.addAll(entries.values());
+    try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+      out.setLength(0);
+      out.writeInt(MAGIC);
+      for (Entry e : live) {
+        long headerLength = e.recordLength - e.length;
+        byte[] record = new byte[(int) e.recordLength];
+        journal.seek(e.offset - headerLength);
+        journal.readFully(record);
+        offsets.put(e.seq, out.getFilePointer() + headerLength);
+        out.write(record);
+      }
+    }
+    Closer.closeQuietly(journal);
+    try {
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    finally {
+      journal = new RandomAccessFile(file, "rw");
+    }
+    for (Entry e : live) {
+      e.offset = offsets.get(e.seq);
+    }
+  }
+
+  /**
+   * A message was removed from the queue, but could not be read back.
+   */
+  static class UnreadableMessageException extends CoreException {
+    private static final long serialVersionUID = 2020101801L;
+
+    private final transient AdaptrisMessage unreadable;
+
+    UnreadableMessageException(String uniqueId, byte[] payload, Exception cause) {
+      super("Failed to read [" + uniqueId + "] from the retry store", cause);
+      unreadable = AdaptrisMessageFactory.getDefaultInstance().newMessage(payload);
+      unreadable.setUniqueId(uniqueId);
+      unreadable.addObjectHeader(CoreConstants.OBJ_METADATA_EXCEPTION, this);
+    }
+
+    /**
+     * A message with the original unique-id and whatever could be read as its payload.
+     */
+    AdaptrisMessage getUnreadable() {
+      return unreadable;
+    }
+  }
+
+  private static class Entry {
+    private final long seq;
+    private final String id;
+    private final int retryCount;
+    private final long due;
+    private AdaptrisMessage msg;
+    private long offset;
+    private int length;
+    private long recordLength;
+
+    Entry(long seq, String id, int retryCount, long due) {
+      this.seq = seq;
+      this.id = id;
+      this.retryCount = retryCount;
+      this.due = due;
+    }
+  }
+}
@@ -19,6 +19,7 @@ package com.adaptris.core;
 import static com.adaptris.core.CoreConstants.KEY_WORKFLOW_SKIP_PRODUCER;
 import static com.adaptris.core.CoreConstants.OBJ_METADATA_EXCEPTION;
 import static com.adaptris.core.CoreConstants.OBJ_METADATA_EXCEPTION_CAUSE;
+import static com.adaptris.core.CoreConstants.OBJ_METADATA_ON_FAILURE_CALLBACK;
 import static com.adaptris.core.CoreConstants.UNIQUE_ID_JMX_PATTERN;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import java.util.ArrayList;
@@ -26,6 +27,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -703,11 +705,17 @@ public abstract class WorkflowImp implements Workflow {
 
   /**
    * Mark the workflow having accepted a message.
+   * <p>
+   * Also registers {@link CoreConstants#OBJ_METADATA_ON_FAILURE_CALLBACK} so that a failure that is
+   * only discovered after the workflow has finished with the message is still passed to this
+   * workflow's error handler.
+   * </p>
    *
    * @param msg the input message
    * @see WorkflowInterceptor
    */
   protected void workflowStart(AdaptrisMessage msg) {
+    msg.addObjectHeader(OBJ_METADATA_ON_FAILURE_CALLBACK, (Consumer<AdaptrisMessage>) this::handleBadMessage);
     for (WorkflowInterceptor i : getInterceptors()) {
       i.workflowStart(msg);
     }
@@ -16,8 +16,10 @@
 
 package com.adaptris.core;
 
+import java.io.StringWriter;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.io.xml.CompactWriter;
 
 /**
  * XStream version of {@link AdaptrisMarshaller}
@@ -40,4 +42,15 @@ public class XStreamMarshaller extends XStreamMarshallerImpl {
     return instance;
   }
 
+  /**
+   * Marshal the object without any indentation or line breaks.
+   *
+   * @param obj the object to marshal.
+   * @return the compact XML representation.
+   */
+  public String marshalCompact(Object obj) throws CoreException {
+    StringWriter writer = new StringWriter();
+    getInstance().marshal(obj, new CompactWriter(writer));
+    return writer.toString();
+  }
 }
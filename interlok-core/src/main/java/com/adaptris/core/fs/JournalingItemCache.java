@@ -0,0 +1,300 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core.fs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.validation.constraints.NotBlank;
+import com.adaptris.annotation.DisplayOrder;
+import com.adaptris.core.CoreException;
+import com.adaptris.core.util.ExceptionHelper;
+import com.adaptris.interlok.util.Closer;
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+
+/**
+ * Extension to {@link InlineItemCache} that records changes to the processed items in an append-only
+ * journal on disk.
+ * <p>
+ * Unlike {@link XStreamItemCache} which rewrites every item on each {@link #save()}, only the items
+ * that have been added, updated or evicted since the last save are appended to the journal; so the
+ * cost of a save is proportional to the work done in the poll rather than the number of items being
+ * tracked. The journal is replayed upon init(), and is rewritten to contain only the current items
+ * once it holds twice as many entries as the cache itself. If multiple instances of this class point
+ * to the same persistentStore then results are undefined.
+ * </p>
+ *
+ * @config fs-journaling-processed-item-cache
+ * @since 3.11.0
+ */
+@XStreamAlias("fs-journaling-processed-item-cache")
+@DisplayOrder(order = {"persistentStore"})
+public class JournalingItemCache extends InlineItemCache {
+  private static final String DEF_CACHE_DIR = System.getProperty("user.dir") + File.separator;
+
+  private static final int MAGIC = 0x50494a31;
+  private static final byte OP_UPDATE = 1;
+  private static final byte OP_REMOVE = 2;
+  private static final int MIN_ENTRIES_BEFORE_COMPACTION = 1024;
+
+  @NotBlank
+  private String persistentStore;
+
+  private transient Map<String, ProcessedItem> pending = new LinkedHashMap<>();
+  private transient DataOutputStream journal;
+  private transient int journalEntries;
+
+  public JournalingItemCache() {
+    super();
+    setPersistentStore(DEF_CACHE_DIR + UUID.randomUUID().toString().replaceAll("-", ""));
+  }
+
+  public JournalingItemCache(String store) {
+    this();
+    setPersistentStore(store);
+  }
+
+  @Override
+  public void init() throws CoreException {
+    try {
+      replay();
+    }
+    catch (IOException e) {
+      throw ExceptionHelper.wrapCoreException(e);
+    }
+    super.init();
+  }
+
+  @Override
+  public void close() {
+    save();
+    closeJournal();
+    super.close();
+  }
+
+  @Override
+  public void update(ProcessedItem i) {
+    super.update(i);
+    pending.put(i.getAbsolutePath(), i);
+  }
+
+  @Override
+  public void clear() {
+    for (String key : cache.keySet()) {
+      pending.put(key, null);
+    }
+    super.clear();
+  }
+
+  @Override
+  public void evict() {
+    long now = System.currentTimeMillis();
+    for (Iterator<Map.Entry<String, ProcessedItem>> i = cache.entrySet().iterator(); i.hasNext();) {
+      Map.Entry<String, ProcessedItem> entry = i.next();
+      if (now - entry.getValue().getLastProcessed() > ageBeforeEvictionMs()) {
+        pending.put(entry.getKey(), null);
+        i.remove();
+      }
+    }
+  }
+
+  @Override
+  public void save() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    try {
+      DataOutputStream out = journal();
+      for (Map.Entry<String, ProcessedItem> e : pending.entrySet()) {
+        write(out, e.getKey(), e.getValue());
+      }
+      out.flush();
+      journalEntries += pending.size();
+      logR.trace("Journalled {} changes to disk", pending.size());
+      pending.clear();
+      if (journalEntries > Math.max(cache.size() * 2, MIN_ENTRIES_BEFORE_COMPACTION)) {
+        compact();
+      }
+    }
+    catch (IOException e) {
+      logR.warn("Failed to store cache, changes since the last save will be lost upon restart", e);
+      closeJournal();
+    }
+  }
+
+  /**
+   * Rewrite the journal so that it only contains the items currently in the cache.
+   */
+  void compact() throws IOException {
+    closeJournal();
+    File store = new File(getPersistentStore()).getAbsoluteFile();
+    File tmp = new File(store.getParentFile(), store.getName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+      out.writeInt(MAGIC);
+      for (ProcessedItem item : cache.values()) {
+        write(out, item.getAbsolutePath(), item);
+      }
+    }
+    try {
+      Files.move(tmp.toPath(), store.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp.toPath(), store.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    journalEntries = cache.size();
+    logR.trace("Compacted journal to {} entries", journalEntries);
+  }
+
+  private void replay() throws IOException {
+    cache = new HashMap<>();
+    pending.clear();
+    journalEntries = 0;
+    File store = new File(getPersistentStore());
+    if (store.isFile() && store.length() == 0) {
+      return;
+    }
+    if (!store.exists()) {
+      logR.warn("[{}] Non-existent, journal will be created", store.getAbsolutePath());
+      return;
+    }
+    long good = 0;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(store)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("[" + store.getAbsolutePath() + "] is not a processed item journal");
+      }
+      good = Integer.BYTES;
+      while (true) {
+        byte op = in.readByte();
+        String key = in.readUTF();
+        int len = 1 + 2 + utfLength(key);
+        if (op == OP_UPDATE) {
+          ProcessedItem item = new ProcessedItem(key, in.readLong(), in.readLong());
+          item.setLastProcessed(in.readLong());
+          cache.put(item.getAbsolutePath(), item);
+          len += Long.BYTES * 3;
+        }
+        else if (op == OP_REMOVE) {
+          cache.remove(key);
+        }
+        else {
+          throw new IOException("[" + store.getAbsolutePath() + "] is corrupt at offset " + good);
+        }
+        good += len;
+        journalEntries++;
+      }
+    }
+    catch (EOFException e) {
+      if (good == 0) {
+        throw new IOException("[" + store.getAbsolutePath() + "] is not a processed item journal");
+      }
+      // Truncate anything that was partially written.
+      try (RandomAccessFile raf = new RandomAccessFile(store, "rw")) {
+        if (raf.length() > good) {
+          logR.warn("Discarding partially written entry in [{}]", store.getAbsolutePath());
+          raf.setLength(good);
+        }
+      }
+    }
+    logR.trace("Replayed {} journal entries, {} items", journalEntries, cache.size());
+  }
+
+  private DataOutputStream journal() throws IOException {
+    if (journal == null) {
+      File store = new File(getPersistentStore());
+      File parent = store.getAbsoluteFile().getParentFile();
+      if (parent != null) {
+        parent.mkdirs();
+      }
+      boolean exists = store.exists() && store.length() > 0;
+      journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(store, true)));
+      if (!exists) {
+        journal.writeInt(MAGIC);
+      }
+    }
+    return journal;
+  }
+
+  private void closeJournal() {
+    Closer.closeQuietly(journal);
+    journal = null;
+  }
+
+  private static void write(DataOutputStream out, String key, ProcessedItem item)
+      throws IOException {
+    if (item != null) {
+      out.writeByte(OP_UPDATE);
+      out.writeUTF(key);
+      out.writeLong(item.getLastModified());
+      out.writeLong(item.getFilesize());
+      out.writeLong(item.getLastProcessed());
+    }
+    else {
+      out.writeByte(OP_REMOVE);
+      out.writeUTF(key);
+    }
+  }
+
+  // The number of bytes that DataOutput#writeUTF() uses, excluding the length prefix.
+  private static int utfLength(String s) {
+    int len = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= 0x0001 && c <= 0x007F) {
+        len++;
+      }
+      else if (c > 0x07FF) {
+        len += 3;
+      }
+      else {
+        len += 2;
+      }
+    }
+    return len;
+  }
+
+  /**
+   * @return the filename
+   */
+  public String getPersistentStore() {
+    return persistentStore;
+  }
+
+  /**
+   * @param filename the file where the journal of cached items is stored.
+   */
+  public void setPersistentStore(String filename) {
+    persistentStore = filename;
+  }
+}
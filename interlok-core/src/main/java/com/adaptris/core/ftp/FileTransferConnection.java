@@ -260,11 +260,29 @@ public abstract class FileTransferConnection extends NoOpConnection {
    * @return an FtpClient that is ready to use.
    */
   public FileTransferClient connect(String hostUrl) throws FileTransferException, IOException, PasswordException {
-    FileTransferClient client = lookup(hostUrl);
+    return connect(hostUrl, 0);
+  }
+
+  /**
+   * Connect to the host, using a distinct client for each slot.
+   * <p>
+   * This allows a component to hold more than one connection to the same host (e.g. to download
+   * files concurrently); each slot is cached separately if {@link #cacheConnection()} is true, so the
+   * maximum cache size should allow for the number of slots used.
+   * </p>
+   *
+   * @param hostUrl the host to connect to.
+   * @param slot the slot; 0 is the same client as returned by {@link #connect(String)}.
+   * @return an FtpClient that is ready to use.
+   */
+  public FileTransferClient connect(String hostUrl, int slot)
+      throws FileTransferException, IOException, PasswordException {
+    String key = slot > 0 ? hostUrl + "#" + slot : hostUrl;
+    FileTransferClient client = lookup(key);
     if (client == null) {
       client = create(hostUrl);
     }
-    addToCache(hostUrl, client);
+    addToCache(key, client);
     return client;
   }
 
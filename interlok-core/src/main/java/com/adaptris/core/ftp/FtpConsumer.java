@@ -32,6 +32,7 @@ import com.adaptris.core.CoreConstants;
 import com.adaptris.core.CoreException;
 import com.adaptris.core.util.Args;
 import com.adaptris.core.util.ExceptionHelper;
+import com.adaptris.filetransfer.FileTransferClient;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
 /**
@@ -72,7 +73,7 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
     recommended = {FileTransferConnection.class})
 @DisplayOrder(order = {"ftpEndpoint", "filterExpression", "poller", "workDirectory",
     "fileFilterImp", "procDirectory",
-    "wipSuffix", "quietInterval"})
+    "wipSuffix", "quietInterval", "maxConcurrentDownloads"})
 public class FtpConsumer extends FtpConsumerImpl {
   private static final String DEFAULT_WIP_SUFFIX = "_wip";
 
@@ -118,26 +119,28 @@ public class FtpConsumer extends FtpConsumerImpl {
   }
 
   @Override
-  protected boolean accept(String path) throws Exception {
+  protected boolean accept(FileTransferClient ftpClient, String path) throws Exception {
     if (path.endsWith(wipSuffix())) {
       log.warn("[{}] matches [{}], assuming part processed and ignoring", path, wipSuffix());
       return false;
     }
-    return super.accept(path);
+    return super.accept(ftpClient, path);
   }
 
   @Override
-  protected boolean fetchAndProcess(String fullPath) throws Exception {
+  protected boolean fetchAndProcess(FileTransferClient ftpClient, String fullPath)
+      throws Exception {
     String procDir = null;
     String hostUrl = ftpURL();
     if (procDirectory != null) {
       procDir = retrieveConnection(FileTransferConnection.class).getDirectoryRoot(hostUrl)
           + procDirectory;
     }
-    return processMessage(fullPath, procDir);
+    return processMessage(ftpClient, fullPath, procDir);
   }
 
-  private boolean processMessage(String fullPath, String procDir) throws Exception {
+  private boolean processMessage(FileTransferClient ftpClient, String fullPath, String procDir)
+      throws Exception {
     String wipFile = fullPath + wipSuffix();
     String filename = FtpHelper.getFilename(fullPath);
     if (additionalDebug()) {
@@ -153,7 +156,7 @@ public class FtpConsumer extends FtpConsumerImpl {
     retrieveAdaptrisMessageListener().onAdaptrisMessage(adpMsg);
 
     if (procDir != null) {
-      moveToProcDir(wipFile, filename, procDir);
+      moveToProcDir(ftpClient, wipFile, filename, procDir);
     }
     else {
       ftpClient.delete(wipFile);
@@ -161,7 +164,8 @@ public class FtpConsumer extends FtpConsumerImpl {
     return true;
   }
 
-  private void moveToProcDir(String wipFile, final String filename, String procDir) {
+  private void moveToProcDir(FileTransferClient ftpClient, String wipFile, final String filename,
+      String procDir) {
 
     String[] existingFileNames = null;
 
@@ -20,11 +20,22 @@ import static com.adaptris.core.CoreConstants.FS_CONSUME_DIRECTORY;
 import static com.adaptris.core.ftp.FtpHelper.FORWARD_SLASH;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import org.apache.commons.lang3.ObjectUtils;
 import com.adaptris.annotation.AdvancedConfig;
+import com.adaptris.annotation.InputFieldDefault;
 import com.adaptris.annotation.InputFieldHint;
 import com.adaptris.annotation.Removal;
 import com.adaptris.core.AdaptrisMessage;
@@ -37,8 +48,10 @@ import com.adaptris.core.fs.FsHelper;
 import com.adaptris.core.util.DestinationHelper;
 import com.adaptris.core.util.ExceptionHelper;
 import com.adaptris.core.util.LoggingHelper;
+import com.adaptris.core.util.ManagedThreadFactory;
 import com.adaptris.filetransfer.FileTransferClient;
 import com.adaptris.filetransfer.FileTransferException;
+import com.adaptris.util.NumberUtils;
 import com.adaptris.util.TimeInterval;
 import lombok.Getter;
 import lombok.Setter;
@@ -49,6 +62,8 @@ import lombok.Setter;
 public abstract class FtpConsumerImpl extends AdaptrisPollingConsumer {
   protected static final TimeInterval DEFAULT_OLDER_THAN = new TimeInterval(0L, TimeUnit.MILLISECONDS);
   protected static final String DEFAULT_FILE_FILTER_IMPL = "org.apache.commons.io.filefilter.RegexFileFilter";
+  // Identity matters; signals a download worker that there is nothing else to fetch.
+  private static final String NO_MORE_FILES = new String("");
 
   /**
    * Set the filename filter implementation that will be used for filtering files.
@@ -120,10 +135,27 @@ public abstract class FtpConsumerImpl extends AdaptrisPollingConsumer {
   @Setter
   private String filterExpression;
 
+  /**
+   * The maximum number of files to download concurrently.
+   * <p>
+   * If greater than 1, then each poll fetches and processes files using up to this many connections
+   * to the server. The additional connections are obtained from the {@link FileTransferConnection}
+   * in the same way as the primary one, so they are cached if the connection is configured to do
+   * so. Messages are submitted to the workflow concurrently, so use something like
+   * {@link com.adaptris.core.PoolingWorkflow} if you want processing to be concurrent as well.
+   * </p>
+   */
+  @AdvancedConfig(rare = true)
+  @Min(1)
+  @InputFieldDefault(value = "1")
+  @Getter
+  @Setter
+  private Integer maxConcurrentDownloads;
 
   protected transient FileFilter fileFilter;
   protected transient FileTransferClient ftpClient = null;
   private transient boolean destinationWarningLogged = false;
+  private transient ExecutorService downloadExecutor;
 
   public FtpConsumerImpl() {
     setReacquireLockBetweenMessages(true);
@@ -134,6 +166,10 @@ public abstract class FtpConsumerImpl extends AdaptrisPollingConsumer {
    */
   @Override
   public void init() throws CoreException {
+    if (maxConcurrentDownloads() > 1 && !supportsConcurrentDownloads()) {
+      throw new CoreException(getClass().getName()
+          + " does not override fetchAndProcess(FileTransferClient, String), max-concurrent-downloads must be 1");
+    }
     try {
       fileFilter = FsHelper.createFilter(filterExpression(), fileFilterImp());
       super.init();
@@ -147,7 +183,24 @@ public abstract class FtpConsumerImpl extends AdaptrisPollingConsumer {
     return retrieveConnection(FileTransferConnection.class).additionalDebug();
   }
 
+  @Override
+  public void close() {
+    super.close();
+    ManagedThreadFactory.shutdownQuietly(downloadExecutor, new TimeInterval());
+    downloadExecutor = null;
+  }
+
+  /**
+   * @deprecated since 3.11.0 use {@link #oldEnough(FileTransferClient, String)} instead.
+   */
+  @Deprecated
+  @Removal(version = "4.0.0", message = "Use oldEnough(FileTransferClient, String) instead")
   protected boolean oldEnough(String fullPath) throws FileTransferException, IOException {
+    return oldEnough(ftpClient, fullPath);
+  }
+
+  protected boolean oldEnough(FileTransferClient ftpClient, String fullPath)
+      throws FileTransferException, IOException {
     boolean result = true;
     long olderThanMs = olderThanMs();
     if (olderThanMs > 0) {
@@ -194,11 +247,19 @@ public abstract class FtpConsumerImpl extends AdaptrisPollingConsumer {
       if (additionalDebug()) {
         log.trace("There are potentially [{}] messages to process", files.length);
       }
+      List<String> filesToGet = new ArrayList<>();
       for (String file : files) {
-        String fileToGet = pollDirectory + FORWARD_SLASH + FtpHelper.getFilename(file, con.windowsWorkaround());
-        count += handle(fileToGet) ? 1 : 0;
-        if (!continueProcessingMessages(count)) {
-          break;
+        filesToGet.add(pollDirectory + FORWARD_SLASH + FtpHelper.getFilename(file, con.windowsWorkaround()));
+      }
+      if (maxConcurrentDownloads() > 1 && filesToGet.size() > 1) {
+        count = processConcurrently(con, hostUrl, filesToGet);
+      }
+      else {
+        for (String fileToGet : filesToGet) {
+          count += handle(ftpClient, fileToGet) ? 1 : 0;
+          if (!continueProcessingMessages(count)) {
+            break;
+          }
         }
       }
     }
@@ -215,10 +276,104 @@ public abstract class FtpConsumerImpl extends AdaptrisPollingConsumer {
     return count;
   }
 
-  private boolean handle(String fileToGet) {
+  // The polling thread hands files to one worker per connection; it is the only thread that
+  // checks continueProcessingMessages() since that may release and reacquire the poll lock.
+  private int processConcurrently(FileTransferConnection con, String hostUrl, List<String> filesToGet)
+      throws Exception {
+    List<FileTransferClient> clients = new ArrayList<>();
+    clients.add(ftpClient);
+    int wanted = Math.min(maxConcurrentDownloads(), filesToGet.size());
     try {
-      if (accept(fileToGet)) {
-        return fetchAndProcess(fileToGet);
+      for (int slot = 1; slot < wanted; slot++) {
+        try {
+          clients.add(con.connect(hostUrl, slot));
+        }
+        catch (Exception e) {
+          log.warn("Failed to open additional connection to [{}], continuing with [{}]", hostUrl,
+              clients.size());
+          break;
+        }
+      }
+      BlockingQueue<String> work = new ArrayBlockingQueue<>(clients.size());
+      AtomicInteger count = new AtomicInteger();
+      List<Future<?>> workers = new ArrayList<>();
+      for (FileTransferClient client : clients) {
+        workers.add(downloadExecutor().submit(() -> download(client, work, count)));
+      }
+      try {
+        int submitted = 0;
+        for (String fileToGet : filesToGet) {
+          if (!continueProcessingMessages(submitted)) {
+            break;
+          }
+          if (!enqueue(work, fileToGet, workers)) {
+            break;
+          }
+          submitted++;
+        }
+      }
+      finally {
+        for (int i = 0; i < workers.size(); i++) {
+          if (!enqueue(work, NO_MORE_FILES, workers)) {
+            break;
+          }
+        }
+        ExecutionException failure = null;
+        for (Future<?> f : workers) {
+          try {
+            f.get();
+          }
+          catch (ExecutionException e) {
+            failure = ObjectUtils.defaultIfNull(failure, e);
+          }
+        }
+        if (failure != null) {
+          throw failure;
+        }
+      }
+      return count.get();
+    }
+    finally {
+      clients.stream().filter(c -> c != ftpClient).forEach(c -> con.disconnect(c));
+    }
+  }
+
+  // If every worker has died (e.g. from an Error) then nothing will ever take from the queue.
+  private static boolean enqueue(BlockingQueue<String> work, String fileToGet, List<Future<?>> workers)
+      throws InterruptedException {
+    while (!work.offer(fileToGet, 1, TimeUnit.SECONDS)) {
+      if (workers.stream().allMatch(Future::isDone)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void download(FileTransferClient client, BlockingQueue<String> work, AtomicInteger count) {
+    try {
+      for (String fileToGet = work.take(); fileToGet != NO_MORE_FILES; fileToGet = work.take()) {
+        if (handle(client, fileToGet)) {
+          count.incrementAndGet();
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private synchronized ExecutorService downloadExecutor() {
+    if (downloadExecutor == null) {
+      downloadExecutor = Executors.newFixedThreadPool(maxConcurrentDownloads(),
+          new ManagedThreadFactory(getClass().getSimpleName()));
+    }
+    return downloadExecutor;
+  }
+
+  private boolean handle(FileTransferClient client, String fileToGet) {
+    try {
+      if (accept(client, fileToGet)) {
+        return fetchAndProcess(client, fileToGet);
       }
     }
     catch (Exception e) {
@@ -227,14 +382,59 @@ public abstract class FtpConsumerImpl extends AdaptrisPollingConsumer {
     return false;
   }
 
-  protected abstract boolean fetchAndProcess(String fullPath) throws Exception;
+  /**
+   * @deprecated since 3.11.0 use {@link #fetchAndProcess(FileTransferClient, String)} instead.
+   */
+  @Deprecated
+  @Removal(version = "4.0.0", message = "Use fetchAndProcess(FileTransferClient, String) instead")
+  protected boolean fetchAndProcess(String fullPath) throws Exception {
+    throw new UnsupportedOperationException(
+        getClass().getName() + " must override fetchAndProcess(FileTransferClient, String)");
+  }
+
+  /**
+   * Fetch and process the file using the supplied client.
+   * <p>
+   * The default implementation delegates to the deprecated {@link #fetchAndProcess(String)} so that
+   * existing subclasses keep working; that only supports the polling client, so subclasses must
+   * override this method to use {@link #setMaxConcurrentDownloads(Integer)}.
+   * </p>
+   */
+  protected boolean fetchAndProcess(FileTransferClient client, String fullPath) throws Exception {
+    if (client != ftpClient) {
+      throw new UnsupportedOperationException(getClass().getName()
+          + " does not override fetchAndProcess(FileTransferClient, String)");
+    }
+    return fetchAndProcess(fullPath);
+  }
+
+  private boolean supportsConcurrentDownloads() {
+    for (Class<?> c = getClass(); c != FtpConsumerImpl.class; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod("fetchAndProcess", FileTransferClient.class, String.class);
+        return true;
+      }
+      catch (NoSuchMethodException e) {
+      }
+    }
+    return false;
+  }
 
   protected String configureWorkDir(String path) {
     return path;
   }
 
+  /**
+   * @deprecated since 3.11.0 use {@link #accept(FileTransferClient, String)} instead.
+   */
+  @Deprecated
+  @Removal(version = "4.0.0", message = "Use accept(FileTransferClient, String) instead")
   protected boolean accept(String path) throws Exception {
-    return oldEnough(path);
+    return accept(ftpClient, path);
+  }
+
+  protected boolean accept(FileTransferClient client, String path) throws Exception {
+    return oldEnough(client, path);
   }
 
   @Override
@@ -264,6 +464,10 @@ public abstract class FtpConsumerImpl extends AdaptrisPollingConsumer {
     return ObjectUtils.defaultIfNull(getFileFilterImp(), DEFAULT_FILE_FILTER_IMPL);
   }
 
+  protected int maxConcurrentDownloads() {
+    return NumberUtils.toIntDefaultIfNull(getMaxConcurrentDownloads(), 1);
+  }
+
   protected long olderThanMs() {
     return TimeInterval.toMillisecondsDefaultIfNull(getQuietInterval(), DEFAULT_OLDER_THAN);
   }
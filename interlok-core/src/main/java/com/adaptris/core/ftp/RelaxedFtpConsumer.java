@@ -26,6 +26,7 @@ import com.adaptris.annotation.DisplayOrder;
 import com.adaptris.annotation.InputFieldDefault;
 import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.CoreConstants;
+import com.adaptris.filetransfer.FileTransferClient;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
 /**
@@ -65,7 +66,7 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @DisplayOrder(order =
 {
     "ftpEndpoint", "filterExpression", "poller", "fileFilterImp", "quietInterval",
-    "failOnDeleteFailure"
+    "failOnDeleteFailure", "maxConcurrentDownloads"
 })
 public class RelaxedFtpConsumer extends FtpConsumerImpl {
 
@@ -84,7 +85,8 @@ public class RelaxedFtpConsumer extends FtpConsumerImpl {
   }
 
   @Override
-  protected boolean fetchAndProcess(String fullPath) throws Exception {
+  protected boolean fetchAndProcess(FileTransferClient ftpClient, String fullPath)
+      throws Exception {
     String filename = FtpHelper.getFilename(fullPath);
     if (additionalDebug()) {
       log.trace("Start processing [{}]", fullPath);
@@ -37,10 +37,16 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.Servlet;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -63,13 +69,19 @@ import com.adaptris.core.WorkflowInterceptor;
 import com.adaptris.core.http.client.RequestMethodProvider.RequestMethod;
 import com.adaptris.core.util.DestinationHelper;
 import com.adaptris.core.util.LoggingHelper;
+import com.adaptris.core.util.ManagedThreadFactory;
 import com.adaptris.util.TimeInterval;
 import lombok.Getter;
 import lombok.Setter;
 
 /**
  * This is the abstract class for all implementations that make use of Jetty to receive messages.
- *
+ * <p>
+ * If the workflow has a {@link JettyWorkflowInterceptorImpl} (e.g. {@link JettyPoolingWorkflowInterceptor}), then the HTTP
+ * response is only committed once the workflow has finished. By default the jetty thread waits for the workflow to finish; if
+ * you set {@link #setAsyncRequests(Boolean)} then the request is put into asynchronous mode, the jetty thread is released back to
+ * the pool immediately, and the request is completed when the response is written or the workflow finishes.
+ * </p>
  *
  * @author lchan
  * @author $Author: lchan $
@@ -82,6 +94,14 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
   private static final List<String> HTTP_METHODS;
   private static final String EXPECT_102_PROCESSING = "102-Processing";
   private static final String HEADER_EXPECT = "Expect";
+  // Shared by all consumers to trigger 102-Processing; it never does any I/O itself, that is handed to PROCESSING_WRITER
+  // so that a slow client can't hold up anyone else.
+  private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+  private static final ExecutorService PROCESSING_WRITER = Executors.newCachedThreadPool(r -> {
+    Thread t = ManagedThreadFactory.createThread(BasicJettyConsumer.class.getSimpleName() + "-102-Processing", r);
+    t.setDaemon(true);
+    return t;
+  });
 
   private transient Servlet jettyServlet;
   private transient ServletWrapper servletWrapper = null;
@@ -102,6 +122,9 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
   @AdvancedConfig(rare = true)
   @InputFieldDefault(value = "20 Seconds")
   private TimeInterval sendProcessingInterval;
+  @AdvancedConfig
+  @InputFieldDefault(value = "false")
+  private Boolean asyncRequests;
 
 
   /**
@@ -183,7 +206,17 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
   public abstract AdaptrisMessage createMessage(HttpServletRequest request, HttpServletResponse response)
       throws IOException, ServletException;
 
-  private boolean submitToWorkflow(AdaptrisMessage msg) {
+  private static ScheduledThreadPoolExecutor createScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread t = ManagedThreadFactory.createThread(BasicJettyConsumer.class.getSimpleName() + "-Scheduler", r);
+      t.setDaemon(true);
+      return t;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  private boolean waitForCompletion() {
     boolean waitForCompletion = false;
     if (retrieveAdaptrisMessageListener() instanceof WorkflowImp) {
       List<WorkflowInterceptor> interceptors = ((WorkflowImp) retrieveAdaptrisMessageListener()).getInterceptors();
@@ -194,7 +227,6 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
         }
       }
     }
-    retrieveAdaptrisMessageListener().onAdaptrisMessage(msg);
     return waitForCompletion;
   }
 
@@ -225,6 +257,7 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
     if (servletWrapper == null) {
       String destination = ensureIsPath(servletPath());
       servletWrapper = new ServletWrapper(jettyServlet, destination);
+      servletWrapper.getServletHolder().setAsyncSupported(asyncRequests());
     }
     return servletWrapper;
   }
@@ -363,6 +396,29 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
         DEFAULT_EXPECT_INTERVAL);
   }
 
+  public Boolean getAsyncRequests() {
+    return asyncRequests;
+  }
+
+  /**
+   * Whether or not to release the jetty thread while the workflow is processing the message.
+   * <p>
+   * This only has an impact if the workflow has a {@link JettyWorkflowInterceptorImpl} configured, since otherwise the jetty
+   * thread never waits for the workflow. When true, slow workflows no longer tie up threads in jetty's thread pool, so the number
+   * of requests in flight is no longer limited by its size. The {@link #setTimeoutAction(TimeoutAction)} is still honoured.
+   * </p>
+   *
+   * @param b true to use asynchronous requests, default is false.
+   * @since 3.11.0
+   */
+  public void setAsyncRequests(Boolean b) {
+    asyncRequests = b;
+  }
+
+  boolean asyncRequests() {
+    return BooleanUtils.toBooleanDefaultIfNull(getAsyncRequests(), false);
+  }
+
   /**
    * Provides the metadata key '{@value com.adaptris.core.http.jetty.JettyConstants#JETTY_URI}' that
    * contains the URI which triggered the consumer.
@@ -378,26 +434,10 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
 
     private static final long serialVersionUID = 2007082301L;
     private transient Map<String, HttpOperation> httpHandlers = null;
-    private transient Timer processingTimer;
 
     protected BasicServlet() {
     }
 
-    @Override
-    public void destroy() {
-      if (processingTimer != null) {
-        processingTimer.cancel();
-        processingTimer = null;
-      }
-      super.destroy();
-    }
-
-    @Override
-    public void init() throws ServletException {
-      super.init();
-      processingTimer = new Timer(true);
-    }
-
     @Override
     protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
       String oldName = renameThread();
@@ -457,10 +497,68 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
       }
       JettyWrapper wrapper = new JettyWrapper().withMonitor(new JettyConsumerMonitor()).withRequest(request).withResponse(response);
       msg.addObjectHeader(JettyConstants.JETTY_WRAPPER, wrapper);
-      waitFor(submitToWorkflow(msg), wrapper.getMonitor(), response, msg.getUniqueId());
+      boolean waitForCompletion = waitForCompletion();
+      if (waitForCompletion && asyncRequests() && request.isAsyncSupported()) {
+        startAsync(request, wrapper, task, msg.getUniqueId());
+        retrieveAdaptrisMessageListener().onAdaptrisMessage(msg);
+        return;
+      }
+      retrieveAdaptrisMessageListener().onAdaptrisMessage(msg);
+      waitFor(waitForCompletion, wrapper.getMonitor(), response, msg.getUniqueId());
       cancel(task);
     }
 
+    private void startAsync(HttpServletRequest request, JettyWrapper wrapper, ProcessingTimerTask task, String loggingId) {
+      AsyncContext ctx = request.startAsync();
+      TimeoutAction timeout = timeoutAction();
+      // The container enforces the TimeoutAction, calling onTimeout() from one of its own threads.
+      ctx.setTimeout(timeout.maxWaitTime());
+      ctx.addListener(new AsyncListener() {
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+          handleAsyncTimeout(wrapper, timeout, loggingId);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+        }
+      });
+      wrapper.startAsync(ctx, () -> {
+        cancel(task);
+        warnIfSlow(wrapper.getMonitor(), loggingId);
+      });
+    }
+
+    // If a response producer holds the lock, then it is writing the response and will complete the request itself; waiting
+    // for it only holds this container thread, and the container expects the request to be complete when we return.
+    private void handleAsyncTimeout(JettyWrapper wrapper, TimeoutAction timeout, String loggingId) {
+      try {
+        wrapper.lock();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        if (wrapper.getResponse() != null) {
+          log.trace("Message ({}) exceeded {}ms, committing response", loggingId, timeout.maxWaitTime());
+          timeout.handleTimeout(wrapper.getResponse());
+        }
+      } catch (IOException e) {
+        log.trace("Failed to commit response to HTTP; client disconnected?");
+      } finally {
+        wrapper.completeAsync();
+        wrapper.unlock();
+      }
+    }
+
     private void waitFor(boolean waitFor, JettyConsumerMonitor monitor, HttpServletResponse response, String loggingId)
         throws IOException, ServletException {
       if (waitFor) {
@@ -478,14 +576,19 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
         catch (TimeoutException e) {
           timeout.handleTimeout(response);
         }
-        if (monitor.getEndTime() - monitor.getStartTime() > warnAfter()) {
-          log.warn("Message ({}) took longer than expected; {}ms", loggingId,
-              monitor.getEndTime() - monitor.getStartTime());
-        }
+        warnIfSlow(monitor, loggingId);
       }
     }
 
-    private void cancel(TimerTask task) {
+    private void warnIfSlow(JettyConsumerMonitor monitor, String loggingId) {
+      // If the response was committed before the workflow finished, then there's no end time yet.
+      long endTime = monitor.getEndTime() > 0 ? monitor.getEndTime() : System.currentTimeMillis();
+      if (endTime - monitor.getStartTime() > warnAfter()) {
+        log.warn("Message ({}) took longer than expected; {}ms", loggingId, endTime - monitor.getStartTime());
+      }
+    }
+
+    private void cancel(ProcessingTimerTask task) {
       if (task != null) {
         task.cancel();
       }
@@ -495,7 +598,7 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
       // Every 20 seconds as per RFC2518
       long interval = sendProcessingInterval();
       log.trace("Scheduling a 102 Processing Response every {}ms", interval);
-      processingTimer.schedule(task, interval, interval);
+      task.future = SCHEDULER.scheduleAtFixedRate(task, interval, interval, TimeUnit.MILLISECONDS);
       return task;
     }
 
@@ -521,8 +624,10 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
     void handle(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException;
   }
 
-  class ProcessingTimerTask extends TimerTask {
+  class ProcessingTimerTask implements Runnable {
     private transient HttpServletResponse myResponse;
+    private transient volatile ScheduledFuture<?> future;
+    private transient final AtomicBoolean sending = new AtomicBoolean(false);
 
     public ProcessingTimerTask(HttpServletResponse response) {
       myResponse = response;
@@ -530,6 +635,13 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
 
     @Override
     public void run() {
+      // Skip this one if the previous 102 is still being written.
+      if (sending.compareAndSet(false, true)) {
+        PROCESSING_WRITER.execute(this::sendProcessing);
+      }
+    }
+
+    private void sendProcessing() {
       try {
         if (!myResponse.isCommitted()) {
           myResponse.sendError(102);
@@ -539,6 +651,15 @@ public abstract class BasicJettyConsumer extends AdaptrisMessageConsumerImp {
         // In the event of an exception, cancel ourselves.
         cancel();
       }
+      finally {
+        sending.set(false);
+      }
+    }
+
+    void cancel() {
+      if (future != null) {
+        future.cancel(false);
+      }
     }
   }
 
@@ -116,7 +116,8 @@ public class JettyMessageConsumer extends BasicJettyConsumer {
       }
       else {
         msg = defaultIfNull(getMessageFactory()).newMessage();
-        try (InputStream in = request.getInputStream(); OutputStream out = msg.getOutputStream()) {
+        try (InputStream in = request.getInputStream();
+            OutputStream out = msg.getOutputStream(request.getContentLengthLong())) {
           if (request.getContentLength() == -1) {
             IOUtils.copy(request.getInputStream(), out);
           } else {
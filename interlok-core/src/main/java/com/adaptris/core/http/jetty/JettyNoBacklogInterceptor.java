@@ -126,6 +126,7 @@ public class JettyNoBacklogInterceptor extends WorkflowInterceptorImpl {
       response.sendError(503, "Server Busy");
       response.flushBuffer();
       wrapper.setResponse(null);
+      wrapper.completeAsync();
     }
     catch (Exception e) {
       log.warn("Caught exception : {}", e.getMessage());
@@ -62,6 +62,7 @@ public abstract class JettyWorkflowInterceptorImpl extends WorkflowInterceptorIm
       synchronized (o) {
         o.notifyAll();
       }
+      wrapper.completeAsync();
     } catch (InterruptedException e) {
     } finally {
       wrapper.unlock();
@@ -17,6 +17,7 @@ package com.adaptris.core.http.jetty;
 
 import static com.adaptris.core.http.jetty.JettyConstants.JETTY_WRAPPER;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -32,6 +33,8 @@ public class JettyWrapper {
   private transient JettyConsumerMonitor monitor;
   private transient HttpServletResponse response;
   private transient HttpServletRequest request;
+  private transient AsyncContext asyncContext;
+  private transient Runnable asyncCompletion;
 
   private transient FifoMutexLock locker;
 
@@ -75,6 +78,46 @@ public class JettyWrapper {
     return this;
   }
 
+  /**
+   * Mark the request as being processed asynchronously.
+   *
+   * @param ctx the context returned by {@link HttpServletRequest#startAsync()}
+   * @param onCompletion invoked once the request has been completed.
+   */
+  protected void startAsync(AsyncContext ctx, Runnable onCompletion) {
+    asyncContext = ctx;
+    asyncCompletion = onCompletion;
+  }
+
+  protected boolean isAsync() {
+    return asyncContext != null;
+  }
+
+  /**
+   * Complete the request if it is being processed asynchronously; callers should hold the lock.
+   * <p>
+   * Once completed, jetty is free to recycle the request and response so they are no longer available from this wrapper.
+   * </p>
+   */
+  protected void completeAsync() {
+    if (asyncContext == null) {
+      return;
+    }
+    AsyncContext ctx = asyncContext;
+    asyncContext = null;
+    setRequest(null);
+    setResponse(null);
+    try {
+      ctx.complete();
+    } catch (IllegalStateException e) {
+      // already completed, nothing to do.
+    }
+    if (asyncCompletion != null) {
+      asyncCompletion.run();
+      asyncCompletion = null;
+    }
+  }
+
   public HttpServletResponse getResponse() {
     return response;
   }
@@ -70,6 +70,7 @@ public class StandardResponseProducer extends ResponseProducerImpl {
       response.setStatus(getStatus(msg).getCode());
       commitResponse(msg, response);
       wrapper.setResponse(null);
+      wrapper.completeAsync();
     } catch (Exception e) {
       throw ExceptionHelper.wrapProduceException(e);
     } finally {
@@ -84,7 +84,9 @@ public class BytesMessageTranslator extends MessageTypeTranslatorImp {
    */
   public AdaptrisMessage translate(Message msg) throws JMSException {
     AdaptrisMessage result = currentMessageFactory().newMessage();
-    try (InputStream in = new BytesMessageInputStream((BytesMessage) msg); OutputStream out = result.getOutputStream()) {
+    BytesMessage bytesMsg = (BytesMessage) msg;
+    try (InputStream in = new BytesMessageInputStream(bytesMsg);
+        OutputStream out = result.getOutputStream(bytesMsg.getBodyLength())) {
       IOUtils.copy(in, out);
     }
     catch (IOException e) {
@@ -17,19 +17,29 @@
 package com.adaptris.core.jms;
 
 import static com.adaptris.core.AdaptrisMessageFactory.defaultIfNull;
+import static com.adaptris.core.CoreConstants.OBJ_METADATA_EXCEPTION;
 import static com.adaptris.core.jms.JmsConstants.JMS_ASYNC_STATIC_REPLY_TO;
 import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.jms.CompletionListener;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
+import javax.validation.constraints.Min;
+import com.adaptris.annotation.AdvancedConfig;
 import com.adaptris.annotation.Removal;
 import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.CoreException;
+import com.adaptris.core.ListenerCallbackHelper;
 import com.adaptris.core.ProduceDestination;
 import com.adaptris.core.ProduceException;
 import com.adaptris.core.util.ExceptionHelper;
 import com.adaptris.interlok.util.Args;
+import com.adaptris.util.NumberUtils;
+import lombok.Getter;
+import lombok.Setter;
 
 /**
  * <p>
@@ -42,10 +52,49 @@ import com.adaptris.interlok.util.Args;
 // this is an edge case that isn't that edgy!
 public abstract class DefinedJmsProducer extends JmsProducerImpl {
 
+  private static final long DRAIN_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+  /**
+   * The maximum number of sends that may be awaiting confirmation from the broker.
+   * <p>
+   * If specified, then messages are sent using a JMS 2.0 {@link CompletionListener} and the producer
+   * only blocks when this many sends are outstanding; your JMS provider must support JMS 2.0.
+   * Transacted sessions, and messages that have a JMSReplyTo, are always sent synchronously. If not
+   * specified then every message is sent synchronously.
+   * </p>
+   * <p>
+   * Bear in mind that the workflow considers the message produced as soon as the send is handed to
+   * the provider, so the consumer may already have acknowledged it. A send that subsequently fails is
+   * passed to the workflow's {@link com.adaptris.core.ProcessingExceptionHandler} from the JMS
+   * provider's completion thread; if the message did not come from a workflow then the failure is
+   * only logged. Unless your error handler stores or retries failed messages, pipelined sends are
+   * effectively <strong>at-most-once</strong>.
+   * </p>
+   */
+  @AdvancedConfig(rare = true)
+  @Min(1)
+  @Getter
+  @Setter
+  private Integer maxOutstandingSends;
+
+  private transient Semaphore sendWindow;
+
   public DefinedJmsProducer() {
     super();
   }
 
+  @Override
+  public void init() throws CoreException {
+    super.init();
+    sendWindow = new Semaphore(Math.max(maxOutstandingSends(), 1));
+  }
+
+  @Override
+  public void stop() {
+    waitForOutstandingSends();
+    super.stop();
+  }
+
   @Override
   @Deprecated
   @Removal(version = "4.0")
@@ -95,7 +144,10 @@ public abstract class DefinedJmsProducer extends JmsProducerImpl {
       throws JMSException, CoreException {
     setupSession(msg);
     Message jmsMsg = translate(msg, replyTo);
-    if (!perMessageProperties()) {
+    if (pipelined(replyTo)) {
+      sendPipelined(msg, destination, jmsMsg);
+    }
+    else if (!perMessageProperties()) {
       producerSession().getProducer().send(destination, jmsMsg);
     }
     else {
@@ -107,6 +159,91 @@ public abstract class DefinedJmsProducer extends JmsProducerImpl {
     log.info("msg produced to destination [{}]", destination);
   }
 
+  private void sendPipelined(AdaptrisMessage msg, Destination destination, Message jmsMsg)
+      throws JMSException, CoreException {
+    try {
+      sendWindow.acquire();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ProduceException("Interrupted waiting for outstanding sends", e);
+    }
+    CompletionListener listener = new PipelinedSendListener(msg);
+    try {
+      if (!perMessageProperties()) {
+        producerSession().getProducer().send(destination, jmsMsg, listener);
+      }
+      else {
+        producerSession().getProducer().send(destination, jmsMsg,
+            calculateDeliveryMode(msg, getDeliveryMode()), calculatePriority(msg, getPriority()),
+            calculateTimeToLive(msg, timeToLive()), listener);
+      }
+    }
+    catch (JMSException | RuntimeException e) {
+      sendWindow.release();
+      throw e;
+    }
+  }
+
+  private void waitForOutstandingSends() {
+    if (sendWindow == null || !pipelined(null)) {
+      return;
+    }
+    int permits = Math.max(maxOutstandingSends(), 1);
+    try {
+      if (sendWindow.tryAcquire(permits, DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        sendWindow.release(permits);
+      }
+      else {
+        log.warn("Timed out waiting for outstanding sends to complete");
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean pipelined(Destination replyTo) {
+    return maxOutstandingSends() > 0 && replyTo == null && !transactedSession();
+  }
+
+  int maxOutstandingSends() {
+    return NumberUtils.toIntDefaultIfNull(getMaxOutstandingSends(), 0);
+  }
+
+  public <T extends DefinedJmsProducer> T withMaxOutstandingSends(Integer i) {
+    setMaxOutstandingSends(i);
+    return (T) this;
+  }
+
+  private class PipelinedSendListener implements CompletionListener {
+    private final AdaptrisMessage msg;
+
+    PipelinedSendListener(AdaptrisMessage msg) {
+      this.msg = msg;
+    }
+
+    @Override
+    public void onCompletion(Message message) {
+      sendWindow.release();
+    }
+
+    @Override
+    public void onException(Message message, Exception exception) {
+      sendWindow.release();
+      log.error("Pipelined send of [{}] failed", msg.getUniqueId(), exception);
+      msg.addObjectHeader(OBJ_METADATA_EXCEPTION, exception);
+      try {
+        if (!ListenerCallbackHelper.handleFailureCallback(msg)) {
+          log.error("No error handler available, [{}] has not been delivered", msg.getUniqueId());
+        }
+      }
+      catch (RuntimeException e) {
+        log.error("Failed to pass [{}] to the error handler", msg.getUniqueId(), e);
+      }
+    }
+  }
+
   @Override
   @Deprecated
   @Removal(version = "4.0")
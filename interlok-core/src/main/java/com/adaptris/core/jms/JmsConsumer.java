@@ -70,7 +70,7 @@ import lombok.Setter;
     recommended = {JmsConnection.class})
 @DisplayOrder(
     order = {"endpoint", "messageSelector", "destination", "acknowledgeMode",
-    "messageTranslator"})
+    "messageTranslator", "concurrentSessions"})
 public class JmsConsumer extends JmsConsumerImpl {
 
   /**
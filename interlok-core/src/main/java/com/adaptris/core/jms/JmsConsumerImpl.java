@@ -18,28 +18,35 @@ package com.adaptris.core.jms;
 
 import static com.adaptris.core.AdaptrisMessageFactory.defaultIfNull;
 import static com.adaptris.core.jms.NullCorrelationIdSource.defaultIfNull;
+import java.util.ArrayList;
+import java.util.List;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageListener;
 import javax.jms.Session;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import org.apache.commons.lang3.BooleanUtils;
 import org.slf4j.Logger;
 import com.adaptris.annotation.AdvancedConfig;
 import com.adaptris.annotation.AutoPopulated;
+import com.adaptris.annotation.InputFieldDefault;
 import com.adaptris.annotation.Removal;
+import com.adaptris.core.AdaptrisMarshaller;
 import com.adaptris.core.AdaptrisMessageConsumerImp;
 import com.adaptris.core.AdaptrisMessageListener;
 import com.adaptris.core.ClosedState;
 import com.adaptris.core.ConsumeDestination;
 import com.adaptris.core.CoreException;
+import com.adaptris.core.DefaultMarshaller;
 import com.adaptris.core.util.Args;
 import com.adaptris.core.util.DestinationHelper;
 import com.adaptris.core.util.LifecycleHelper;
 import com.adaptris.core.util.LoggingHelper;
+import com.adaptris.util.NumberUtils;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -88,6 +95,28 @@ public abstract class JmsConsumerImpl extends AdaptrisMessageConsumerImp impleme
   @AdvancedConfig
   private String messageSelector;
 
+  /**
+   * The number of sessions (each with its own {@code MessageConsumer}) that will receive messages concurrently.
+   * <p>
+   * Each additional session is a copy of this consumer, so it has its own message translator and handles its own
+   * acknowledgement/commit. This is only useful for queues or shared topic subscriptions; a non-shared topic subscription would
+   * receive each message once per session, and a durable subscription would fail since the subscription id must be unique. Bear
+   * in mind that {@link com.adaptris.core.StandardWorkflow} still processes one message at a time, so you should consider using a
+   * {@link com.adaptris.core.PoolingWorkflow} to get the most benefit.
+   * </p>
+   * <p>
+   * The default is 1 if not specified.
+   * </p>
+   *
+   * @since 3.11.0
+   */
+  @Getter
+  @Setter
+  @AdvancedConfig
+  @InputFieldDefault(value = "1")
+  @Min(1)
+  private Integer concurrentSessions;
+
 
   // not marshalled
   protected transient MessageConsumer consumer;
@@ -97,6 +126,7 @@ public abstract class JmsConsumerImpl extends AdaptrisMessageConsumerImp impleme
   private transient boolean managedTransaction;
   private transient long rollbackTimeout = 30000;
   private transient boolean destinationWarningLogged = false;
+  private transient List<JmsConsumerImpl> additionalSessions = new ArrayList<>();
 
   /**
    * <p>
@@ -171,12 +201,51 @@ public abstract class JmsConsumerImpl extends AdaptrisMessageConsumerImp impleme
       throw new CoreException(e);
     }
     onMessageHandler = new OnMessageHandler(this);
+    additionalSessions = createAdditionalSessions();
+    try {
+      for (JmsConsumerImpl c : additionalSessions) {
+        LifecycleHelper.prepare(c);
+        LifecycleHelper.init(c);
+      }
+    }
+    catch (CoreException e) {
+      // Don't leak the sessions of the copies that did initialise.
+      for (JmsConsumerImpl c : additionalSessions) {
+        LifecycleHelper.close(c);
+      }
+      additionalSessions.clear();
+      throw e;
+    }
+  }
+
+  private List<JmsConsumerImpl> createAdditionalSessions() throws CoreException {
+    List<JmsConsumerImpl> result = new ArrayList<>();
+    int count = concurrentSessions();
+    if (count > 1) {
+      AdaptrisMarshaller m = DefaultMarshaller.getDefaultMarshaller();
+      String config = m.marshal(this);
+      for (int i = 1; i < count; i++) {
+        JmsConsumerImpl c = (JmsConsumerImpl) m.unmarshal(config);
+        c.setConcurrentSessions(null);
+        c.registerConnection(retrieveConnection(JmsConnection.class));
+        c.registerAdaptrisMessageListener(retrieveAdaptrisMessageListener());
+        c.transacted = transacted;
+        c.managedTransaction = managedTransaction;
+        c.rollbackTimeout = rollbackTimeout;
+        c.destinationWarningLogged = true;
+        result.add(c);
+      }
+    }
+    return result;
   }
 
   protected abstract MessageConsumer createConsumer() throws JMSException, CoreException;
 
   @Override
   public void stop() {
+    for (JmsConsumerImpl c : additionalSessions) {
+      LifecycleHelper.stop(c);
+    }
     consumer = nullify(consumer);
     LifecycleHelper.stop(messageTranslator);
   }
@@ -191,15 +260,31 @@ public abstract class JmsConsumerImpl extends AdaptrisMessageConsumerImp impleme
       throw new CoreException(e);
     }
     LifecycleHelper.start(messageTranslator);
+    for (JmsConsumerImpl c : additionalSessions) {
+      LifecycleHelper.start(c);
+    }
   }
 
   @Override
   public void close() {
+    for (JmsConsumerImpl c : additionalSessions) {
+      LifecycleHelper.close(c);
+    }
+    additionalSessions.clear();
     LifecycleHelper.close(messageTranslator);
     session = nullify(session);
     consumer = nullify(consumer);
   }
 
+  int concurrentSessions() {
+    return Math.max(1, NumberUtils.toIntDefaultIfNull(getConcurrentSessions(), 1));
+  }
+
+  public <T extends JmsConsumerImpl> T withConcurrentSessions(Integer i) {
+    setConcurrentSessions(i);
+    return (T) this;
+  }
+
   boolean isTransacted() {
     return isManagedTransaction() || BooleanUtils.toBooleanDefaultIfNull(getTransacted(), false);
   }
@@ -68,7 +68,7 @@ import lombok.Setter;
     recommended = {NullConnection.class})
 @DisplayOrder(
     order = {"endpoint", "messageSelector", "poller", "vendorImplementation", "userName",
-        "password", "clientId", "acknowledgeMode", "messageTranslator"})
+        "password", "clientId", "acknowledgeMode", "messageTranslator", "batchSize", "batchWindow"})
 public class JmsPollingConsumer extends JmsPollingConsumerImpl {
 
   /**
@@ -27,6 +27,7 @@ import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.Session;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import org.apache.commons.lang3.BooleanUtils;
@@ -45,6 +46,7 @@ import com.adaptris.core.util.Args;
 import com.adaptris.core.util.DestinationHelper;
 import com.adaptris.core.util.LifecycleHelper;
 import com.adaptris.core.util.LoggingHelper;
+import com.adaptris.util.NumberUtils;
 import com.adaptris.util.TimeInterval;
 import lombok.Getter;
 import lombok.Setter;
@@ -62,12 +64,22 @@ import lombok.Setter;
  * <li>Closes the connection.</li>
  * </p>
  * <p>
+ * If {@link #setBatchSize(Integer)} is greater than 1, then messages are processed in batches; up to that many messages are
+ * received (or until {@link #setBatchWindow(TimeInterval)} has elapsed since the first message in the batch) before they are
+ * committed or acknowledged as a group. If the session is transacted (i.e. with a {@link JmsTransactedWorkflow}) and any message
+ * in the batch fails then the whole batch is rolled back, so messages that were processed successfully will be redelivered.
+ * Without a transaction, a message that can't be translated or is rejected by the workflow is never acknowledged; since
+ * acknowledging any message acknowledges every message previously received by the session, the session is recovered instead
+ * and the batch (including the messages processed successfully) will be redelivered at the next poll.
+ * </p>
+ * <p>
  * If connection attempt fails, the poller sleeps for the configured interval then tries again.
  * </p>
  */
 public abstract class JmsPollingConsumerImpl extends AdaptrisPollingConsumer implements JmsActorConfig, JmsConnectionConfig {
 
   private static final TimeInterval DEFAULT_RECEIVE_WAIT = new TimeInterval(2L, TimeUnit.SECONDS);
+  private static final TimeInterval DEFAULT_BATCH_WINDOW = new TimeInterval(10L, TimeUnit.SECONDS);
 
   private String userName;
   @InputFieldHint(style = "PASSWORD", external = true)
@@ -121,6 +133,36 @@ public abstract class JmsPollingConsumerImpl extends AdaptrisPollingConsumer imp
   @Setter
   private String messageSelector;
 
+  /**
+   * The maximum number of messages to receive before committing or acknowledging them as a group.
+   * <p>
+   * The default is 1 if not specified, which means that each message is committed or acknowledged individually.
+   * </p>
+   *
+   * @since 3.11.0
+   */
+  @Getter
+  @Setter
+  @AdvancedConfig
+  @InputFieldDefault(value = "1")
+  @Min(1)
+  private Integer batchSize;
+
+  /**
+   * The maximum amount of time to spend on a single batch, measured from the first message in the batch.
+   * <p>
+   * Only relevant if {@link #setBatchSize(Integer)} is greater than 1; the default is 10 seconds if not specified.
+   * </p>
+   *
+   * @since 3.11.0
+   */
+  @Getter
+  @Setter
+  @AdvancedConfig
+  @InputFieldDefault(value = "10 seconds")
+  @Valid
+  private TimeInterval batchWindow;
+
   private transient Boolean transacted;
   private transient boolean managedTransaction;
   private transient long rollbackTimeout = 30000;
@@ -209,6 +251,9 @@ public abstract class JmsPollingConsumerImpl extends AdaptrisPollingConsumer imp
 
     try {
       initialiseConnection();
+      if (batchSize() > 1) {
+        return processBatches();
+      }
       try {
         Message jmsMsg = null;
 
@@ -250,6 +295,64 @@ public abstract class JmsPollingConsumerImpl extends AdaptrisPollingConsumer imp
     return count;
   }
 
+  // Only called from processMessages() which handles the connection lifecycle.
+  private int processBatches() {
+    int count = 0;
+    try {
+      boolean more = true;
+      while (more) {
+        Message last = null;
+        boolean failed = false;
+        int inBatch = 0;
+        long deadline = Long.MAX_VALUE;
+        while (inBatch < batchSize()) {
+          Message jmsMsg = null;
+          try {
+            long wait = inBatch == 0 ? receiveTimeout() : Math.min(receiveTimeout(), deadline - System.currentTimeMillis());
+            jmsMsg = wait > 0 ? messageConsumer.receive(wait) : messageConsumer.receiveNoWait();
+          }
+          catch (IllegalStateException e) {
+            log.debug("Session closed upon attempt to process message");
+            more = false;
+            break;
+          }
+          if (jmsMsg == null) {
+            more = false;
+            break;
+          }
+          if (inBatch++ == 0) {
+            deadline = System.currentTimeMillis() + batchWindowMs();
+          }
+          last = jmsMsg;
+          count++;
+          if (!messageHandler.onMessageInBatch(jmsMsg)) {
+            failed = true;
+            break;
+          }
+          if (!continueProcessingMessages(count)) {
+            more = false;
+            break;
+          }
+          if (System.currentTimeMillis() >= deadline) {
+            break;
+          }
+        }
+        if (additionalDebug() && inBatch > 0) {
+          log.trace("Completing batch of {} message(s), failed={}", inBatch, failed);
+        }
+        messageHandler.completeBatch(last, failed);
+        if (failed && !isTransacted()) {
+          // Wait for the next poll, rather than immediately receiving the recovered messages again.
+          more = false;
+        }
+      }
+    }
+    catch (Throwable e) {
+      log.error("Unhandled Throwable processing message", e);
+    }
+    return count;
+  }
+
   private void closeConnection() {
     if (additionalDebug()) {
       log.trace("closing connection...");
@@ -369,6 +472,14 @@ public abstract class JmsPollingConsumerImpl extends AdaptrisPollingConsumer imp
     vendorImplementation = Args.notNull(v, "vendorImplementation");
   }
 
+  int batchSize() {
+    return Math.max(1, NumberUtils.toIntDefaultIfNull(getBatchSize(), 1));
+  }
+
+  long batchWindowMs() {
+    return TimeInterval.toMillisecondsDefaultIfNull(getBatchWindow(), DEFAULT_BATCH_WINDOW);
+  }
+
   long receiveTimeout() {
     long period = TimeInterval.toMillisecondsDefaultIfNull(getReceiveTimeout(), DEFAULT_RECEIVE_WAIT);
     if (period < 0) {
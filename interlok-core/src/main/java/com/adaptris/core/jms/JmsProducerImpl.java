@@ -553,8 +553,7 @@ public abstract class JmsProducerImpl extends RequestReplyProducerBase implement
   /**
    * @param b the transacted to set
    */
-  @SuppressWarnings("unused")
-  private void setTransacted(boolean b) {
+  void setTransacted(boolean b) {
     transactedSession = b;
   }
 
@@ -146,18 +146,90 @@ public class OnMessageHandler {
    * </p>
    */
   public void onMessage(Message msg) {
+    AdaptrisMessage adaptrisMessage = translate(msg, false);
+    if (adaptrisMessage == null) {
+      return;
+    }
+    if (submit(msg, adaptrisMessage)) {
+      try {
+        acknowledge(msg);
+      }
+      catch (JMSException e) {
+        logR.error("Exception acknowledging/committing JMS message", e);
+        rollback(msg);
+      }
+    }
+  }
+
+  /**
+   * Process a message as part of a batch.
+   * <p>
+   * The message is not acknowledged (or committed); that happens for the whole batch when
+   * {@link #completeBatch(Message, boolean)} is invoked.
+   * </p>
+   *
+   * @return false if the message failed, and the batch should be rolled back.
+   */
+  public boolean onMessageInBatch(Message msg) {
+    AdaptrisMessage adaptrisMessage = translate(msg, true);
+    if (adaptrisMessage == null) {
+      return false;
+    }
+    return submit(msg, adaptrisMessage) && !lastMessageFailed();
+  }
+
+  /**
+   * Acknowledge, commit or rollback a batch of messages.
+   * <p>
+   * If the session is transacted and any message in the batch failed then the whole batch is rolled back; this means that the
+   * messages in the batch that were processed successfully will be redelivered. Otherwise the batch is committed, or acknowledged
+   * via the last message (acknowledging a message acknowledges all the messages previously consumed by the session).
+   * </p>
+   * <p>
+   * If the session is not transacted and a message failed, then acknowledging would include the failed message; so instead the
+   * session is recovered, and the unacknowledged messages (including those processed successfully) will be redelivered.
+   * </p>
+   *
+   * @param last the last message in the batch, may be null if the batch is empty.
+   * @param failed whether any message in the batch failed.
+   */
+  public void completeBatch(Message last, boolean failed) {
+    if (last == null) {
+      return;
+    }
+    try {
+      if (failed && !onMsgConfig.isManagedTransaction() && onMsgConfig.currentSession().getTransacted()) {
+        rollbackBatch(last);
+      }
+      else if (failed && requiresAcknowledge()) {
+        onMsgConfig.currentLogger().trace("Recovering session because a message in the batch ending [{}] has failed",
+            last.getJMSMessageID());
+        onMsgConfig.currentSession().recover();
+      }
+      else {
+        acknowledge(last);
+      }
+    }
+    catch (JMSException e) {
+      logR.error("Exception acknowledging/committing JMS messages", e);
+      rollback(last);
+    }
+  }
+
+  // Returns null if the message could not be translated; outside a batch, it has been rolled back.
+  private AdaptrisMessage translate(Message msg, boolean inBatch) {
     AdaptrisMessage adaptrisMessage = null;
-    AdaptrisMessageListener msgListener = onMsgConfig.configuredMessageListener();
     try {
       adaptrisMessage = MessageTypeTranslatorImp.translate(onMsgConfig.configuredMessageTranslator(), msg);
       onMsgConfig.configuredCorrelationIdSource().processCorrelationId(msg, adaptrisMessage);
     }
     catch (JMSException e) {
       logR.error("Failed to translate message into AdaptrisMessage", e);
-      if (!rollback(msg)) {
+      // In a batch it's up to completeBatch() to rollback or recover.
+      if (!inBatch && !rollback(msg)) {
         throw new RuntimeException(e);
       }
-      return;
+      return null;
     }
 
     try {
@@ -167,24 +239,45 @@ public class OnMessageHandler {
     catch (JMSException ignored) {
       // this might throw an exception, if it does, we don't care.
     }
+    return adaptrisMessage;
+  }
 
+  // Returns true if the listener returned normally.
+  private boolean submit(Message msg, AdaptrisMessage adaptrisMessage) {
     try {
-      msgListener.onAdaptrisMessage(adaptrisMessage);
-      try {
-        acknowledge(msg);
-      }
-      catch (JMSException e) {
-        logR.error("Exception acknowledging/committing JMS message", e);
-        rollback(msg);
-      }
+      onMsgConfig.configuredMessageListener().onAdaptrisMessage(adaptrisMessage);
+      return true;
     }
     catch (Throwable e) { // impossible if AML is StandardWorkflow
       logR.error("Unexpected Throwable from AdaptrisMessageListener", e);
-      logR.error("logging message [{}]",
-          adaptrisMessage != null ? MessageLoggerImpl.LAST_RESORT_LOGGER.toString(adaptrisMessage)
-              : "no data available");
+      logR.error("logging message [{}]", MessageLoggerImpl.LAST_RESORT_LOGGER.toString(adaptrisMessage));
     }
+    return false;
+  }
+
+  private boolean lastMessageFailed() {
+    AdaptrisMessageListener aml = onMsgConfig.configuredMessageListener();
+    return aml instanceof JmsTransactedWorkflow && ((JmsTransactedWorkflow) aml).lastMessageFailed();
+  }
+
+  // Messages are acknowledged explicitly by us, rather than by the session.
+  private boolean requiresAcknowledge() throws JMSException {
+    return AcknowledgeCommitOrRollBack.Acknowledge.maybe(onMsgConfig);
+  }
 
+  private void rollbackBatch(Message last) throws JMSException {
+    onMsgConfig.currentLogger().trace("Rolling back transaction because a message in the batch ending [{}] has failed",
+        last.getJMSMessageID());
+    onMsgConfig.currentSession().rollback();
+    if (onMsgConfig.configuredMessageListener() instanceof JmsTransactedWorkflow) {
+      try {
+        onMsgConfig.currentLogger().trace("Waiting for {}ms before continuing", onMsgConfig.rollbackTimeout());
+        Thread.sleep(onMsgConfig.rollbackTimeout());
+      }
+      catch (InterruptedException ignored) {
+        ;
+      }
+    }
   }
 
   private void acknowledge(Message msg) throws JMSException {
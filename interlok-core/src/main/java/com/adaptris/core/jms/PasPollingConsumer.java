@@ -47,7 +47,7 @@ import lombok.Setter;
     recommended = {NullConnection.class})
 @DisplayOrder(order = {"topic", "messageSelector", "poller", "vendorImplementation",
     "userName", "password", "clientId", "subscriptionId", "acknowledgeMode",
-    "messageTranslator"})
+    "messageTranslator", "batchSize", "batchWindow"})
 public class PasPollingConsumer extends JmsPollingConsumerImpl {
 
   /**
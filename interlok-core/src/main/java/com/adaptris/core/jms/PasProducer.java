@@ -101,7 +101,7 @@ import lombok.Setter;
 @AdapterComponent
 @ComponentProfile(summary = "Place message on a JMS Topic", tag = "producer,jms", recommended = {JmsConnection.class})
 @DisplayOrder(order = {"topic", "destination", "messageTranslator", "deliveryMode", "priority",
-    "ttl", "acknowledgeMode"})
+    "ttl", "acknowledgeMode", "maxOutstandingSends"})
 @NoArgsConstructor
 public class PasProducer extends DefinedJmsProducer {
 
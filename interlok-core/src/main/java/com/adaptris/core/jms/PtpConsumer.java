@@ -40,7 +40,7 @@ import lombok.Setter;
     recommended = {JmsConnection.class})
 @DisplayOrder(
     order = {"queue", "messageSelector", "destination", "acknowledgeMode",
-    "messageTranslator"})
+    "messageTranslator", "concurrentSessions"})
 public class PtpConsumer extends JmsConsumerImpl {
 
   /**
@@ -40,7 +40,7 @@ import lombok.Setter;
     recommended = {NullConnection.class})
 @DisplayOrder(
     order = {"queue", "messageSelector", "poller", "vendorImplementation", "userName",
-        "password", "clientId", "acknowledgeMode", "messageTranslator"})
+        "password", "clientId", "acknowledgeMode", "messageTranslator", "batchSize", "batchWindow"})
 public class PtpPollingConsumer extends JmsPollingConsumerImpl {
 
   /**
@@ -102,7 +102,7 @@ import lombok.Setter;
 @AdapterComponent
 @ComponentProfile(summary = "Place message on a JMS Queue", tag = "producer,jms", recommended = {JmsConnection.class})
 @DisplayOrder(order = {"queue", "destination", "messageTranslator", "deliveryMode", "priority",
-    "ttl", "acknowledgeMode"})
+    "ttl", "acknowledgeMode", "maxOutstandingSends"})
 @NoArgsConstructor
 public class PtpProducer extends DefinedJmsProducer {
 
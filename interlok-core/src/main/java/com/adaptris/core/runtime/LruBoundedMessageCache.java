@@ -16,26 +16,41 @@
 
 package com.adaptris.core.runtime;
 
-import java.util.Spliterator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Consumer;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adaptris.annotation.AdvancedConfig;
+import com.adaptris.annotation.InputFieldDefault;
+import com.adaptris.annotation.Removal;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.CoreException;
+import com.adaptris.core.MimeEncoder;
+import com.adaptris.core.util.ExceptionHelper;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
 /**
  * <p>
- * A {@link MessageCache} implementation that uses an {@link ArrayBlockingQueue} to hold the messages.
+ * A {@link MessageCache} implementation that holds the messages in a bounded, insertion ordered map keyed by message id.
  * </p>
  * <p>
- * Once the internal queue reaches it's limit, the oldest message will be removed and the newer message added.
+ * Once the cache reaches it's limit, the oldest message will be removed and the newer message added; lookups are hash based
+ * so the size of the cache does not affect the cost of {@link #contains(String)} or {@link #remove(String)}.
  * </p>
  * <p>
- * You can control the limit of the internal queue by configuring "max-messages".
+ * You can control the limit of the cache by configuring "max-messages" and optionally "max-bytes" (the total size of all
+ * cached messages). If "spill-directory" is configured then each message is written to a file in that directory
+ * and only the message id is held in memory until the message is removed.
  * </p>
  * @config lru-bounded-message-cache
  * 
@@ -47,14 +62,23 @@ public class LruBoundedMessageCache implements MessageCache {
   
   protected transient Logger log = LoggerFactory.getLogger(this.getClass().getName());
 
-  private static final long DEFAULT_QUEUE_POLL = 50;
   private static final int DEFAULT_MAX_MESSAGES = 100;
 
   private int maxMessages;
 
-  private transient ArrayBlockingQueue<CacheableAdaptrisMessageWrapper> boundedCache;
-  
-  private transient ReentrantLock lock = new ReentrantLock(true);
+  @AdvancedConfig
+  @InputFieldDefault(value = "0")
+  private Long maxBytes;
+
+  @AdvancedConfig
+  private String spillDirectory;
+
+  private transient Map<String, CachedMessage> cache = new LinkedHashMap<>();
+  private transient long cachedBytes;
+  private transient File spillDir;
+  private transient MimeEncoder encoder = new MimeEncoder(true, null, null);
+
+  private transient ReentrantLock lock = new ReentrantLock();
 
   public LruBoundedMessageCache() {
     maxMessages = DEFAULT_MAX_MESSAGES;
@@ -62,15 +86,22 @@ public class LruBoundedMessageCache implements MessageCache {
 
   @Override
   public void put(CacheableAdaptrisMessageWrapper message) {
+    CachedMessage entry;
+    try {
+      entry = spillDir != null ? spill(message) : new CachedMessage(message, null, size(message));
+    } catch (Exception e) {
+      log.warn("Failed to cache message '{}'", message.getMessageId(), e);
+      return;
+    }
     try {
       lock.lock();
-      while (!this.getBoundedCache().offer(message)) {
-        try {
-          this.getBoundedCache().poll(DEFAULT_QUEUE_POLL, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-          log.warn("Interrupted while adding message '{}' to the message cache.", message.getMessageId());
-          break;
-        }
+      discard(cache.remove(message.getMessageId()));
+      cache.put(message.getMessageId(), entry);
+      cachedBytes += entry.size;
+      for (Iterator<CachedMessage> i = cache.values().iterator(); i.hasNext() && overLimit();) {
+        CachedMessage eldest = i.next();
+        i.remove();
+        discard(eldest);
       }
       log.trace("Cached message: {}", message.getMessageId());
     } finally {
@@ -80,38 +111,51 @@ public class LruBoundedMessageCache implements MessageCache {
 
   @Override
   public CacheableAdaptrisMessageWrapper remove(final String messageId) {
+    CachedMessage entry;
     try {
       lock.lock();
-      CacheableAdaptrisMessageWrapper wrapper = new CacheableAdaptrisMessageWrapper();
-      wrapper.setMessageId(messageId);
-      
-      log.trace("Removing message: {}", wrapper.getMessageId());
-      Spliterator<CacheableAdaptrisMessageWrapper> spliterator = this.getBoundedCache().spliterator();
-      CacheMessageConsumer cacheMessageConsumer = new CacheMessageConsumer();
-      cacheMessageConsumer.setLookupWrapper(wrapper);
-      spliterator.forEachRemaining(cacheMessageConsumer);
-      
-      return cacheMessageConsumer.getReturnValue();
+      log.trace("Removing message: {}", messageId);
+      entry = cache.remove(messageId);
+      if (entry == null) {
+        return null;
+      }
+      cachedBytes -= entry.size;
     } finally {
       lock.unlock();
     }
+    if (entry.file == null) {
+      return entry.wrapper;
+    }
+    try {
+      AdaptrisMessage msg = encoder.decode(Files.readAllBytes(entry.file.toPath()));
+      return new CacheableAdaptrisMessageWrapper(messageId, msg);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to read cached message '" + messageId + "' from " + entry.file, e);
+    } finally {
+      FileUtils.deleteQuietly(entry.file);
+    }
   }
   
   @Override
   public boolean contains(String messageId) {
     try {
-      CacheableAdaptrisMessageWrapper wrapper = new CacheableAdaptrisMessageWrapper();
-      wrapper.setMessageId(messageId);
       lock.lock();
-      return this.getBoundedCache().contains(wrapper);
+      return cache.containsKey(messageId);
     } finally {
       lock.unlock();
     }
   }
 
   @Override
-  public void init() {
-    boundedCache = new ArrayBlockingQueue<>(this.getMaxMessages(), true);
+  public void init() throws CoreException {
+    spillDir = null;
+    if (!StringUtils.isBlank(getSpillDirectory())) {
+      try {
+        spillDir = Files.createDirectories(new File(getSpillDirectory()).toPath()).toFile();
+      } catch (IOException e) {
+        throw ExceptionHelper.wrapCoreException(e);
+      }
+    }
   }
 
   @Override
@@ -121,7 +165,14 @@ public class LruBoundedMessageCache implements MessageCache {
 
   @Override
   public void stop() {
-    boundedCache.clear();
+    try {
+      lock.lock();
+      cache.values().forEach(e -> discard(e));
+      cache.clear();
+      cachedBytes = 0;
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
@@ -129,6 +180,35 @@ public class LruBoundedMessageCache implements MessageCache {
 
   }
 
+  /**
+   * @deprecated since 3.11.0 the cache is no longer a queue; this returns a copy of the messages that are held in memory
+   *             (messages written to the spill directory are not included).
+   */
+  @Deprecated
+  @Removal(version = "4.0.0", message = "The cache is no longer backed by a queue")
+  public ArrayBlockingQueue<CacheableAdaptrisMessageWrapper> getBoundedCache() {
+    try {
+      lock.lock();
+      ArrayBlockingQueue<CacheableAdaptrisMessageWrapper> result =
+          new ArrayBlockingQueue<>(Math.max(Math.max(getMaxMessages(), cache.size()), 1));
+      cache.values().stream().filter(e -> e.wrapper != null).forEach(e -> result.add(e.wrapper));
+      return result;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @deprecated since 3.11.0 the cache is no longer a queue; this replaces the contents of the cache with the messages
+   *             in the queue.
+   */
+  @Deprecated
+  @Removal(version = "4.0.0", message = "The cache is no longer backed by a queue")
+  public void setBoundedCache(ArrayBlockingQueue<CacheableAdaptrisMessageWrapper> boundedCache) {
+    stop();
+    boundedCache.forEach(this::put);
+  }
+
   public int getMaxMessages() {
     return maxMessages;
   }
@@ -137,40 +217,70 @@ public class LruBoundedMessageCache implements MessageCache {
     this.maxMessages = maxMessages;
   }
 
-  public ArrayBlockingQueue<CacheableAdaptrisMessageWrapper> getBoundedCache() {
-    return boundedCache;
+  public Long getMaxBytes() {
+    return maxBytes;
   }
 
-  public void setBoundedCache(ArrayBlockingQueue<CacheableAdaptrisMessageWrapper> boundedCache) {
-    this.boundedCache = boundedCache;
+  /**
+   * Set the maximum total size of the cached messages.
+   * 
+   * @param l the maximum size in bytes; if null or less than 1 (the default) then the cache is only bounded by
+   *        {@link #setMaxMessages(int)}.
+   */
+  public void setMaxBytes(Long l) {
+    this.maxBytes = l;
   }
-  
-  class CacheMessageConsumer implements Consumer<CacheableAdaptrisMessageWrapper> {
-    private CacheableAdaptrisMessageWrapper lookupWrapper;
-    private CacheableAdaptrisMessageWrapper returnValue;
-    
-    @Override
-    public void accept(CacheableAdaptrisMessageWrapper cachedMessage) {
-      if(cachedMessage.getMessageId().equals(getLookupWrapper().getMessageId())) {
-        setReturnValue(cachedMessage);
-      }
-    }
 
-    public CacheableAdaptrisMessageWrapper getLookupWrapper() {
-      return lookupWrapper;
-    }
+  public String getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  /**
+   * Set the directory where cached messages are written.
+   * 
+   * @param s the directory; if not specified (the default) then messages are held in memory.
+   */
+  public void setSpillDirectory(String s) {
+    this.spillDirectory = s;
+  }
 
-    public void setLookupWrapper(CacheableAdaptrisMessageWrapper lookupWrapper) {
-      this.lookupWrapper = lookupWrapper;
+  private boolean overLimit() {
+    long bytes = maxBytes != null ? maxBytes.longValue() : 0;
+    return cache.size() > getMaxMessages() || bytes > 0 && cachedBytes > bytes && cache.size() > 1;
+  }
+
+  private CachedMessage spill(CacheableAdaptrisMessageWrapper message) throws Exception {
+    File f = File.createTempFile("msg", ".mime", spillDir);
+    try {
+      byte[] bytes = encoder.encode(message.getMessage());
+      Files.write(f.toPath(), bytes);
+      return new CachedMessage(null, f, bytes.length);
+    } catch (Exception e) {
+      FileUtils.deleteQuietly(f);
+      throw e;
     }
+  }
 
-    public CacheableAdaptrisMessageWrapper getReturnValue() {
-      return returnValue;
+  private void discard(CachedMessage entry) {
+    if (entry != null) {
+      cachedBytes -= entry.size;
+      FileUtils.deleteQuietly(entry.file);
     }
+  }
 
-    public void setReturnValue(CacheableAdaptrisMessageWrapper returnValue) {
-      this.returnValue = returnValue;
-    } 
+  private static long size(CacheableAdaptrisMessageWrapper message) {
+    return message.getMessage() != null ? message.getMessage().getSize() : 0;
   }
 
+  private static class CachedMessage {
+    private final CacheableAdaptrisMessageWrapper wrapper;
+    private final File file;
+    private final long size;
+
+    CachedMessage(CacheableAdaptrisMessageWrapper wrapper, File file, long size) {
+      this.wrapper = wrapper;
+      this.file = file;
+      this.size = size;
+    }
+  }
 }
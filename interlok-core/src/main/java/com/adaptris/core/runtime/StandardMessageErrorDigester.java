@@ -16,10 +16,28 @@
 
 package com.adaptris.core.runtime;
 
+import static com.adaptris.core.CoreConstants.OBJ_METADATA_EXCEPTION;
 import static com.adaptris.core.Workflow.WORKFLOW_ID_KEY;
+import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.management.MalformedObjectNameException;
 
@@ -28,15 +46,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.adaptris.annotation.AdapterComponent;
+import com.adaptris.annotation.AdvancedConfig;
 import com.adaptris.annotation.ComponentProfile;
 import com.adaptris.annotation.DisplayOrder;
 import com.adaptris.core.AdaptrisComponent;
 import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.CoreException;
+import com.adaptris.interlok.util.Closer;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
 /**
  * Record any error'd adaptris messages and make these available through JMX.
+ * <p>
+ * Entries are indexed by message id and workflow, so recording, finding and removing an entry does not depend on the size of
+ * the digest; a count of errors for each workflow and each exception class is also kept. If an overflow file is configured then
+ * entries that are evicted from the digest (because it has reached {@link #getDigestMaxSize()}) are appended as a one line
+ * summary to that file rather than being discarded.
+ * </p>
  * 
  * @config standard-message-error-digester
  * @author lchan
@@ -46,25 +72,39 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @AdapterComponent
 @ComponentProfile(summary = "The default message error digester that exposes some minimum metrics via JMX",
     tag = "error-handling,base")
-@DisplayOrder(order = {"digestMaxSize"})
+@DisplayOrder(order = {"digestMaxSize", "overflowFile"})
 public class StandardMessageErrorDigester extends MessageErrorDigesterImp {
 
   protected transient Logger log = LoggerFactory.getLogger(this.getClass().getName());
   static final int MAX_MESSAGES = 100;
+  static final String NO_EXCEPTION = "none";
 
   /**
    * The maximum number of messages you want to hold in this digest.
    */
   private int digestMaxSize;
-  private transient MessageErrorDigest messageErrorDigest;
+  /**
+   * The file where entries evicted from the digest are written.
+   */
+  @AdvancedConfig
+  private String overflowFile;
+
+  private transient LinkedHashMap<Long, MessageDigestErrorEntry> entries = new LinkedHashMap<>();
+  private transient Map<String, Deque<Long>> byMessageId = new HashMap<>();
+  private transient Map<String, Set<Long>> byWorkflow = new HashMap<>();
+  private transient Map<String, Long> countByWorkflow = new HashMap<>();
+  private transient Map<String, Long> countByExceptionClass = new HashMap<>();
+  private transient long sequence = 0;
   private transient int totalErrorCount = 0;
+  // File I/O happens under its own lock so that it doesn't block recording errors or JMX queries.
+  private transient final Object overflowLock = new Object();
+  private transient BufferedWriter overflow;
 
   static {
     RuntimeInfoComponentFactory.registerComponentFactory(new JmxFactory());
   }
 
   public StandardMessageErrorDigester() {
-    messageErrorDigest = new MessageErrorDigest();
     setDigestMaxSize(MAX_MESSAGES);
   }
 
@@ -81,15 +121,40 @@ public class StandardMessageErrorDigester extends MessageErrorDigesterImp {
   @Override
   public void init() throws CoreException {
     super.init();
-    messageErrorDigest.setMaxMessages(getDigestMaxSize());
+    List<MessageDigestErrorEntry> evicted;
+    synchronized (this) {
+      evicted = evict();
+    }
+    writeOverflow(evicted);
+  }
+
+  @Override
+  public void close() {
+    synchronized (overflowLock) {
+      Closer.closeQuietly(overflow);
+      overflow = null;
+    }
+    super.close();
   }
 
   @Override
   public void digest(AdaptrisMessage msg) {
     MessageDigestErrorEntry messageError = new MessageDigestErrorEntry(msg.getUniqueId(), msg.getMetadataValue(WORKFLOW_ID_KEY));
     messageError.extractInfo(msg);
-    messageErrorDigest.add(messageError);
-    totalErrorCount++;
+    Object e = msg.getObjectHeaders().get(OBJ_METADATA_EXCEPTION);
+    String exceptionClass = e != null ? e.getClass().getName() : NO_EXCEPTION;
+    List<MessageDigestErrorEntry> evicted;
+    synchronized (this) {
+      long seq = ++sequence;
+      entries.put(seq, messageError);
+      byMessageId.computeIfAbsent(messageError.getUniqueId(), k -> new ArrayDeque<>()).add(seq);
+      byWorkflow.computeIfAbsent(workflowKey(messageError), k -> new LinkedHashSet<>()).add(seq);
+      countByWorkflow.merge(workflowKey(messageError), 1L, Long::sum);
+      countByExceptionClass.merge(exceptionClass, 1L, Long::sum);
+      totalErrorCount++;
+      evicted = evict();
+    }
+    writeOverflow(evicted);
   }
 
   /**
@@ -103,12 +168,78 @@ public class StandardMessageErrorDigester extends MessageErrorDigesterImp {
     return digestMaxSize;
   }
 
-  public int getTotalErrorCount() {
+  /**
+   * Set the file where entries evicted from the digest are written.
+   * 
+   * @param s the file; if not specified (the default) then evicted entries are discarded.
+   */
+  public void setOverflowFile(String s) {
+    overflowFile = s;
+  }
+
+  public String getOverflowFile() {
+    return overflowFile;
+  }
+
+  public synchronized int getTotalErrorCount() {
     return totalErrorCount;
   }
 
-  public MessageErrorDigest getDigest() {
-    return messageErrorDigest;
+  /**
+   * Return a copy of the entries currently in the digest.
+   * 
+   */
+  public synchronized MessageErrorDigest getDigest() {
+    return new MessageErrorDigest(maxMessages(), new ArrayList<>(entries.values()));
+  }
+
+  /**
+   * Return a copy of the entries between {@code fromIndex} (inclusive) and {@code toIndex} (exclusive).
+   * 
+   */
+  public synchronized MessageErrorDigest getDigestSubset(int fromIndex, int toIndex) {
+    if (fromIndex < 0 || toIndex > entries.size() || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", toIndex=" + toIndex + ", size=" + entries.size());
+    }
+    List<MessageDigestErrorEntry> result = new ArrayList<>(toIndex - fromIndex);
+    Iterator<MessageDigestErrorEntry> i = entries.values().iterator();
+    for (int index = 0; index < toIndex; index++) {
+      MessageDigestErrorEntry e = i.next();
+      if (index >= fromIndex) {
+        result.add(e);
+      }
+    }
+    return new MessageErrorDigest(result.size(), result);
+  }
+
+  /**
+   * Return a copy of the entries currently in the digest for the specified workflow.
+   * 
+   */
+  public synchronized MessageErrorDigest getDigest(String workflowId) {
+    List<MessageDigestErrorEntry> result = new ArrayList<>();
+    for (Long seq : byWorkflow.getOrDefault(defaultString(workflowId), new LinkedHashSet<>())) {
+      result.add(entries.get(seq));
+    }
+    return new MessageErrorDigest(result.size(), result);
+  }
+
+  /**
+   * The number of errors recorded for each workflow.
+   * 
+   */
+  public synchronized Map<String, Long> getErrorCountByWorkflow() {
+    return new HashMap<>(countByWorkflow);
+  }
+
+  /**
+   * The number of errors recorded for each exception class.
+   * <p>
+   * Messages that did not have an exception associated with them are counted against {@value #NO_EXCEPTION}.
+   * </p>
+   */
+  public synchronized Map<String, Long> getErrorCountByExceptionClass() {
+    return new HashMap<>(countByExceptionClass);
   }
 
   public boolean remove(MessageDigestErrorEntry entry) {
@@ -120,27 +251,96 @@ public class StandardMessageErrorDigester extends MessageErrorDigesterImp {
   }
 
   public boolean remove(MessageDigestErrorEntry entry, boolean attemptFileDelete) {
+    MessageDigestErrorEntry removed;
+    synchronized (this) {
+      Deque<Long> seqs = byMessageId.get(entry.getUniqueId());
+      if (seqs == null) {
+        return false;
+      }
+      removed = unindex(seqs.peekFirst());
+    }
+    // Make sure that we use the filesystempath we have recorded rather than the one passed in.
+    // Don't want people to pass in something that contains "/usr/bin" now do we.
     if (attemptFileDelete) {
-      FileUtils.deleteQuietly(toFile(find(entry).getFileSystemPath()));
+      FileUtils.deleteQuietly(toFile(removed.getFileSystemPath()));
     }
-    return messageErrorDigest.remove(entry);
+    return true;
   }
 
   public boolean remove(String msgId, boolean attemptFileDelete) {
     return remove(new MessageDigestErrorEntry(msgId, null), attemptFileDelete);
   }
 
-  private MessageDigestErrorEntry find(MessageDigestErrorEntry spec) {
-    // Make sure the result is not null, but make sure that there is no filesystempath.
-    // Don't want people to pass in something that contains "/usr/bin" now do we.
-    MessageDigestErrorEntry result = new MessageDigestErrorEntry(spec.getUniqueId(), null);
-    for (MessageDigestErrorEntry e : messageErrorDigest) {
-      if (e.getUniqueId().equals(spec.getUniqueId())) {
-        result = e;
-        break;
+  private List<MessageDigestErrorEntry> evict() {
+    List<MessageDigestErrorEntry> evicted = new ArrayList<>();
+    int max = maxMessages();
+    for (Iterator<Long> i = entries.keySet().iterator(); i.hasNext() && entries.size() > max;) {
+      evicted.add(unindex(i.next()));
+    }
+    return evicted;
+  }
+
+  private MessageDigestErrorEntry unindex(Long seq) {
+    MessageDigestErrorEntry e = entries.remove(seq);
+    Deque<Long> ids = byMessageId.get(e.getUniqueId());
+    ids.remove(seq);
+    if (ids.isEmpty()) {
+      byMessageId.remove(e.getUniqueId());
+    }
+    Set<Long> wf = byWorkflow.get(workflowKey(e));
+    wf.remove(seq);
+    if (wf.isEmpty()) {
+      byWorkflow.remove(workflowKey(e));
+    }
+    return e;
+  }
+
+  private void writeOverflow(List<MessageDigestErrorEntry> evicted) {
+    if (evicted.isEmpty() || isEmpty(getOverflowFile())) {
+      return;
+    }
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    List<String> lines = new ArrayList<>(evicted.size());
+    for (MessageDigestErrorEntry e : evicted) {
+      lines.add(String.join("\t", format.format(e.getDate()), oneLine(e.getUniqueId()), oneLine(e.getWorkflowId()),
+          oneLine(e.getFileSystemPath()), firstLine(e.getStackTrace())));
+    }
+    synchronized (overflowLock) {
+      try {
+        if (overflow == null) {
+          overflow = Files.newBufferedWriter(new File(getOverflowFile()).toPath(), StandardCharsets.UTF_8,
+              StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        for (String line : lines) {
+          overflow.write(line);
+          overflow.newLine();
+        }
+        overflow.flush();
+      }
+      catch (IOException ex) {
+        log.warn("Failed to write {} entries to {}", lines.size(), getOverflowFile(), ex);
+        Closer.closeQuietly(overflow);
+        overflow = null;
       }
     }
-    return result;
+  }
+
+  private int maxMessages() {
+    return getDigestMaxSize() > 0 ? getDigestMaxSize() : MessageErrorDigest.DEFAULT_MAX_MESSAGES;
+  }
+
+  private static String workflowKey(MessageDigestEntry e) {
+    return defaultString(e.getWorkflowId());
+  }
+
+  private static String firstLine(String s) {
+    String result = defaultString(s).trim();
+    int eol = result.indexOf('\n');
+    return oneLine(eol >= 0 ? result.substring(0, eol) : result);
+  }
+
+  private static String oneLine(String s) {
+    return defaultString(s).replaceAll("[\\t\\r\\n]", " ");
   }
 
   private File toFile(String s) {
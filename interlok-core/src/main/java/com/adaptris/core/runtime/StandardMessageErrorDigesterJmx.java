@@ -18,7 +18,7 @@ package com.adaptris.core.runtime;
 
 import static com.adaptris.core.runtime.AdapterComponentMBean.JMX_MSG_ERR_DIGESTER_TYPE;
 
-import java.util.List;
+import java.util.Map;
 
 /**
  * Exposes all the records handled by {@link StandardMessageErrorDigester} and exposes them via JMX.
@@ -65,8 +65,12 @@ public class StandardMessageErrorDigesterJmx extends ChildRuntimeInfoComponentIm
 
   @Override
   public MessageErrorDigest getDigestSubset(int fromIndex, int toIndex) {
-    List<MessageDigestErrorEntry> newList = wrappedComponent.getDigest().subList(fromIndex, toIndex);
-    return new MessageErrorDigest(newList.size(), newList);
+    return wrappedComponent.getDigestSubset(fromIndex, toIndex);
+  }
+
+  @Override
+  public MessageErrorDigest getDigestForWorkflow(String workflowId) {
+    return wrappedComponent.getDigest(workflowId);
   }
 
   @Override
@@ -74,6 +78,16 @@ public class StandardMessageErrorDigesterJmx extends ChildRuntimeInfoComponentIm
     return wrappedComponent.getTotalErrorCount();
   }
 
+  @Override
+  public Map<String, Long> getErrorCountByWorkflow() {
+    return wrappedComponent.getErrorCountByWorkflow();
+  }
+
+  @Override
+  public Map<String, Long> getErrorCountByExceptionClass() {
+    return wrappedComponent.getErrorCountByExceptionClass();
+  }
+
   @Override
   public RuntimeInfoComponent getParentRuntimeInfoComponent() {
     return parent;
@@ -16,6 +16,8 @@
 
 package com.adaptris.core.runtime;
 
+import java.util.Map;
+
 public interface StandardMessageErrorDigesterJmxMBean extends ChildRuntimeInfoComponentMBean {
 
   MessageErrorDigest getDigest();
@@ -24,8 +26,30 @@ public interface StandardMessageErrorDigesterJmxMBean extends ChildRuntimeInfoCo
 
   MessageErrorDigest getDigestSubset(int fromIndex, int toIndex);
 
+  /**
+   * Get the entries in this digester for a particular workflow.
+   * 
+   * @param workflowId the workflow id.
+   * @return the entries for that workflow.
+   */
+  MessageErrorDigest getDigestForWorkflow(String workflowId);
+
   int getTotalErrorCount();
 
+  /**
+   * Get the number of errors recorded for each workflow.
+   * 
+   * @return a map keyed by workflow id.
+   */
+  Map<String, Long> getErrorCountByWorkflow();
+
+  /**
+   * Get the number of errors recorded for each exception class.
+   * 
+   * @return a map keyed by the exception class name.
+   */
+  Map<String, Long> getErrorCountByExceptionClass();
+
   /**
    * Remove an entry from this digester.
    * 
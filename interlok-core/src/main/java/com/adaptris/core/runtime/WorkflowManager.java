@@ -194,7 +194,7 @@ public class WorkflowManager extends ComponentManagerImpl<Workflow>implements Wo
     }
   }
 
-  private AdaptrisMessage waitForInjectReply(AdaptrisMessage adaptrisMessage) {
+  private AdaptrisMessage waitForInjectReply(AdaptrisMessage adaptrisMessage) throws CoreException {
     long startTime = System.currentTimeMillis();
     while (!injectInterceptor.getMessageCache().contains(adaptrisMessage.getUniqueId())) {
       try {
@@ -205,7 +205,11 @@ public class WorkflowManager extends ComponentManagerImpl<Workflow>implements Wo
         break;
       }
     }
-    return injectInterceptor.getMessageCache().remove(adaptrisMessage.getUniqueId()).getMessage();
+    CacheableAdaptrisMessageWrapper reply = injectInterceptor.getMessageCache().remove(adaptrisMessage.getUniqueId());
+    if (reply == null) {
+      throw new CoreException("Reply for [" + adaptrisMessage.getUniqueId() + "] is no longer in the message cache");
+    }
+    return reply.getMessage();
   }
 
   /**
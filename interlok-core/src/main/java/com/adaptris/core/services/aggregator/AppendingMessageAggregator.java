@@ -50,7 +50,15 @@ public class AppendingMessageAggregator extends MessageAggregatorImpl {
 
   @Override
   public void joinMessage(AdaptrisMessage orig, Collection<AdaptrisMessage> toAggregate) throws CoreException {
-    Collection<AdaptrisMessage> msgs = filter(toAggregate);
+    append(orig, filter(toAggregate));
+  }
+
+  @Override
+  public void aggregate(AdaptrisMessage orig, Iterable<AdaptrisMessage> toAggregate) throws CoreException {
+    append(orig, filtered(toAggregate));
+  }
+
+  private void append(AdaptrisMessage orig, Iterable<AdaptrisMessage> msgs) throws CoreException {
     try (OutputStream out = orig.getOutputStream()) {
       try (InputStream in = orig.getInputStream()) {
         IOUtils.copy(in, out);
@@ -16,7 +16,9 @@
 
 package com.adaptris.core.services.aggregator;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.CoreException;
@@ -41,4 +43,26 @@ public interface MessageAggregator {
    */
   void joinMessage(AdaptrisMessage msg, Collection<AdaptrisMessage> msgs) throws CoreException;
 
+  /**
+   * Joins messages as they become available.
+   * <p>
+   * This is used by {@link SplitJoinService} when it is streaming, the iterable may only be iterated once and will block until
+   * the next message is available. The default implementation simply collects all the messages and then calls
+   * {@link #joinMessage(AdaptrisMessage, Collection)}; implementations that can write each message as it arrives should override
+   * this so that they never need to hold all the messages in memory.
+   * </p>
+   *
+   * @param msg the msg to insert all the messages into
+   * @param msgs the messages to join.
+   * @throws CoreException wrapping any other exception
+   * @since 3.11.0
+   */
+  default void aggregate(AdaptrisMessage msg, Iterable<AdaptrisMessage> msgs) throws CoreException {
+    List<AdaptrisMessage> list = new ArrayList<>();
+    for (AdaptrisMessage m : msgs) {
+      list.add(m);
+    }
+    joinMessage(msg, list);
+  }
+
 }
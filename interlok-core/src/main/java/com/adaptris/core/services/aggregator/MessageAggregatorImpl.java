@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.stream.Collectors;
+import org.apache.commons.collections4.IterableUtils;
 /**
  * Abstract implementation of {@link MessageAggregator}.
  * 
@@ -60,6 +61,19 @@ public abstract class MessageAggregatorImpl implements MessageAggregator {
     return messages;
   }
 
+  /**
+   * Filter the messages as they are iterated, rather than up front.
+   *
+   * @see #aggregate(AdaptrisMessage, Iterable)
+   * @since 3.11.0
+   */
+  protected Iterable<AdaptrisMessage> filtered(Iterable<AdaptrisMessage> messages) {
+    if (filterCondition != null) {
+      return IterableUtils.filteredIterable(messages, adaptrisMessage -> filter(adaptrisMessage));
+    }
+    return messages;
+  }
+
   protected boolean filter(AdaptrisMessage message) {
     try {
       return filterCondition.evaluate(message);
@@ -61,8 +61,17 @@ public class ZipAggregator extends MessageAggregatorImpl {
 
   @Override
   public void joinMessage(AdaptrisMessage msg, Collection<AdaptrisMessage> msgs) throws CoreException {
+    zip(msg, filter(msgs));
+  }
+
+  @Override
+  public void aggregate(AdaptrisMessage msg, Iterable<AdaptrisMessage> msgs) throws CoreException {
+    zip(msg, filtered(msgs));
+  }
+
+  private void zip(AdaptrisMessage msg, Iterable<AdaptrisMessage> msgs) throws CoreException {
     try (ZipOutputStream zipOutputStream = new ZipOutputStream(msg.getOutputStream())) {
-      for (AdaptrisMessage message : filter(msgs)){
+      for (AdaptrisMessage message : msgs){
         if(message.getMessageHeaders().containsKey(filenameMetadata())) {
           zipOutputStream.putNextEntry(new ZipEntry(message.getMetadataValue(filenameMetadata())));
           zipOutputStream.write(message.getPayload());
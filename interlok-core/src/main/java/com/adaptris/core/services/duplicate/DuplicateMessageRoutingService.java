@@ -17,13 +17,9 @@
 package com.adaptris.core.services.duplicate;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.util.LinkedList;
 import javax.validation.constraints.NotBlank;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.adaptris.annotation.AdapterComponent;
@@ -83,7 +79,7 @@ public class DuplicateMessageRoutingService extends ServiceImp {
 
   // not marshalled
   private transient File file = null;
-  private transient LinkedList<String> comparators = new LinkedList<String>();
+  private transient DuplicateValueStore comparators;
 
   public DuplicateMessageRoutingService() {
     setHistorySize(100);
@@ -92,7 +88,7 @@ public class DuplicateMessageRoutingService extends ServiceImp {
   /**
    * <p>
    * Sets the number of elements to keep in the previously received IDs list.
-   * Default is 100
+   * Default is 100; 0 or less means that no IDs are kept, so every message is treated as unique.
    * </p>
    *
    * @param i the number of message ids to retain
@@ -232,32 +228,16 @@ public class DuplicateMessageRoutingService extends ServiceImp {
     return duplicateDestination;
   }
 
-  private boolean isDuplicate(String id) {
+  private boolean isDuplicate(String id) throws IOException {
     if (!comparators.contains(id)) {
-      comparators.addFirst(id);
-
-      while (comparators.size() > historySize) {
-        comparators.removeLast();
-      }
-
+      comparators.add(id);
       return false;
     }
-
     return true;
   }
 
-  private void store() throws IOException {
-    try (FileOutputStream out = new FileOutputStream(file); ObjectOutputStream oos = new ObjectOutputStream(out)) {
-      oos.writeObject(comparators);
-    }
-  }
-
   private void load() throws Exception {
-    if (file.exists()) {
-      try (FileInputStream in = new FileInputStream(file); ObjectInputStream ois = new ObjectInputStream(in)) {
-        comparators = (LinkedList) ois.readObject();
-      }
-    }
+    comparators.load();
   }
 
   /**
@@ -273,13 +253,17 @@ public class DuplicateMessageRoutingService extends ServiceImp {
   @Override
   public void doService(AdaptrisMessage msg) throws ServiceException {
 
-    String id = msg.getMetadataValue(keyToCheck);
-
-    if (isDuplicate(id)) {
-      msg.addMetadata(destinationKey, duplicateDestination);
+    String id = StringUtils.defaultString(msg.getMetadataValue(keyToCheck));
+    try {
+      if (isDuplicate(id)) {
+        msg.addMetadata(destinationKey, duplicateDestination);
+      }
+      else {
+        msg.addMetadata(destinationKey, uniqueDestination);
+      }
     }
-    else {
-      msg.addMetadata(destinationKey, uniqueDestination);
+    catch (IOException e) {
+      throw ExceptionHelper.wrapServiceException(e);
     }
   }
 
@@ -287,13 +271,19 @@ public class DuplicateMessageRoutingService extends ServiceImp {
   protected void initService() throws CoreException {
     tryAndWrap(() -> {
       file = FsHelper.toFile(getConfigLocation());
+      // As before, a history size of 0 (or less) means that every message is unique.
+      comparators = new DuplicateValueStore(file, Math.max(historySize, 0), true);
       load();
     });
   }
 
   @Override
   protected void closeService() {
-    tryAndLog("Failed to shutdown component cleanly, logging exception for informational purposes only", () -> store());
+    tryAndLog("Failed to shutdown component cleanly, logging exception for informational purposes only", () -> {
+      if (comparators != null) {
+        comparators.close();
+      }
+    });
   }
 
 
@@ -304,7 +294,7 @@ public class DuplicateMessageRoutingService extends ServiceImp {
 
   @Override
   public void stop() {
-    tryAndLog("Failed to stop component cleanly, logging exception for informational purposes only", () -> store());
+    // each id is persisted as it is received.
   }
 
   @Override
@@ -17,12 +17,7 @@
 package com.adaptris.core.services.duplicate;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.ObjectInputStream;
-import java.util.ArrayList;
-import java.util.List;
 import javax.validation.constraints.NotBlank;
-import org.apache.commons.lang3.ObjectUtils;
 import com.adaptris.core.CoreException;
 import com.adaptris.core.ServiceImp;
 import com.adaptris.core.fs.FsHelper;
@@ -42,7 +37,15 @@ public abstract class DuplicateMetadataValueService extends ServiceImp {
   private String storeFileUrl;
 
   // not marshalled
-  protected transient List<String> previousValuesStore;
+  /**
+   * The previously received values.
+   * <p>
+   * Note that since 3.11.0 this is a {@link DuplicateValueStore} rather than a {@code List<String>};
+   * subclasses should use {@link DuplicateValueStore#contains(String)} and
+   * {@link DuplicateValueStore#add(String)}, which also persists the value.
+   * </p>
+   */
+  protected transient DuplicateValueStore previousValuesStore;
   protected transient File store;
 
   @Override
@@ -52,8 +55,8 @@ public abstract class DuplicateMetadataValueService extends ServiceImp {
       Args.notNull(getStoreFileUrl(), "storeFileUrl");
       store = FsHelper.toFile(getStoreFileUrl());
       Args.notNull(store, "storeFile");
+      previousValuesStore = new DuplicateValueStore(store, storeCapacity());
       loadPreviouslyReceivedValues();
-      previousValuesStore = ObjectUtils.defaultIfNull(previousValuesStore, new ArrayList<String>());
     }
     catch (Exception e) {
       throw ExceptionHelper.wrapCoreException(e);
@@ -61,15 +64,23 @@ public abstract class DuplicateMetadataValueService extends ServiceImp {
   }
 
   @Override
-  protected void closeService() {}
+  protected void closeService() {
+    if (previousValuesStore != null) {
+      previousValuesStore.close();
+    }
+  }
 
 
   protected void loadPreviouslyReceivedValues() throws Exception {
-    if (store.exists()) {
-      try (FileInputStream in = new FileInputStream(store); ObjectInputStream o = new ObjectInputStream(in)) {
-        previousValuesStore = (ArrayList<String>) o.readObject();
-      }
-    }
+    previousValuesStore.load();
+  }
+
+  /**
+   * The maximum number of values held in the store; {@link DuplicateValueStore#CAPACITY_FROM_FILE}
+   * means use whatever the store file says.
+   */
+  protected int storeCapacity() {
+    return DuplicateValueStore.CAPACITY_FROM_FILE;
   }
 
 
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core.services.duplicate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.adaptris.interlok.util.Closer;
+
+/**
+ * Bounded, insertion ordered history of values used for duplicate detection.
+ * <p>
+ * Lookups are hash based; the history is persisted as an append-only journal so each new value
+ * costs a single small write. Once the journal holds twice as many entries as the history, it is
+ * rewritten (atomically) to contain only the current history. Readers of the same file (e.g.
+ * {@link CheckMetadataValueService}) only read entries appended since their last load.
+ * </p>
+ * <p>
+ * Files written by previous versions (a serialized {@link java.util.List}) are still read, and are
+ * converted to the journal format on the next write.
+ * </p>
+ *
+ * @since 3.11.0
+ */
+public class DuplicateValueStore {
+
+  /**
+   * Use the capacity recorded in the file, for services that only read the history.
+   */
+  public static final int CAPACITY_FROM_FILE = -1;
+
+  private static final int MAGIC = 0x44555031;
+  private static final int HEADER_SIZE = 16;
+  private static final short SERIALIZED_MAGIC = (short) 0xACED;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  private final File file;
+  private final int configuredCapacity;
+  private final boolean legacyNewestFirst;
+
+  private int capacity;
+  private final Deque<String> values = new ArrayDeque<>();
+  private final Map<String, Integer> counts = new HashMap<>();
+  private long generation = -1;
+  private long offset;
+  private int journalEntries;
+  private boolean rewriteRequired;
+  private DataOutputStream journal;
+
+  /**
+   * Create a new store.
+   *
+   * @param f the file that persists the history.
+   * @param capacity the maximum number of values to keep, 0 means that nothing is kept; if
+   *        {@link #CAPACITY_FROM_FILE} then the capacity recorded in the file is used (or the history
+   *        is unbounded if the file does not record one).
+   */
+  public DuplicateValueStore(File f, int capacity) {
+    this(f, capacity, false);
+  }
+
+  DuplicateValueStore(File f, int capacity, boolean legacyNewestFirst) {
+    file = f;
+    configuredCapacity = capacity;
+    this.capacity = capacity;
+    this.legacyNewestFirst = legacyNewestFirst;
+  }
+
+  /**
+   * Load any values that have been added to the file since the last load.
+   */
+  public synchronized void load() throws IOException {
+    if (!file.exists()) {
+      if (generation != -1) {
+        reset(-1);
+      }
+      return;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      if (raf.length() >= 2 && raf.readShort() == SERIALIZED_MAGIC) {
+        loadSerialized();
+        return;
+      }
+      if (raf.length() < HEADER_SIZE) {
+        return;
+      }
+      raf.seek(0);
+      if (raf.readInt() != MAGIC) {
+        throw new IOException(file + " is not a duplicate value store");
+      }
+      long gen = raf.readLong();
+      int fileCapacity = raf.readInt();
+      if (gen != generation) {
+        reset(gen);
+        if (configuredCapacity == CAPACITY_FROM_FILE) {
+          capacity = fileCapacity;
+        }
+      }
+      raf.seek(offset);
+      readJournal(raf);
+    }
+  }
+
+  /**
+   * Is the value in the history.
+   */
+  public synchronized boolean contains(String value) {
+    return counts.containsKey(value);
+  }
+
+  /**
+   * Add a value to the history and persist it.
+   */
+  public synchronized void add(String value) throws IOException {
+    remember(value);
+    if (rewriteRequired || generation == -1) {
+      compact();
+      return;
+    }
+    byte[] bytes = value.getBytes(UTF_8);
+    journal().writeInt(bytes.length);
+    journal.write(bytes);
+    journal.flush();
+    offset += Integer.BYTES + bytes.length;
+    journalEntries++;
+    if (journalEntries > Math.max(values.size(), 1) * 2) {
+      compact();
+    }
+  }
+
+  /**
+   * Rewrite the file so that it only contains the current history.
+   */
+  public synchronized void compact() throws IOException {
+    closeJournal();
+    File parent = file.getAbsoluteFile().getParentFile();
+    File tmp = new File(parent, file.getName() + ".tmp");
+    long gen = Math.max(System.currentTimeMillis(), generation + 1);
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+      out.writeInt(MAGIC);
+      out.writeLong(gen);
+      out.writeInt(capacity);
+      for (String v : values) {
+        byte[] bytes = v.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+    try {
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    generation = gen;
+    offset = file.length();
+    journalEntries = values.size();
+    rewriteRequired = false;
+  }
+
+  /**
+   * The number of values in the history.
+   */
+  public synchronized int size() {
+    return values.size();
+  }
+
+  /**
+   * Release the underlying file handle.
+   */
+  public synchronized void close() {
+    closeJournal();
+  }
+
+  private void readJournal(RandomAccessFile raf) throws IOException {
+    while (raf.length() - raf.getFilePointer() >= Integer.BYTES) {
+      int len = raf.readInt();
+      if (len < 0) {
+        throw new IOException(file + " is corrupt at offset " + offset);
+      }
+      if (raf.length() - raf.getFilePointer() < len) {
+        // Partially written entry; pick it up next time.
+        break;
+      }
+      byte[] bytes = new byte[len];
+      raf.readFully(bytes);
+      remember(new String(bytes, UTF_8));
+      journalEntries++;
+      offset = raf.getFilePointer();
+    }
+  }
+
+  private void loadSerialized() throws IOException {
+    try (FileInputStream in = new FileInputStream(file);
+        ObjectInputStream o = new ObjectInputStream(in)) {
+      List<Object> previous = new ArrayList<>((Collection<?>) o.readObject());
+      if (legacyNewestFirst) {
+        Collections.reverse(previous);
+      }
+      reset(-1);
+      previous.forEach(v -> remember(String.valueOf(v)));
+      rewriteRequired = true;
+    }
+    catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private void remember(String value) {
+    values.addLast(value);
+    counts.merge(value, 1, Integer::sum);
+    while (capacity >= 0 && values.size() > capacity) {
+      counts.computeIfPresent(values.removeFirst(), (k, c) -> c == 1 ? null : c - 1);
+    }
+  }
+
+  private void reset(long gen) {
+    values.clear();
+    counts.clear();
+    generation = gen;
+    offset = HEADER_SIZE;
+    journalEntries = 0;
+  }
+
+  private DataOutputStream journal() throws IOException {
+    if (journal == null) {
+      // Anything after the last complete entry was partially written (we are the only writer), and
+      // appending after it would corrupt every subsequent entry.
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        if (raf.length() > offset) {
+          log.warn("Discarding partially written entry in [{}]", file.getAbsolutePath());
+          raf.setLength(offset);
+        }
+      }
+      journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    }
+    return journal;
+  }
+
+  private void closeJournal() {
+    Closer.closeQuietly(journal);
+    journal = null;
+  }
+}
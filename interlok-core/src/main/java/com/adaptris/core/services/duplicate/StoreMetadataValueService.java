@@ -16,8 +16,6 @@
 
 package com.adaptris.core.services.duplicate;
 
-import java.io.FileOutputStream;
-import java.io.ObjectOutputStream;
 import com.adaptris.annotation.ComponentProfile;
 import com.adaptris.annotation.DisplayOrder;
 import com.adaptris.annotation.InputFieldDefault;
@@ -35,10 +33,8 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
  * </p>
  * <p>
  * The store of previous values has a configurable maximum size. After a new value is added, if the store exceeds the maximum size
- * the oldest value is removed. The store is then persisted.
- * </p>
- * <p>
- * Storage will be spun off into a separate interface and imps if required.
+ * the oldest value is removed. The new value is appended to the store file, which is periodically compacted; see
+ * {@link DuplicateValueStore}.
  * </p>
  * 
  * @config store-metadata-value-service
@@ -69,20 +65,15 @@ public class StoreMetadataValueService extends DuplicateMetadataValueService {
       String value = msg.getMetadataValue(getMetadataKey());
       Args.notBlank(value, "metadataKey");
       previousValuesStore.add(value);
-      while (previousValuesStore.size() > getNumberOfPreviousValuesToStore()) {
-        previousValuesStore.remove(0);
-      }
-      storePreviouslyReceivedValues();
     }
     catch (Exception e) {
       throw ExceptionHelper.wrapServiceException(e);
     }
   }
 
-  private void storePreviouslyReceivedValues() throws Exception {
-    try (FileOutputStream out = new FileOutputStream(store); ObjectOutputStream o = new ObjectOutputStream(out)) {
-      o.writeObject(previousValuesStore);
-    }
+  @Override
+  protected int storeCapacity() {
+    return getNumberOfPreviousValuesToStore();
   }
 
   // properties...
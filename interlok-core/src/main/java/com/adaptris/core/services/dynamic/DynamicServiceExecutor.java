@@ -17,8 +17,28 @@
 package com.adaptris.core.services.dynamic;
 
 import static com.adaptris.core.util.LoggingHelper.friendlyName;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import com.adaptris.annotation.AdapterComponent;
 import com.adaptris.annotation.AdvancedConfig;
@@ -39,6 +59,8 @@ import com.adaptris.core.ServiceList;
 import com.adaptris.core.util.Args;
 import com.adaptris.core.util.ExceptionHelper;
 import com.adaptris.core.util.LifecycleHelper;
+import com.adaptris.util.NumberUtils;
+import com.adaptris.util.URLString;
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
 /**
@@ -55,6 +77,15 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
  * that is unmarshalled; any exceptions thrown by unmarshalled service are simply rethrown back to
  * the workflow for standard message error handling.
  * </p>
+ * <p>
+ * By default each service is unmarshalled, initialised and started for every message, and then stopped and closed again. If
+ * {@link #setCacheSize(Integer)} is specified then started services are kept and reused for subsequent messages that contain the
+ * same service (identified by a digest of the marshalled service that the {@link ServiceExtractor} hands to the marshaller); if more
+ * than one thread needs the same service at the same time then additional instances are created, and up to 16 idle instances are
+ * kept for reuse. When the cache is full, the least recently used service (and all its instances) is stopped and closed; a service
+ * that throws an exception is always stopped and closed rather than reused. Only enable this if the dynamic services do not rely
+ * on being initialised for each message.
+ * </p>
  * 
  * @config dynamic-service-executor
  * 
@@ -63,7 +94,7 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @XStreamAlias("dynamic-service-executor")
 @AdapterComponent
 @ComponentProfile(summary = "Lookup and execute a dynamic service", tag = "service,dynamic")
-@DisplayOrder(order = {"serviceExtractor", "marshaller", "treatNotFoundAsError"})
+@DisplayOrder(order = {"serviceExtractor", "marshaller", "treatNotFoundAsError", "cacheSize"})
 public class DynamicServiceExecutor extends ServiceImp implements EventHandlerAware {
 
   private transient EventHandler eventHandler;
@@ -79,6 +110,19 @@ public class DynamicServiceExecutor extends ServiceImp implements EventHandlerAw
   @InputFieldDefault(value = "true")
   private Boolean treatNotFoundAsError;
 
+  @AdvancedConfig
+  @Min(0)
+  @InputFieldDefault(value = "0")
+  private Integer cacheSize;
+
+  /**
+   * The maximum number of idle instances of the same service that are kept for reuse.
+   */
+  private static final int MAX_IDLE_PER_SERVICE = 16;
+
+  private transient final Object cacheLock = new Object();
+  private transient LinkedHashMap<String, Deque<Service>> cache;
+
   public DynamicServiceExecutor() {
     this(new DefaultServiceExtractor());
   }
@@ -89,6 +133,10 @@ public class DynamicServiceExecutor extends ServiceImp implements EventHandlerAw
 
   @Override
   public void doService(AdaptrisMessage msg) throws ServiceException {
+    if (cacheSize() > 0) {
+      doCachedService(msg);
+      return;
+    }
     try {
       Service service = createService(msg);
       log.trace("Created service [{}]", friendlyName(service));
@@ -102,9 +150,113 @@ public class DynamicServiceExecutor extends ServiceImp implements EventHandlerAw
     }
   }
 
+  private void doCachedService(AdaptrisMessage msg) throws ServiceException {
+    try {
+      CachingMarshaller marshaller = new CachingMarshaller();
+      Service service = createService(msg, marshaller);
+      if (marshaller.borrowed != null && service != marshaller.borrowed) {
+        // The extractor discarded what we handed back, so it can go back in the cache as is.
+        release(marshaller.key, marshaller.borrowed);
+      }
+      // Only services that came straight from the marshalled form can be identified next time.
+      String key = service == marshaller.unmarshalled ? marshaller.key : null;
+      if (service != marshaller.borrowed) {
+        try {
+          startService(service);
+        }
+        catch (Exception e) {
+          LifecycleHelper.stopAndClose(service, false);
+          throw e;
+        }
+      }
+      try {
+        service.doService(msg);
+      }
+      catch (Exception e) {
+        // Don't reuse a service that has failed, it may be in any sort of state.
+        LifecycleHelper.stopAndClose(service, false);
+        throw e;
+      }
+      release(key, service);
+    }
+    catch (Exception e) {
+      throw ExceptionHelper.wrapServiceException(e);
+    }
+  }
+
+  private Service startService(Service service) throws CoreException {
+    log.trace("Created service [{}]", friendlyName(service));
+    LifecycleHelper.registerEventHandler(service, eventHandler);
+    LifecycleHelper.initAndStart(service, false);
+    return service;
+  }
+
+  private Service borrow(String key) {
+    synchronized (cacheLock) {
+      Deque<Service> idle = cache != null ? cache.get(key) : null;
+      return idle != null ? idle.poll() : null;
+    }
+  }
+
+  private void release(String key, Service service) {
+    List<Service> evicted = new ArrayList<>();
+    synchronized (cacheLock) {
+      if (cache != null && key != null) {
+        Deque<Service> idle = cache.computeIfAbsent(key, k -> new ArrayDeque<>());
+        if (idle.size() < MAX_IDLE_PER_SERVICE) {
+          idle.push(service);
+        }
+        else {
+          evicted.add(service);
+        }
+        for (Iterator<Deque<Service>> i = cache.values().iterator(); cache.size() > cacheSize() && i.hasNext();) {
+          evicted.addAll(i.next());
+          i.remove();
+        }
+      }
+      else {
+        evicted.add(service);
+      }
+    }
+    evicted.forEach(s -> LifecycleHelper.stopAndClose(s, false));
+  }
+
+  private void clearCache() {
+    List<Service> evicted = new ArrayList<>();
+    synchronized (cacheLock) {
+      if (cache != null) {
+        cache.values().forEach(evicted::addAll);
+      }
+      cache = null;
+    }
+    evicted.forEach(s -> LifecycleHelper.stopAndClose(s, false));
+  }
+
+  private static String digest(byte[] marshalled) throws CoreException {
+    try {
+      return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(marshalled));
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw ExceptionHelper.wrapCoreException(e);
+    }
+  }
+
+  /**
+   * The number of started services currently waiting to be reused.
+   */
+  int cachedServiceCount() {
+    synchronized (cacheLock) {
+      return cache != null ? cache.values().stream().mapToInt(Deque::size).sum() : 0;
+    }
+  }
+
   private Service createService(AdaptrisMessage msg) throws Exception {
+    return createService(msg, currentMarshaller());
+  }
+
+  private Service createService(AdaptrisMessage msg, AdaptrisMarshaller m) throws Exception {
     try {
-      return getServiceExtractor().getService(msg, currentMarshaller());
+      return getServiceExtractor().getService(msg, m);
     } catch (Exception e) {
       return onException(e);
     }
@@ -127,10 +279,14 @@ public class DynamicServiceExecutor extends ServiceImp implements EventHandlerAw
   @Override
   public void start() throws CoreException {
     LifecycleHelper.start(getServiceExtractor());
+    synchronized (cacheLock) {
+      cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
   }
 
   @Override
   public void stop() {
+    clearCache();
     LifecycleHelper.stop(getServiceExtractor());
   }
 
@@ -145,6 +301,99 @@ public class DynamicServiceExecutor extends ServiceImp implements EventHandlerAw
   }
 
 
+  /**
+   * Hands out a cached service (or unmarshals a new one) keyed on the marshalled form that the
+   * {@link ServiceExtractor} asks it to unmarshal.
+   */
+  private class CachingMarshaller implements AdaptrisMarshaller {
+    private String key;
+    private Service borrowed;
+    private Object unmarshalled;
+
+    private Object unmarshal(byte[] marshalled, UnmarshalOperation op) throws CoreException {
+      key = digest(marshalled);
+      borrowed = borrow(key);
+      unmarshalled = borrowed != null ? borrowed : op.unmarshal();
+      return unmarshalled;
+    }
+
+    @Override
+    public Object unmarshal(String xml) throws CoreException {
+      return unmarshal(xml.getBytes(StandardCharsets.UTF_8), () -> currentMarshaller().unmarshal(xml));
+    }
+
+    @Override
+    public Object unmarshal(Reader reader) throws CoreException {
+      try {
+        return unmarshal(IOUtils.toString(reader));
+      }
+      catch (IOException e) {
+        throw ExceptionHelper.wrapCoreException(e);
+      }
+    }
+
+    @Override
+    public Object unmarshal(InputStream stream) throws CoreException {
+      try {
+        byte[] bytes = IOUtils.toByteArray(stream);
+        return unmarshal(bytes, () -> currentMarshaller().unmarshal(new ByteArrayInputStream(bytes)));
+      }
+      catch (IOException e) {
+        throw ExceptionHelper.wrapCoreException(e);
+      }
+    }
+
+    @Override
+    public Object unmarshal(File file) throws CoreException {
+      return currentMarshaller().unmarshal(file);
+    }
+
+    @Override
+    public Object unmarshal(URL fileUrl) throws CoreException {
+      return currentMarshaller().unmarshal(fileUrl);
+    }
+
+    @Override
+    public Object unmarshal(URLString location) throws CoreException {
+      return currentMarshaller().unmarshal(location);
+    }
+
+    @Override
+    public String marshal(Object obj) throws CoreException {
+      return currentMarshaller().marshal(obj);
+    }
+
+    @Override
+    public void marshal(Object obj, String fileName) throws CoreException {
+      currentMarshaller().marshal(obj, fileName);
+    }
+
+    @Override
+    public void marshal(Object obj, File file) throws CoreException {
+      currentMarshaller().marshal(obj, file);
+    }
+
+    @Override
+    public void marshal(Object obj, Writer writer) throws CoreException {
+      currentMarshaller().marshal(obj, writer);
+    }
+
+    @Override
+    public void marshal(Object obj, OutputStream outputStream) throws CoreException {
+      currentMarshaller().marshal(obj, outputStream);
+    }
+
+    @Override
+    public void marshal(Object obj, URL fileUrl) throws CoreException {
+      currentMarshaller().marshal(obj, fileUrl);
+    }
+  }
+
+  @FunctionalInterface
+  private interface UnmarshalOperation {
+    Object unmarshal() throws CoreException;
+  }
+
   @Override
   public void registerEventHandler(EventHandler eh) {
     eventHandler = eh;
@@ -199,4 +448,22 @@ public class DynamicServiceExecutor extends ServiceImp implements EventHandlerAw
   private boolean treatNotFoundAsError() {
     return BooleanUtils.toBooleanDefaultIfNull(getTreatNotFoundAsError(), true);
   }
+
+  public Integer getCacheSize() {
+    return cacheSize;
+  }
+
+  /**
+   * Specify the number of distinct services to keep started for reuse.
+   *
+   * @param i the number of distinct services to cache; default is 0 if not specified, which means that services are
+   *        unmarshalled, initialised and started for every message.
+   */
+  public void setCacheSize(Integer i) {
+    cacheSize = i;
+  }
+
+  int cacheSize() {
+    return NumberUtils.toIntDefaultIfNull(getCacheSize(), 0);
+  }
 }
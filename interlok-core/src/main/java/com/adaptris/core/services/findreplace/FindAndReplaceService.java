@@ -72,24 +72,42 @@ public class FindAndReplaceService extends ServiceImp {
    * @see com.adaptris.core.Service #doService(com.adaptris.core.AdaptrisMessage)
    */
   public void doService(AdaptrisMessage msg) throws ServiceException {
+    if (getFindAndReplaceUnits().isEmpty()) {
+      return;
+    }
+    // Decode the payload once and apply all the units to it, rather than round-tripping the payload for each unit.
+    String content = msg.getContent();
+    boolean modified = false;
     for (FindAndReplaceUnit unit : getFindAndReplaceUnits()) {
+      if (modified && !isPayloadIndependent(unit)) {
+        // The source might be derived from the payload, so it needs to see the result of the previous units.
+        msg.setContent(content, msg.getContentEncoding());
+        modified = false;
+      }
       String find = unit.getFind().obtainValue(msg);
       String replace = unit.getReplace().obtainValue(msg);
       log.trace("replacing [" + find + "] with [" + replace + "]");
-      doReplace(msg, find, replace);
+      content = doReplace(content, find, replace);
+      modified = true;
     }
+    msg.setContent(content, msg.getContentEncoding());
+  }
+
+  private static boolean isPayloadIndependent(FindAndReplaceUnit unit) {
+    return isPayloadIndependent(unit.getFind()) && isPayloadIndependent(unit.getReplace());
   }
 
-  private void doReplace(AdaptrisMessage msg, String toReplace, String replaceWith) {
-    // Standard AdaptrisMessages provide Null Production for msgs.getStringPayload()
-    String result = null;
+  private static boolean isPayloadIndependent(ReplacementSource src) {
+    Class<?> c = src.getClass();
+    return c == ConfiguredReplacementSource.class || c == MetadataReplacementSource.class
+        || c == HexSequenceConfiguredReplacementSource.class;
+  }
+
+  private String doReplace(String content, String toReplace, String replaceWith) {
     if (replaceFirstOnly()) {
-      result = msg.getContent().replaceFirst(toReplace, replaceWith);
-    }
-    else {
-      result = msg.getContent().replaceAll(toReplace, replaceWith);
+      return content.replaceFirst(toReplace, replaceWith);
     }
-    msg.setContent(result, msg.getContentEncoding());
+    return content.replaceAll(toReplace, replaceWith);
   }
 
   @Override
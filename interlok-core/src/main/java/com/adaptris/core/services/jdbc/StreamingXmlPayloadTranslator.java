@@ -0,0 +1,229 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core.services.jdbc;
+
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.apache.commons.lang3.StringUtils;
+import com.adaptris.annotation.ComponentProfile;
+import com.adaptris.annotation.DisplayOrder;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.ServiceException;
+import com.adaptris.core.util.ExceptionHelper;
+import com.adaptris.core.util.XmlHelper;
+import com.adaptris.jdbc.JdbcResult;
+import com.adaptris.jdbc.JdbcResultRow;
+import com.adaptris.jdbc.JdbcResultSet;
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+
+/**
+ * Translate the ResultSet contents into an XML Payload, writing each row as it is read.
+ * <p>
+ * The output is the same as {@link XmlPayloadTranslator} (without the original message), but rather than building a DOM of the
+ * entire result and then serialising it, each row is written directly to {@link AdaptrisMessage#getOutputStream()} using an
+ * {@link XMLStreamWriter} as the ResultSet is iterated; memory use does not depend on the number of rows returned, so use this
+ * when queries can return very large result sets. Column name styles, XML columns, CDATA columns and stripping illegal XML
+ * characters all behave as they do in {@link XmlPayloadTranslator}; the output is not indented.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * <Results>
+ *   <Row>
+ *     <column1>...</column1>
+ *     <column2>...</column2>
+ *     ...
+ *   </Row>
+ *   <Row> ... </Row>
+ * </Results>
+ * }
+ * </pre>
+ *
+ * @config jdbc-streaming-xml-payload-translator
+ * @since 3.11.0
+ */
+@XStreamAlias("jdbc-streaming-xml-payload-translator")
+@ComponentProfile(summary = "Write the ResultSet as XML to the message without building a document in memory",
+    tag = "jdbc,xml", since = "3.11.0")
+@DisplayOrder(order = {"columnNameStyle", "columnTranslators", "outputMessageEncoding", "stripIllegalXmlChars",
+    "xmlColumnPrefix", "xmlColumnRegexp", "cdataColumnRegexp"})
+public class StreamingXmlPayloadTranslator extends XmlPayloadTranslatorImpl {
+
+  private static final String CDATA_END = "]]>";
+
+  public StreamingXmlPayloadTranslator() {
+    super();
+  }
+
+  @Override
+  public long translateResult(JdbcResult source, AdaptrisMessage target) throws SQLException, ServiceException {
+    long resultSetCount = 0;
+    String encoding = XmlHelper.getXmlEncoding(target, getOutputMessageEncoding());
+    try (OutputStream out = target.getOutputStream()) {
+      XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(out, encoding);
+      writer.writeStartDocument(encoding, "1.0");
+      writer.writeStartElement(getColumnNameStyle().format(ELEMENT_NAME_RESULTS));
+      for (JdbcResultSet rs : source.getResultSets()) {
+        resultSetCount += write(rs, writer);
+      }
+      writer.writeEndElement();
+      writer.writeEndDocument();
+      writer.close();
+    }
+    catch (SQLException e) {
+      throw e;
+    }
+    catch (Exception e) {
+      throw ExceptionHelper.wrapServiceException(e);
+    }
+    target.setContentEncoding(encoding);
+    return resultSetCount;
+  }
+
+  private long write(JdbcResultSet rs, XMLStreamWriter writer) throws SQLException, XMLStreamException {
+    long count = 0;
+    List<String> elementNames = null;
+    String rowElement = getColumnNameStyle().format(ELEMENT_NAME_ROW);
+    for (JdbcResultRow row : rs.getRows()) {
+      // let's go through and build up the element names we need once.
+      if (elementNames == null) {
+        elementNames = createElementNames(row);
+      }
+      writer.writeStartElement(rowElement);
+      for (int i = 0; i < row.getFieldCount(); i++) {
+        String columnName = row.getFieldName(i);
+        String value = toString(row, i);
+        writer.writeStartElement(elementNames.get(i));
+        if (!isXmlColumn(columnName) || !writeXml(columnName, value, writer)) {
+          writeText(value, isCdataColumn(columnName), writer);
+        }
+        writer.writeEndElement();
+      }
+      writer.writeEndElement();
+      count++;
+    }
+    return count;
+  }
+
+  private boolean writeXml(String columnName, String value, XMLStreamWriter writer) throws XMLStreamException {
+    XMLInputFactory factory = createInputFactory();
+    // Parse it once to check that it is well formed, so that we never write half a column.
+    try {
+      XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(value));
+      while (reader.hasNext()) {
+        reader.next();
+      }
+      reader.close();
+    }
+    catch (Exception e) {
+      if (isDisplayColumnErrors()) {
+        log.warn("Failed to parse column {} as an XML Document, treating as text.", columnName);
+        log.trace("Failed to parse column {} as an XML Document", columnName, e);
+      }
+      return false;
+    }
+    XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(value));
+    try {
+      copyRootElement(reader, writer);
+    }
+    finally {
+      reader.close();
+    }
+    return true;
+  }
+
+  private static void copyRootElement(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+    int depth = 0;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+        writer.writeStartElement(StringUtils.defaultString(reader.getPrefix()), reader.getLocalName(),
+            StringUtils.defaultString(reader.getNamespaceURI()));
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+          if (StringUtils.isEmpty(reader.getNamespacePrefix(i))) {
+            writer.writeDefaultNamespace(reader.getNamespaceURI(i));
+          }
+          else {
+            writer.writeNamespace(reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+          }
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+          writer.writeAttribute(StringUtils.defaultString(reader.getAttributePrefix(i)),
+              StringUtils.defaultString(reader.getAttributeNamespace(i)), reader.getAttributeLocalName(i),
+              reader.getAttributeValue(i));
+        }
+      }
+      else if (depth == 0) {
+        // Only the root element is copied, as XmlPayloadTranslator does.
+        continue;
+      }
+      else if (event == XMLStreamConstants.END_ELEMENT) {
+        writer.writeEndElement();
+        if (--depth == 0) {
+          return;
+        }
+      }
+      else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE) {
+        writer.writeCharacters(reader.getText());
+      }
+      else if (event == XMLStreamConstants.CDATA) {
+        writer.writeCData(reader.getText());
+      }
+      else if (event == XMLStreamConstants.COMMENT) {
+        writer.writeComment(reader.getText());
+      }
+      else if (event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+        writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+      }
+      else if (event == XMLStreamConstants.ENTITY_REFERENCE) {
+        writer.writeEntityRef(reader.getLocalName());
+      }
+    }
+  }
+
+  private void writeText(String value, boolean cdata, XMLStreamWriter writer) throws XMLStreamException {
+    String munged = stripIfRequired(value);
+    if (!cdata) {
+      writer.writeCharacters(munged);
+      return;
+    }
+    // A CDATA section can't contain its own terminator, so split it across sections.
+    String remaining = munged;
+    int index;
+    while ((index = remaining.indexOf(CDATA_END)) >= 0) {
+      writer.writeCData(remaining.substring(0, index + 2));
+      remaining = remaining.substring(index + 2);
+    }
+    writer.writeCData(remaining);
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    return factory;
+  }
+}
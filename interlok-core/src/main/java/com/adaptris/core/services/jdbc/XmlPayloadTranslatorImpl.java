@@ -131,7 +131,7 @@ public abstract class XmlPayloadTranslatorImpl extends ResultSetTranslatorImp {
     return results;
   }
 
-  private List<String> createElementNames(JdbcResultRow row) throws SQLException {
+  protected List<String> createElementNames(JdbcResultRow row) throws SQLException {
     List<String> result = new ArrayList<>();
     for (int i = 0; i < row.getFieldCount(); i++) {
       String columnName = row.getFieldName(i);
@@ -170,25 +170,33 @@ public abstract class XmlPayloadTranslatorImpl extends ResultSetTranslatorImp {
   }
 
   protected boolean isCdataColumn(String name, DocumentWrapper wrapper) {
+    boolean result = isCdataColumn(name);
+    if (result) {
+      wrapper.hasCDATA = true;
+    }
+    return result;
+  }
+
+  protected boolean isCdataColumn(String name) {
     boolean result = false;
     if (cdataColumnRegexpPattern != null) {
       result = cdataColumnRegexpPattern.matcher(name).matches();
-
-    }
-    if (result) {
-      wrapper.hasCDATA = true;
     }
     return result;
   }
 
   protected Node createTextNode(Document doc, String value, boolean isCDATA) {
-    String munged = stripIllegalXmlChars() ? XmlHelper.stripIllegalXmlCharacters(value) : value;
+    String munged = stripIfRequired(value);
     if (isCDATA) {
       return doc.createCDATASection(munged);
     }
     return doc.createTextNode(munged);
   }
 
+  protected String stripIfRequired(String value) {
+    return stripIllegalXmlChars() ? XmlHelper.stripIllegalXmlCharacters(value) : value;
+  }
+
   protected static InputSource createInputSource(String value) {
     return new InputSource(new StringReader(value));
   }
@@ -17,6 +17,7 @@
 package com.adaptris.core.services.path;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
@@ -221,7 +222,7 @@ public class XPathService extends ServiceImp {
     NamespaceContext namespaceContext = SimpleNamespaceContext.create(getNamespaceContext(), msg);
     try {
       DocumentBuilderFactoryBuilder builder = documentFactoryBuilder(namespaceContext);
-      Document document = buildDocument(builder, this.getXmlSource().extract(msg));
+      Document document = buildDocument(builder, msg);
       XPath xPathHandler = XPath.newXPathInstance(builder, namespaceContext);
       for (Execution execution : this.getExecutions()) {
         String result = this.serializeNode(xPathHandler.selectNodeList(document, execution.getSource().extract(msg)));
@@ -232,11 +233,21 @@ public class XPathService extends ServiceImp {
     }
   }
 
-  private Document buildDocument(DocumentBuilderFactoryBuilder builder, String xmlData)
+  private Document buildDocument(DocumentBuilderFactoryBuilder builder, AdaptrisMessage msg) throws Exception {
+    // If it's the payload, then read it directly rather than creating an intermediate String.
+    // Exact class: subclasses such as MultiPayloadStringInputParameter read something else.
+    if (getXmlSource().getClass() == StringPayloadDataInputParameter.class) {
+      try (Reader in = msg.getReader()) {
+        return buildDocument(builder, new InputSource(in));
+      }
+    }
+    return buildDocument(builder, new InputSource(new StringReader(getXmlSource().extract(msg))));
+  }
+
+  private Document buildDocument(DocumentBuilderFactoryBuilder builder, InputSource xmlData)
       throws ParserConfigurationException, SAXException, IOException {
     // The user can explicitly configure for XXE mitigation, so we can ignore via lgtm
-    return builder.newDocumentBuilder(DocumentBuilderFactory.newInstance())
-        .parse(new InputSource(new StringReader(xmlData))); // lgtm [java/xxe]
+    return builder.newDocumentBuilder(DocumentBuilderFactory.newInstance()).parse(xmlData); // lgtm [java/xxe]
   }
 
   private String serializeNode(NodeList nodeList) throws TransformerException {
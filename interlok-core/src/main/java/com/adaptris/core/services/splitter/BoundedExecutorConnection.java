@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core.services.splitter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.ObjectUtils;
+import com.adaptris.annotation.AdapterComponent;
+import com.adaptris.annotation.AdvancedConfig;
+import com.adaptris.annotation.ComponentProfile;
+import com.adaptris.annotation.DisplayOrder;
+import com.adaptris.annotation.InputFieldDefault;
+import com.adaptris.core.AdaptrisConnection;
+import com.adaptris.core.AdaptrisConnectionImp;
+import com.adaptris.core.CoreException;
+import com.adaptris.core.util.ManagedThreadFactory;
+import com.adaptris.util.NumberUtils;
+import com.adaptris.util.TimeInterval;
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+
+/**
+ * A connection that provides a bounded thread pool for executing split messages.
+ * <p>
+ * Used by {@link SplitJoinService} and {@link PoolingMessageSplitterService}. Configuring it as part of the adapter's
+ * {@link com.adaptris.core.SharedComponentList} and referring to it via a {@link com.adaptris.core.SharedConnection} means that
+ * multiple services will share the same set of threads, so the total number of threads used for split messages is capped
+ * regardless of how many splitting services there are or how large each split is.
+ * </p>
+ * <p>
+ * If the queue is full when a split message is submitted, then the configured {@link RejectionPolicy} applies; the default is
+ * {@link RejectionPolicy#CallerRuns} which means that the submitting thread processes the split message itself, slowing down the
+ * rate at which new work is submitted. Be wary of sharing the pool between nested splitting services; the outer service will hold
+ * on to threads while it waits for the inner service to complete.
+ * </p>
+ * 
+ * @config bounded-executor-connection
+ * @since 3.11.0
+ */
+@XStreamAlias("bounded-executor-connection")
+@AdapterComponent
+@ComponentProfile(summary = "A bounded thread pool used to process split messages", tag = "connections,splitter,splitjoin",
+    since = "3.11.0")
+@DisplayOrder(order = {"maxThreads", "queueSize", "rejectionPolicy"})
+public class BoundedExecutorConnection extends AdaptrisConnectionImp {
+
+  private static final int DEFAULT_MAX_THREADS = 10;
+  private static final int DEFAULT_QUEUE_SIZE = 1000;
+  private static final long KEEP_ALIVE_SECONDS = 60L;
+
+  /**
+   * What to do when a task is submitted and both the threads and the queue are exhausted.
+   * 
+   */
+  public enum RejectionPolicy {
+    /**
+     * Throw a {@link java.util.concurrent.RejectedExecutionException}; which causes the service to fail.
+     * 
+     */
+    Abort() {
+      @Override
+      RejectedExecutionHandler create() {
+        return new ThreadPoolExecutor.AbortPolicy();
+      }
+    },
+    /**
+     * Process the task in the thread that submitted it.
+     * 
+     */
+    CallerRuns() {
+      @Override
+      RejectedExecutionHandler create() {
+        return new ThreadPoolExecutor.CallerRunsPolicy();
+      }
+    };
+    abstract RejectedExecutionHandler create();
+  }
+
+  @InputFieldDefault(value = "10")
+  private Integer maxThreads;
+  @AdvancedConfig
+  @InputFieldDefault(value = "1000")
+  private Integer queueSize;
+  @AdvancedConfig
+  @InputFieldDefault(value = "CallerRuns")
+  private RejectionPolicy rejectionPolicy;
+
+  private transient ThreadPoolExecutor executor;
+
+  public BoundedExecutorConnection() {
+    super();
+  }
+
+  @Override
+  protected void prepareConnection() throws CoreException {
+  }
+
+  @Override
+  protected void initConnection() throws CoreException {
+    executor = new ThreadPoolExecutor(maxThreads(), maxThreads(), KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueSize()), new ManagedThreadFactory(this.getClass().getSimpleName()),
+        rejectionPolicy().create());
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  protected void startConnection() throws CoreException {
+  }
+
+  @Override
+  protected void stopConnection() {
+  }
+
+  @Override
+  protected void closeConnection() {
+    ManagedThreadFactory.shutdownQuietly(executor, new TimeInterval());
+    executor = null;
+  }
+
+  /**
+   * Return the thread pool; only available once this connection has been initialised.
+   * 
+   */
+  public ExecutorService retrieveExecutor() {
+    return executor;
+  }
+
+  public Integer getMaxThreads() {
+    return maxThreads;
+  }
+
+  /**
+   * Set the max number of threads that will process split messages.
+   *
+   * @param i the max number of threads, defaults to 10 if not specified.
+   */
+  public void setMaxThreads(Integer i) {
+    maxThreads = i;
+  }
+
+  public BoundedExecutorConnection withMaxThreads(Integer i) {
+    setMaxThreads(i);
+    return this;
+  }
+
+  int maxThreads() {
+    return Math.max(1, NumberUtils.toIntDefaultIfNull(getMaxThreads(), DEFAULT_MAX_THREADS));
+  }
+
+  public Integer getQueueSize() {
+    return queueSize;
+  }
+
+  /**
+   * Set the number of split messages that can be waiting for a thread.
+   *
+   * @param i the size of the queue, defaults to 1000 if not specified.
+   */
+  public void setQueueSize(Integer i) {
+    queueSize = i;
+  }
+
+  public BoundedExecutorConnection withQueueSize(Integer i) {
+    setQueueSize(i);
+    return this;
+  }
+
+  int queueSize() {
+    return Math.max(1, NumberUtils.toIntDefaultIfNull(getQueueSize(), DEFAULT_QUEUE_SIZE));
+  }
+
+  public RejectionPolicy getRejectionPolicy() {
+    return rejectionPolicy;
+  }
+
+  /**
+   * Set the behaviour when the queue is full.
+   *
+   * @param p the policy, defaults to {@link RejectionPolicy#CallerRuns} if not specified.
+   */
+  public void setRejectionPolicy(RejectionPolicy p) {
+    rejectionPolicy = p;
+  }
+
+  public BoundedExecutorConnection withRejectionPolicy(RejectionPolicy p) {
+    setRejectionPolicy(p);
+    return this;
+  }
+
+  RejectionPolicy rejectionPolicy() {
+    return ObjectUtils.defaultIfNull(getRejectionPolicy(), RejectionPolicy.CallerRuns);
+  }
+
+  // Fail at init rather than with a ClassCastException when the first message is split.
+  static void verify(AdaptrisConnection c) throws CoreException {
+    AdaptrisConnection target = c.retrieveConnection(AdaptrisConnection.class);
+    if (!(target instanceof BoundedExecutorConnection)) {
+      throw new CoreException("executor-connection must be a " + BoundedExecutorConnection.class.getSimpleName() + ", not "
+          + (target == null ? null : target.getClass().getName()));
+    }
+  }
+}
@@ -27,4 +27,10 @@ public class DefaultPoolingFutureExceptionStrategy implements PoolingFutureExcep
             }
         }
     }
+
+    // Only cancellations matter.
+    @Override
+    public boolean retainResult(AdaptrisMessage msg, int retained) {
+        return false;
+    }
 }
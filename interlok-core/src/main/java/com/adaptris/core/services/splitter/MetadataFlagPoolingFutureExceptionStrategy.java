@@ -59,18 +59,28 @@ public class MetadataFlagPoolingFutureExceptionStrategy implements PoolingFuture
             throw new CoreException("Timeout exceeded waiting for job completion.");
     }
 
+    // A single raised flag is enough to suppress exceptions.
+    @Override
+    public boolean retainResult(AdaptrisMessage msg, int retained) {
+        return retained == 0 && getMetadataFlag(msg);
+    }
+
     private boolean getFutureMetadataFlag(Future<AdaptrisMessage> msgResult) {
         try {
-            AdaptrisMessage adaptrisMessage = msgResult.get();
-            String metadataValue = adaptrisMessage.getMetadataValue(metadataFlagKey);
-            if (BooleanUtils.toBoolean(metadataValue) || "1".equals(metadataValue))
-                return true;
+            return getMetadataFlag(msgResult.get());
         } catch (InterruptedException | ExecutionException  ignored) {
             ;
         }
         return defaultFlagValue;
     }
 
+    private boolean getMetadataFlag(AdaptrisMessage adaptrisMessage) {
+        String metadataValue = adaptrisMessage.getMetadataValue(metadataFlagKey);
+        if (BooleanUtils.toBoolean(metadataValue) || "1".equals(metadataValue))
+            return true;
+        return defaultFlagValue;
+    }
+
     private boolean determineSuccess() {
         return true;
     }
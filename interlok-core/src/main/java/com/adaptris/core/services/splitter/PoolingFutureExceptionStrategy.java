@@ -9,4 +9,20 @@ import com.adaptris.core.CoreException;
 @FunctionalInterface
 public interface PoolingFutureExceptionStrategy {
     void handle(ServiceExceptionHandler handler, List<Future<AdaptrisMessage>> results) throws CoreException;
+
+    /**
+     * Whether a successfully processed split message needs to be passed to {@link #handle(ServiceExceptionHandler, List)}.
+     * <p>
+     * Used by {@link SplitJoinService} in streaming mode so that it does not have to keep a result for every split message;
+     * cancelled jobs are always passed. The default is to keep everything.
+     * </p>
+     *
+     * @param msg the split message (without its payload).
+     * @param retained the number of successful results already kept.
+     * @return true if the result should be kept.
+     * @since 3.11.0
+     */
+    default boolean retainResult(AdaptrisMessage msg, int retained) {
+        return true;
+    }
 }
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import javax.validation.Valid;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.pool2.impl.GenericObjectPool;
@@ -28,10 +29,12 @@ import com.adaptris.annotation.AdvancedConfig;
 import com.adaptris.annotation.ComponentProfile;
 import com.adaptris.annotation.DisplayOrder;
 import com.adaptris.annotation.InputFieldDefault;
+import com.adaptris.core.AdaptrisConnection;
 import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.CoreException;
 import com.adaptris.core.ServiceException;
 import com.adaptris.core.services.splitter.ServiceWorkerPool.Worker;
+import com.adaptris.core.util.LifecycleHelper;
 import com.adaptris.core.util.ManagedThreadFactory;
 import com.adaptris.util.NumberUtils;
 import com.adaptris.util.TimeInterval;
@@ -46,6 +49,11 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
  * messages have been processed, so unlike {@link AdvancedMessageSplitterService}; {@link #setIgnoreSplitMessageFailures(Boolean)}
  * will not halt the processing of the subsequent split messages
  * </p>
+ * <p>
+ * If a {@link BoundedExecutorConnection} is configured via {@link #setExecutorConnection(AdaptrisConnection)} then its thread pool
+ * is used instead of a thread pool private to this service; the object pool is still sized according to
+ * {@link #setMaxThreads(Integer)}.
+ * </p>
  * 
  * @config pooling-message-splitter-service
  */
@@ -54,7 +62,7 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @ComponentProfile(summary = "Split a message and execute an arbitary number of services on the split message", tag = "service,splitter", since = "3.7.1")
 @DisplayOrder(order =
 {
-    "splitter", "service", "maxThreads", "warmStart", "ignoreSplitMessageFailures", "sendEvents"
+    "splitter", "service", "maxThreads", "executorConnection", "warmStart", "ignoreSplitMessageFailures", "sendEvents"
 })
 public class PoolingMessageSplitterService extends AdvancedMessageSplitterService {
 
@@ -64,6 +72,9 @@ public class PoolingMessageSplitterService extends AdvancedMessageSplitterServic
   @AdvancedConfig
   @InputFieldDefault(value = "false")
   private Boolean warmStart;
+  @AdvancedConfig
+  @Valid
+  private AdaptrisConnection executorConnection;
 
   private transient ExecutorService executor;
   private transient ServiceExceptionHandler exceptionHandler;
@@ -72,19 +83,25 @@ public class PoolingMessageSplitterService extends AdvancedMessageSplitterServic
 
   @Override
   public Future<?> handleSplitMessage(AdaptrisMessage msg) throws ServiceException {
-    return executor.submit(new ServiceExecutor(exceptionHandler, msg));
+    return executor().submit(new ServiceExecutor(exceptionHandler, msg));
   }
 
   protected void initService() throws CoreException {
     workerFactory = new ServiceWorkerPool(getService(), eventHandler, maxThreads());
     objectPool = workerFactory.createCommonsObjectPool();
-    executor = workerFactory.createExecutor(this.getClass().getSimpleName());
+    if (getExecutorConnection() != null) {
+      BoundedExecutorConnection.verify(getExecutorConnection());
+      LifecycleHelper.init(getExecutorConnection());
+    } else {
+      executor = workerFactory.createExecutor(this.getClass().getSimpleName());
+    }
     exceptionHandler = new ServiceExceptionHandler();
     super.initService();
   }
 
   @Override
   public void start() throws CoreException {
+    LifecycleHelper.start(getExecutorConnection());
     if (warmStart()) {
       workerFactory.warmup(objectPool);
     }
@@ -93,10 +110,31 @@ public class PoolingMessageSplitterService extends AdvancedMessageSplitterServic
 
   protected void closeService() {
     ManagedThreadFactory.shutdownQuietly(executor, new TimeInterval());
+    executor = null;
+    LifecycleHelper.close(getExecutorConnection());
     ServiceWorkerPool.closeQuietly(objectPool);
     super.closeService();
   }
 
+  @Override
+  public void stop() {
+    super.stop();
+    LifecycleHelper.stop(getExecutorConnection());
+  }
+
+  @Override
+  public void prepare() throws CoreException {
+    super.prepare();
+    LifecycleHelper.prepare(getExecutorConnection());
+  }
+
+  private ExecutorService executor() {
+    if (getExecutorConnection() != null) {
+      return getExecutorConnection().retrieveConnection(BoundedExecutorConnection.class).retrieveExecutor();
+    }
+    return executor;
+  }
+
   protected void waitForCompletion(List<Future> tasks) throws ServiceException {
     super.waitForCompletion(tasks);
     exceptionHandler.throwFirstException();
@@ -115,6 +153,33 @@ public class PoolingMessageSplitterService extends AdvancedMessageSplitterServic
     return NumberUtils.toIntDefaultIfNull(getMaxThreads(), 10);
   }
 
+  /**
+   * @return the connection providing the thread pool.
+   * @since 3.11.0
+   */
+  public AdaptrisConnection getExecutorConnection() {
+    return executorConnection;
+  }
+
+  /**
+   * Use the thread pool provided by a {@link BoundedExecutorConnection} to process split messages.
+   * <p>
+   * Use a {@link com.adaptris.core.SharedConnection} to share the thread pool with other services; the thread pool is then not
+   * shut down when this service is closed.
+   * </p>
+   *
+   * @param c the connection, which must be (or refer to) a {@link BoundedExecutorConnection}.
+   * @since 3.11.0
+   */
+  public void setExecutorConnection(AdaptrisConnection c) {
+    executorConnection = c;
+  }
+
+  public PoolingMessageSplitterService withExecutorConnection(AdaptrisConnection c) {
+    setExecutorConnection(c);
+    return this;
+  }
+
   boolean warmStart() {
     return BooleanUtils.toBooleanDefaultIfNull(getWarmStart(), false);
   }
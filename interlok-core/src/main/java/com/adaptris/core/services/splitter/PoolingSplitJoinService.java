@@ -16,8 +16,6 @@
 
 package com.adaptris.core.services.splitter;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import org.apache.commons.lang3.BooleanUtils;
@@ -47,6 +45,10 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
  * re-used for each message; so the high cost of initialisation for the service, is not incurred (more than the max number of
  * threads specified) as much.
  * </p>
+ * <p>
+ * If {@link #setShareService(Boolean)} is true, then the object pool is not used, and the service is shared as per
+ * {@link SplitJoinService}.
+ * </p>
  *
  * @config pooling-split-join-service
  *
@@ -56,15 +58,12 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @ComponentProfile(summary = "Split a message and then execute the associated services on the split items, aggregating the split messages afterwards", tag = "service,splitjoin", since = "3.7.1")
 @DisplayOrder(order =
 {
-    "splitter", "service", "aggregator", "maxThreads", "timeout", "warmStart"
+    "splitter", "service", "aggregator", "maxThreads", "executorConnection", "timeout", "warmStart", "shareService"
 })
 public class PoolingSplitJoinService extends SplitJoinService {
 
   private static final int DEFAULT_THREADS = 10;
 
-  @AdvancedConfig
-  @InputFieldDefault(value = "10")
-  private Integer maxThreads;
   @AdvancedConfig
   @InputFieldDefault(value = "false")
   private Boolean warmStart;
@@ -91,7 +90,7 @@ public class PoolingSplitJoinService extends SplitJoinService {
 
   @Override
   public void start() throws CoreException {
-    if (warmStart()) {
+    if (warmStart() && !shareService()) {
       workerFactory.warmup(objectPool);
     }
     super.start();
@@ -104,17 +103,12 @@ public class PoolingSplitJoinService extends SplitJoinService {
   }
 
   @Override
-  protected List<Callable<AdaptrisMessage>> buildTasks(ServiceExceptionHandler handler, List<AdaptrisMessage> msgs)
-      throws Exception {
-    int count = 0;
-    List<Callable<AdaptrisMessage>> result = new ArrayList<>();
-    for (AdaptrisMessage splitMsg : msgs) {
-      count++;
-      splitMsg.addMetadata(MessageSplitterServiceImp.KEY_CURRENT_SPLIT_MESSAGE_COUNT, Long.toString(count));
-      Callable<AdaptrisMessage> job = new MyServiceExecutor(handler, splitMsg);
-      result.add(job);
+  protected Callable<AdaptrisMessage> buildTask(ServiceExceptionHandler handler, AdaptrisMessage splitMsg) throws Exception {
+    if (shareService()) {
+      // No need for the object pool, every split message uses the same service instance.
+      return super.buildTask(handler, splitMsg);
     }
-    return result;
+    return new MyServiceExecutor(handler, splitMsg);
   }
 
   @Override
@@ -122,22 +116,17 @@ public class PoolingSplitJoinService extends SplitJoinService {
     return workerFactory.createExecutor(this.getClass().getSimpleName());
   }
 
-  public Integer getMaxThreads() {
-    return maxThreads;
-  }
-
   /**
    * Set the max number of threads to handle the execution of the split messages.
+   * <p>
+   * This also controls the size of the object pool.
+   * </p>
    *
    * @param size the max number of threads, defaults to 10 if not specified.
    */
+  @Override
   public void setMaxThreads(Integer size) {
-    maxThreads = size;
-  }
-
-  public PoolingSplitJoinService withMaxThreads(Integer max) {
-    setMaxThreads(max);
-    return this;
+    super.setMaxThreads(size);
   }
 
   int maxThreads() {
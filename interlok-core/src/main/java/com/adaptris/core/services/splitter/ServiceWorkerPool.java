@@ -48,6 +48,7 @@ public class ServiceWorkerPool {
   private transient Service wrappedService;
   private transient EventHandler eventHandler;
   private transient int maxThreads;
+  private transient String marshalledService;
   private transient Logger log = LoggerFactory.getLogger(this.getClass());
 
   public ServiceWorkerPool(Service s, EventHandler eh, int maxThreads) throws CoreException {
@@ -60,8 +61,14 @@ public class ServiceWorkerPool {
     }
   }
 
+  // Each worker needs its own copy, but we only need to marshal the original once.
   private Service cloneService(Service original) throws Exception {
-    Service result = DefaultMarshaller.roundTrip(original);
+    String xml = marshalledService;
+    if (xml == null) {
+      xml = DefaultMarshaller.getDefaultMarshaller().marshal(original);
+      marshalledService = xml;
+    }
+    Service result = (Service) DefaultMarshaller.getDefaultMarshaller().unmarshal(xml);
     LifecycleHelper.registerEventHandler(result, eventHandler);
     return result;
   }
@@ -16,16 +16,24 @@
 
 package com.adaptris.core.services.splitter;
 
+import static com.adaptris.core.AdaptrisMessageImp.copyPayload;
 import static com.adaptris.core.util.ServiceUtil.discardNulls;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.apache.commons.lang3.BooleanUtils;
@@ -34,7 +42,9 @@ import com.adaptris.annotation.AdvancedConfig;
 import com.adaptris.annotation.ComponentProfile;
 import com.adaptris.annotation.DisplayOrder;
 import com.adaptris.annotation.InputFieldDefault;
+import com.adaptris.core.AdaptrisConnection;
 import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.AdaptrisMessageFactory;
 import com.adaptris.core.CoreException;
 import com.adaptris.core.DefaultMarshaller;
 import com.adaptris.core.EventHandler;
@@ -65,6 +75,23 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
  * its own thread; this means that where there is a high cost of initialisation for the service, then you may get better performance
  * aggregating the messages in a different way.
  * </p>
+ * <p>
+ * If the underlying service is thread-safe then you can set {@link #setShareService(Boolean)} to true; the configured service is
+ * then initialised and started along with this service, and used concurrently for every split message without being cloned.
+ * </p>
+ * <p>
+ * By default all the split messages are created before any of them are processed, and aggregation only starts when all of them
+ * have been processed. If {@link #setStreamingWindow(Integer)} is specified, then split messages are processed as the splitter
+ * produces them, with at most that many in flight at any one time; completed messages are passed to
+ * {@link MessageAggregator#aggregate(AdaptrisMessage, Iterable)} in order, so an aggregator that supports streaming never needs
+ * to hold all the messages in memory.
+ * </p>
+ * <p>
+ * By default a new thread is created for every split message that is being processed concurrently; this is unbounded, so a large
+ * split can create a large number of threads. Use {@link #setMaxThreads(Integer)} to cap the number of threads used by this
+ * service, or configure a {@link BoundedExecutorConnection} (possibly shared between services via a
+ * {@link com.adaptris.core.SharedConnection}) with {@link #setExecutorConnection(AdaptrisConnection)}.
+ * </p>
  * 
  * @config split-join-service
  */
@@ -73,7 +100,7 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @ComponentProfile(summary = "Split a message and then execute the associated services on the split items, aggregating the split messages afterwards", tag = "service,splitjoin")
 @DisplayOrder(order =
 {
-    "splitter", "service", "aggregator", "maxThreads", "timeout"
+    "splitter", "service", "aggregator", "maxThreads", "executorConnection", "timeout", "shareService", "streamingWindow"
 })
 public class SplitJoinService extends ServiceImp implements EventHandlerAware, ServiceWrapper {
 
@@ -92,8 +119,19 @@ public class SplitJoinService extends ServiceImp implements EventHandlerAware, S
   private TimeInterval timeout;
   @InputFieldDefault(value = "false")
   private Boolean sendEvents;
+  @AdvancedConfig
+  @InputFieldDefault(value = "false")
+  private Boolean shareService;
+  @AdvancedConfig
+  private Integer streamingWindow;
+  @AdvancedConfig
+  private Integer maxThreads;
+  @AdvancedConfig
+  @Valid
+  private AdaptrisConnection executorConnection;
 
   private transient ExecutorService executors;
+  private transient String marshalledService;
   private transient EventHandler eventHandler;
 
   @AdvancedConfig
@@ -106,6 +144,10 @@ public class SplitJoinService extends ServiceImp implements EventHandlerAware, S
 
   @Override
   public void doService(AdaptrisMessage msg) throws ServiceException {
+    if (getStreamingWindow() != null) {
+      doStreamingService(msg);
+      return;
+    }
     try {
       List<AdaptrisMessage> splitMessages = toList(getSplitter().splitMessage(msg));
       if (splitMessages.isEmpty()) {
@@ -122,6 +164,33 @@ public class SplitJoinService extends ServiceImp implements EventHandlerAware, S
     }
   }
 
+  private void doStreamingService(AdaptrisMessage msg) throws ServiceException {
+    ServiceExceptionHandler handler = new ServiceExceptionHandler();
+    try (CloseableIterable<AdaptrisMessage> splitMessages = CloseableIterable.ensureCloseable(getSplitter().splitMessage(msg))) {
+      InFlightWindow window = new InFlightWindow(handler, splitMessages.iterator());
+      if (!window.hasNext() && window.count() == 0) {
+        log.debug("No output from splitter; nothing to do");
+        return;
+      }
+      // Join into a copy so that the original is untouched if the exception strategy rejects the results.
+      AdaptrisMessage joined = (AdaptrisMessage) msg.clone();
+      try {
+        getAggregator().aggregate(joined, window);
+        window.drain();
+      } catch (Exception e) {
+        window.cancel();
+        throw e;
+      }
+      exceptionStrategy.handle(handler, window.results());
+      copyPayload(joined, msg);
+      msg.setContentEncoding(joined.getContentEncoding());
+      msg.setMetadata(joined.getMetadata());
+      msg.addMetadata(MessageSplitterServiceImp.KEY_SPLIT_MESSAGE_COUNT, Long.toString(window.count()));
+    } catch (Exception e) {
+      throw ExceptionHelper.wrapServiceException(e);
+    }
+  }
+
   protected List<Callable<AdaptrisMessage>> buildTasks(ServiceExceptionHandler handler, List<AdaptrisMessage> msgs)
       throws Exception {
     int count = 0;
@@ -129,15 +198,24 @@ public class SplitJoinService extends ServiceImp implements EventHandlerAware, S
     for (AdaptrisMessage splitMsg : msgs) {
       count++;
       splitMsg.addMetadata(MessageSplitterServiceImp.KEY_CURRENT_SPLIT_MESSAGE_COUNT, Long.toString(count));
-      Callable<AdaptrisMessage> job = new MyServiceExecutor(handler, cloneService(service), splitMsg);
-      result.add(job);
+      result.add(buildTask(handler, splitMsg));
     }
     return result;
   }
 
+  /**
+   * Build the task that executes the service against a single split message.
+   *
+   * @since 3.11.0
+   */
+  protected Callable<AdaptrisMessage> buildTask(ServiceExceptionHandler handler, AdaptrisMessage splitMsg) throws Exception {
+    return shareService() ? new MyServiceExecutor(handler, service, splitMsg, false)
+        : new MyServiceExecutor(handler, cloneService(service), splitMsg, true);
+  }
+
   private List<Future<AdaptrisMessage>> submitAndWait(ServiceExceptionHandler handler, Collection<Callable<AdaptrisMessage>> jobs)
       throws Exception {
-    List<Future<AdaptrisMessage>> results = executors.invokeAll(jobs, timeoutMs(), TimeUnit.MILLISECONDS);
+    List<Future<AdaptrisMessage>> results = executor().invokeAll(jobs, timeoutMs(), TimeUnit.MILLISECONDS);
     exceptionStrategy.handle(handler, results);
     log.trace("Finished waiting for operations...");
     return results;
@@ -157,9 +235,19 @@ public class SplitJoinService extends ServiceImp implements EventHandlerAware, S
   }
 
   protected ExecutorService createExecutor() {
+    if (getMaxThreads() != null) {
+      return Executors.newFixedThreadPool(Math.max(1, getMaxThreads().intValue()), new ManagedThreadFactory(this.getClass().getSimpleName()));
+    }
     return Executors.newCachedThreadPool(new ManagedThreadFactory(this.getClass().getSimpleName()));
   }
 
+  private ExecutorService executor() {
+    if (getExecutorConnection() != null) {
+      return getExecutorConnection().retrieveConnection(BoundedExecutorConnection.class).retrieveExecutor();
+    }
+    return executors;
+  }
+
   @Override
   protected void initService() throws CoreException {
     try {
@@ -168,24 +256,64 @@ public class SplitJoinService extends ServiceImp implements EventHandlerAware, S
       Args.notNull(getService(), "service");
       if (exceptionStrategy == null)
         exceptionStrategy = new DefaultPoolingFutureExceptionStrategy();
-      executors = createExecutor();
+      marshalledService = null;
+      if (shareService()) {
+        LifecycleHelper.registerEventHandler(getService(), eventHandler);
+        LifecycleHelper.init(getService());
+      }
+      if (getExecutorConnection() != null) {
+        BoundedExecutorConnection.verify(getExecutorConnection());
+        LifecycleHelper.init(getExecutorConnection());
+      } else {
+        executors = createExecutor();
+      }
     } catch (Exception e) {
       throw ExceptionHelper.wrapCoreException(e);
     }
   }
 
+  @Override
+  public void start() throws CoreException {
+    LifecycleHelper.start(getExecutorConnection());
+    if (shareService()) {
+      LifecycleHelper.start(getService());
+    }
+    super.start();
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    if (shareService()) {
+      LifecycleHelper.stop(getService());
+    }
+    LifecycleHelper.stop(getExecutorConnection());
+  }
+
   @Override
   protected void closeService() {
     ManagedThreadFactory.shutdownQuietly(executors, new TimeInterval());
+    executors = null;
+    LifecycleHelper.close(getExecutorConnection());
+    if (shareService()) {
+      LifecycleHelper.close(getService());
+    }
   }
 
   @Override
   public void prepare() throws CoreException {
     LifecycleHelper.prepare(getService());
+    LifecycleHelper.prepare(getExecutorConnection());
   }
 
+  // The configuration doesn't change once initialised, so we only need to marshal it once.
   private Service cloneService(Service original) throws CoreException {
-    Service result = DefaultMarshaller.roundTrip(original);
+    String xml = marshalledService;
+    if (xml == null) {
+      xml = DefaultMarshaller.getDefaultMarshaller().marshal(original);
+      marshalledService = xml;
+    }
+    Service result = (Service) DefaultMarshaller.getDefaultMarshaller().unmarshal(xml);
     LifecycleHelper.registerEventHandler(result, eventHandler);
     return result;
   }
@@ -194,29 +322,171 @@ public class SplitJoinService extends ServiceImp implements EventHandlerAware, S
     private ServiceExceptionHandler handler;
     private Service service;
     private AdaptrisMessage msg;
+    private boolean manageLifecycle;
 
-    MyServiceExecutor(ServiceExceptionHandler ceh, Service s, AdaptrisMessage msg) {
+    MyServiceExecutor(ServiceExceptionHandler ceh, Service s, AdaptrisMessage msg, boolean manageLifecycle) {
       handler = ceh;
       service = s;
       this.msg = msg;
+      this.manageLifecycle = manageLifecycle;
     }
 
     @Override
     public AdaptrisMessage call() throws Exception {
       try {
-        LifecycleHelper.registerEventHandler(service, eventHandler);
-        LifecycleHelper.initAndStart(service);
+        if (manageLifecycle) {
+          LifecycleHelper.registerEventHandler(service, eventHandler);
+          LifecycleHelper.initAndStart(service);
+        }
         service.doService(msg);
       } catch (Exception e) {
         handler.uncaughtException(Thread.currentThread(), e);
       } finally {
-        LifecycleHelper.stopAndClose(service);
+        if (manageLifecycle) {
+          LifecycleHelper.stopAndClose(service);
+        }
       }
       return sendEvents(msg);
     }
 
   }
 
+  // Submits split messages as they are needed, keeping at most streamingWindow in flight; iterating returns
+  // each split message in order once its service has completed. Only the results that the exception strategy
+  // needs are kept, so memory use depends on the window rather than the number of split messages.
+  private class InFlightWindow implements Iterable<AdaptrisMessage>, Iterator<AdaptrisMessage> {
+    private final ServiceExceptionHandler handler;
+    private final Iterator<AdaptrisMessage> splitMessages;
+    private final Deque<InFlight> inFlight = new ArrayDeque<>();
+    private final List<Future<AdaptrisMessage>> results = new ArrayList<>();
+    private final long deadline;
+    private final int windowSize;
+    private long count = 0;
+    private int retained = 0;
+    private AdaptrisMessage next;
+    private boolean finished;
+
+    InFlightWindow(ServiceExceptionHandler handler, Iterator<AdaptrisMessage> splitMessages) {
+      this.handler = handler;
+      this.splitMessages = splitMessages;
+      deadline = System.currentTimeMillis() + timeoutMs();
+      windowSize = Math.max(1, getStreamingWindow().intValue());
+    }
+
+    @Override
+    public Iterator<AdaptrisMessage> iterator() {
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null && !finished) {
+        try {
+          next = waitForNext();
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public AdaptrisMessage next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      AdaptrisMessage result = next;
+      next = null;
+      return result;
+    }
+
+    // In case the aggregator didn't iterate over everything.
+    void drain() {
+      while (hasNext()) {
+        next();
+      }
+    }
+
+    long count() {
+      return count;
+    }
+
+    List<Future<AdaptrisMessage>> results() {
+      return results;
+    }
+
+    private AdaptrisMessage waitForNext() throws Exception {
+      while (inFlight.size() < windowSize && splitMessages.hasNext()) {
+        AdaptrisMessage splitMsg = splitMessages.next();
+        count++;
+        splitMsg.addMetadata(MessageSplitterServiceImp.KEY_CURRENT_SPLIT_MESSAGE_COUNT, Long.toString(count));
+        inFlight.add(new InFlight(splitMsg, executor().submit(buildTask(handler, splitMsg))));
+      }
+      InFlight head = inFlight.poll();
+      if (head == null) {
+        finished = true;
+        return null;
+      }
+      try {
+        head.future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        if (exceptionStrategy.retainResult(head.msg, retained)) {
+          results.add(CompletableFuture.completedFuture(withoutPayload(head.msg)));
+          retained++;
+        }
+      } catch (ExecutionException e) {
+        log.trace("Failed to process split message {}", head.msg.getUniqueId(), e);
+        CompletableFuture<AdaptrisMessage> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e.getCause());
+        results.add(failed);
+      } catch (TimeoutException e) {
+        cancelAll(head);
+        return null;
+      }
+      return head.msg;
+    }
+
+    // If the aggregator gives up, there's no point finishing the rest.
+    void cancel() {
+      for (InFlight f : inFlight) {
+        f.future.cancel(true);
+      }
+      inFlight.clear();
+      finished = true;
+    }
+
+    private void cancelAll(InFlight head) {
+      inFlight.addFirst(head);
+      for (InFlight f : inFlight) {
+        f.future.cancel(true);
+        CompletableFuture<AdaptrisMessage> cancelled = new CompletableFuture<>();
+        cancelled.cancel(true);
+        results.add(cancelled);
+      }
+      inFlight.clear();
+      finished = true;
+    }
+
+    // The exception strategy only needs the metadata; don't hold on to the payload.
+    private AdaptrisMessage withoutPayload(AdaptrisMessage msg) {
+      AdaptrisMessage result = AdaptrisMessageFactory.getDefaultInstance().newMessage();
+      result.setUniqueId(msg.getUniqueId());
+      result.setMetadata(msg.getMetadata());
+      return result;
+    }
+  }
+
+  private static class InFlight {
+    private final AdaptrisMessage msg;
+    private final Future<AdaptrisMessage> future;
+
+    InFlight(AdaptrisMessage msg, Future<AdaptrisMessage> future) {
+      this.msg = msg;
+      this.future = future;
+    }
+  }
+
   /**
    * @return the timeToLive
    */
@@ -334,6 +604,112 @@ public class SplitJoinService extends ServiceImp implements EventHandlerAware, S
     sendEvents = b;
   }
 
+  /**
+   * @return whether the configured service is shared across all the split messages.
+   * @since 3.11.0
+   */
+  public Boolean getShareService() {
+    return shareService;
+  }
+
+  /**
+   * Whether or not to use the configured service for all split messages rather than a new copy for each split message.
+   * <p>
+   * Only set this to true if the configured service is thread-safe, since it will be used concurrently; it is initialised and
+   * started when this service is, rather than once per split message.
+   * </p>
+   *
+   * @param b true to share the service (default false).
+   * @since 3.11.0
+   */
+  public void setShareService(Boolean b) {
+    shareService = b;
+  }
+
+  public <T extends SplitJoinService> T withShareService(Boolean b) {
+    setShareService(b);
+    return (T) this;
+  }
+
+  /**
+   * @return the maximum number of split messages in flight when streaming.
+   * @since 3.11.0
+   */
+  public Integer getStreamingWindow() {
+    return streamingWindow;
+  }
+
+  /**
+   * Process split messages as they are produced with at most this many in flight at any one time.
+   * <p>
+   * If not specified (the default) then all the split messages are created up front, and aggregated only once all of them have
+   * been processed. The timeout still applies to the service as a whole.
+   * </p>
+   *
+   * @param i the maximum number of split messages in flight.
+   * @since 3.11.0
+   */
+  public void setStreamingWindow(Integer i) {
+    streamingWindow = i;
+  }
+
+  public <T extends SplitJoinService> T withStreamingWindow(Integer i) {
+    setStreamingWindow(i);
+    return (T) this;
+  }
+
+  public Integer getMaxThreads() {
+    return maxThreads;
+  }
+
+  /**
+   * Set the max number of threads to handle the execution of the split messages.
+   * <p>
+   * Ignored if {@link #setExecutorConnection(AdaptrisConnection)} is specified.
+   * </p>
+   *
+   * @param size the max number of threads; if not specified, then a new thread is used for each split message.
+   */
+  public void setMaxThreads(Integer size) {
+    maxThreads = size;
+  }
+
+  public <T extends SplitJoinService> T withMaxThreads(Integer max) {
+    setMaxThreads(max);
+    return (T) this;
+  }
+
+  /**
+   * @return the connection providing the thread pool.
+   * @since 3.11.0
+   */
+  public AdaptrisConnection getExecutorConnection() {
+    return executorConnection;
+  }
+
+  /**
+   * Use the thread pool provided by a {@link BoundedExecutorConnection} to process split messages.
+   * <p>
+   * Use a {@link com.adaptris.core.SharedConnection} to share the thread pool with other services; the thread pool is then not
+   * shut down when this service is closed.
+   * </p>
+   *
+   * @param c the connection, which must be (or refer to) a {@link BoundedExecutorConnection}.
+   * @since 3.11.0
+   */
+  public void setExecutorConnection(AdaptrisConnection c) {
+    executorConnection = c;
+  }
+
+  public <T extends SplitJoinService> T withExecutorConnection(AdaptrisConnection c) {
+    setExecutorConnection(c);
+    return (T) this;
+  }
+
+  boolean shareService() {
+    return BooleanUtils.toBooleanDefaultIfNull(getShareService(), false);
+  }
+
   protected AdaptrisMessage sendEvents(AdaptrisMessage msg) throws CoreException {
     if (eventHandler != null && sendEvents()) {
       eventHandler.send(msg.getMessageLifecycleEvent(), msg.getMessageHeaders());
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core.services.splitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.constraints.NotBlank;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+import org.apache.commons.lang3.StringUtils;
+import com.adaptris.annotation.AdvancedConfig;
+import com.adaptris.annotation.ComponentProfile;
+import com.adaptris.annotation.DisplayOrder;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.CoreException;
+import com.adaptris.core.util.ExceptionHelper;
+import com.adaptris.core.util.XmlHelper;
+import com.adaptris.interlok.util.CloseableIterable;
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+
+/**
+ * Implementation of {@link MessageSplitter} which splits an XML document into its repeating elements without building a DOM.
+ * <p>
+ * The document is read from {@link AdaptrisMessage#getInputStream()} using StAX, and each split message is created on demand as
+ * the resulting {@link CloseableIterable} is iterated; only the element currently being written is ever in memory, so this is
+ * suitable for very large documents that {@link XpathMessageSplitter} cannot handle.
+ * </p>
+ * <p>
+ * Rather than an XPath, the repeating element is identified by a simple absolute path such as <code>/envelope/document</code>;
+ * each step is matched against the local name of the element (any namespace prefix in the path is ignored), and {@code *}
+ * matches any element. Predicates, {@code //} and other XPath axes are not supported. Namespaces declared on ancestors of the
+ * repeating element are declared on the root element of each split message as required. Given the following input document:
+ *
+ * <pre>
+ * {@code
+ * <envelope>
+ *   <document>one</document>
+ *   <document>two</document>
+ *   <document>three</document>
+ * </envelope>
+ * }
+ * </pre> then the path <code>/envelope/document</code> will create 3 documents each of which will only contain the
+ * <code><document></code> element.
+ * </p>
+ *
+ * @config stax-path-splitter
+ * @since 3.11.0
+ */
+@XStreamAlias("stax-path-splitter")
+@ComponentProfile(summary = "Split a large XML document into its repeating elements using StAX", tag = "splitter,xml",
+    since = "3.11.0")
+@DisplayOrder(order = {"path", "encoding", "copyMetadata", "copyObjectMetadata"})
+public class StaxPathSplitter extends MessageSplitterImp {
+
+  @NotBlank
+  private String path;
+  @AdvancedConfig
+  private String encoding;
+
+  public StaxPathSplitter() {
+  }
+
+  public StaxPathSplitter(String path) {
+    this();
+    setPath(path);
+  }
+
+  @Override
+  public CloseableIterable<AdaptrisMessage> splitMessage(AdaptrisMessage msg) throws CoreException {
+    try {
+      return new StaxSplitGenerator(msg, parsePath(getPath()));
+    }
+    catch (Exception e) {
+      throw ExceptionHelper.wrapCoreException(e);
+    }
+  }
+
+  private static List<String> parsePath(String path) throws CoreException {
+    if (StringUtils.isBlank(path) || !path.startsWith("/") || path.startsWith("//")) {
+      throw new CoreException("[" + path + "] is not an absolute path");
+    }
+    List<String> result = new ArrayList<>();
+    for (String step : path.substring(1).split("/")) {
+      if (StringUtils.isBlank(step) || StringUtils.containsAny(step, "[]()@")) {
+        throw new CoreException("[" + path + "] is not a simple path");
+      }
+      result.add(step.contains(":") ? StringUtils.substringAfter(step, ":") : step);
+    }
+    return result;
+  }
+
+  /**
+   * Set the path to the repeating element.
+   *
+   * @param s the path e.g. {@code /envelope/document}.
+   */
+  public void setPath(String s) {
+    path = s;
+  }
+
+  /**
+   * Get the path to the repeating element.
+   *
+   * @return the path.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Sets the encoding to use on the output XML docs.
+   *
+   * @param charSet the encoding; if not specified then the content encoding of the message is used, or UTF-8 if that is not set.
+   */
+  public void setEncoding(String charSet) {
+    encoding = charSet;
+  }
+
+  /**
+   * Gets the encoding used by this splitter
+   *
+   * @return the encoding.
+   */
+  public String getEncoding() {
+    return encoding;
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    return factory;
+  }
+
+  private static XMLOutputFactory createOutputFactory() {
+    XMLOutputFactory factory = XMLOutputFactory.newFactory();
+    // So that namespaces declared by ancestors are declared in the split document.
+    factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.TRUE);
+    return factory;
+  }
+
+  private class StaxSplitGenerator extends SplitMessageIterator {
+    private final List<String> steps;
+    private final List<String> elements = new ArrayList<>();
+    private final InputStream input;
+    private final XMLEventReader reader;
+    private final XMLOutputFactory outputFactory = createOutputFactory();
+    private final XMLEventFactory eventFactory = XMLEventFactory.newFactory();
+    private final String encoding;
+    private int numberOfMessages;
+
+    StaxSplitGenerator(AdaptrisMessage msg, List<String> steps) throws IOException, XMLStreamException {
+      super(msg, selectFactory(msg));
+      this.steps = steps;
+      encoding = XmlHelper.getXmlEncoding(msg, getEncoding());
+      input = msg.getInputStream();
+      try {
+        reader = createInputFactory().createXMLEventReader(input);
+      }
+      catch (XMLStreamException e) {
+        input.close();
+        throw e;
+      }
+    }
+
+    @Override
+    protected AdaptrisMessage constructAdaptrisMessage() throws Exception {
+      while (reader.hasNext()) {
+        XMLEvent event = reader.nextEvent();
+        if (event.isStartElement()) {
+          elements.add(event.asStartElement().getName().getLocalPart());
+          if (matches()) {
+            return split(event);
+          }
+        }
+        else if (event.isEndElement()) {
+          elements.remove(elements.size() - 1);
+        }
+      }
+      return null;
+    }
+
+    private boolean matches() {
+      if (elements.size() != steps.size()) {
+        return false;
+      }
+      for (int i = 0; i < steps.size(); i++) {
+        if (!"*".equals(steps.get(i)) && !steps.get(i).equals(elements.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private AdaptrisMessage split(XMLEvent start) throws IOException, XMLStreamException {
+      AdaptrisMessage splitMsg = factory.newMessage();
+      splitMsg.setContentEncoding(encoding);
+      try (OutputStream out = splitMsg.getOutputStream()) {
+        XMLEventWriter writer = outputFactory.createXMLEventWriter(out, encoding);
+        writer.add(eventFactory.createStartDocument(encoding, "1.0"));
+        writer.add(start);
+        int depth = 1;
+        while (depth > 0) {
+          XMLEvent event = reader.nextEvent();
+          if (event.isStartElement()) {
+            depth++;
+          }
+          else if (event.isEndElement()) {
+            depth--;
+          }
+          writer.add(event);
+        }
+        writer.add(eventFactory.createEndDocument());
+        writer.close();
+      }
+      elements.remove(elements.size() - 1);
+      copyMetadata(msg, splitMsg);
+      numberOfMessages++;
+      return splitMsg;
+    }
+
+    @Override
+    public void close() throws IOException {
+      logR.trace("Split gave {} messages", numberOfMessages);
+      try {
+        reader.close();
+      }
+      catch (XMLStreamException e) {
+        logR.trace("Ignoring exception closing reader", e);
+      }
+      input.close();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core.transform;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javax.xml.transform.Templates;
+
+/**
+ * Process wide cache of compiled {@link Templates}, shared by every {@link XmlTransformService}.
+ * <p>
+ * A {@link Templates} object is thread-safe, so each stylesheet only needs to be parsed and compiled
+ * once; every thread then creates its own (cheap) {@link javax.xml.transform.Transformer} from it.
+ * The cache is bounded, the least recently used entry being discarded when it is full. If more than
+ * one thread asks for the same stylesheet while it is being compiled, then only one of them
+ * compiles it, and the others wait for the result.
+ * </p>
+ */
+final class TemplatesCache {
+
+  static final int MAX_ENTRIES = 256;
+
+  private static final Map<String, Entry> CACHE = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    private static final long serialVersionUID = 2019111801L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  private TemplatesCache() {
+  }
+
+  /**
+   * Get the compiled stylesheet associated with the key, compiling it if required.
+   *
+   * @param key the key, which should include the url and the configuration of the factory.
+   * @param timeToLive how long (ms) an entry is valid for; 0 or less means forever.
+   * @param compiler used to compile the stylesheet if there is no valid entry.
+   * @return the compiled stylesheet.
+   */
+  static Templates get(String key, long timeToLive, Callable<Templates> compiler) throws Exception {
+    FutureTask<Templates> compile = null;
+    Entry entry;
+    synchronized (CACHE) {
+      entry = CACHE.get(key);
+      if (entry == null || entry.expired(timeToLive)) {
+        compile = new FutureTask<>(compiler);
+        entry = new Entry(compile);
+        CACHE.put(key, entry);
+      }
+    }
+    if (compile != null) {
+      compile.run();
+    }
+    try {
+      return entry.templates.get();
+    }
+    catch (ExecutionException e) {
+      // Don't cache failures; the next attempt should try again.
+      synchronized (CACHE) {
+        CACHE.remove(key, entry);
+      }
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  static int size() {
+    synchronized (CACHE) {
+      return CACHE.size();
+    }
+  }
+
+  static void clear() {
+    synchronized (CACHE) {
+      CACHE.clear();
+    }
+  }
+
+  private static class Entry {
+    private final FutureTask<Templates> templates;
+    private final long created = System.currentTimeMillis();
+
+    Entry(FutureTask<Templates> t) {
+      templates = t;
+    }
+
+    boolean expired(long timeToLive) {
+      return timeToLive > 0 && System.currentTimeMillis() - created >= timeToLive;
+    }
+  }
+}
@@ -21,10 +21,12 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 
 import org.apache.commons.lang3.BooleanUtils;
@@ -39,8 +41,10 @@ import com.adaptris.annotation.InputFieldDefault;
 import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.CoreConstants;
 import com.adaptris.core.CoreException;
+import com.adaptris.core.DefaultMarshaller;
 import com.adaptris.core.ServiceException;
 import com.adaptris.core.ServiceImp;
+import com.adaptris.util.TimeInterval;
 import com.adaptris.util.text.xml.XmlTransformer;
 import com.adaptris.util.text.xml.XmlTransformerFactory;
 import com.adaptris.util.text.xml.XsltTransformerFactory;
@@ -57,6 +61,14 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
  * <p>
  * Configuration including allow over-ride behaviour matches previous implementation.
  * </p>
+ * <p>
+ * If transforms are cached, then each stylesheet is compiled once into a {@link Templates} object, which is held in a bounded
+ * cache that is shared by every instance of this service (keyed by the URL and the configuration of the transformer factory); each
+ * thread then creates its own {@link Transformer} from the compiled stylesheet. If you are using {@link #getAllowOverride()} with
+ * stylesheets that change, then configure {@link #setCacheTimeToLive(TimeInterval)} so that they are periodically recompiled. If the
+ * {@link XmlTransformerFactory} does not support {@link Templates}, then each thread simply keeps the {@link Transformer} that it
+ * created.
+ * </p>
  * 
  * @config xml-transform-service
  * 
@@ -64,8 +76,8 @@ import com.thoughtworks.xstream.annotations.XStreamAlias;
 @XStreamAlias("xml-transform-service")
 @AdapterComponent
 @ComponentProfile(summary = "Execute an XSLT transform", tag = "service,transform,xml")
-@DisplayOrder(order = {"url", "outputMessageEncoding", "cacheTransforms", "allowOverride", "metadataKey", "transformParameter",
-    "xmlTransformerFactory"})
+@DisplayOrder(order = {"url", "outputMessageEncoding", "cacheTransforms", "cacheTimeToLive", "allowOverride", "metadataKey",
+    "transformParameter", "xmlTransformerFactory"})
 public class XmlTransformService extends ServiceImp {
 
   // marshalled
@@ -77,6 +89,8 @@ public class XmlTransformService extends ServiceImp {
   @InputFieldDefault(value = "true")
   private Boolean cacheTransforms;
   @AdvancedConfig
+  private TimeInterval cacheTimeToLive;
+  @AdvancedConfig
   @InputFieldDefault(value = "false")
   private Boolean allowOverride;
 
@@ -89,7 +103,8 @@ public class XmlTransformService extends ServiceImp {
   @Valid
   private XmlTransformParameter transformParameter;
 
-  private transient HashMap<String, Transformer> transforms = null;
+  private transient ThreadLocal<Map<String, CachedTransformer>> transforms;
+  private transient volatile FactoryKey factoryKey;
   // This is the override value which is set to true if url is null
   private transient Boolean overrideAllowOverride;
 
@@ -102,7 +117,7 @@ public class XmlTransformService extends ServiceImp {
   public XmlTransformService() {
     setMetadataKey(CoreConstants.TRANSFORM_OVERRIDE);
     xmlTransformerFactory = new XsltTransformerFactory();
-    this.setTransforms(new HashMap<String, Transformer>());
+    transforms = newTransformsCache();
   }
 
   @Override
@@ -117,6 +132,8 @@ public class XmlTransformService extends ServiceImp {
 
   @Override
   protected void closeService() {
+    // Discard every thread's transformers, not just this one.
+    transforms = newTransformsCache();
   }
 
   /**
@@ -192,12 +209,50 @@ public class XmlTransformService extends ServiceImp {
   }
 
   protected Transformer cacheAndGetTransformer(String urlToUse, XmlTransformerFactory xmlTransformerFactory) throws Exception {
-    if (this.getTransforms().containsKey(urlToUse)) return this.getTransforms().get(urlToUse);
-    else {
-      Transformer transformer = xmlTransformerFactory.createTransformer(urlToUse);
-      this.getTransforms().put(urlToUse, transformer);
-      return transformer;
+    FactoryKey key = factoryKey(xmlTransformerFactory);
+    Map<String, CachedTransformer> threadTransforms = transforms.get();
+    CachedTransformer cached = threadTransforms.get(urlToUse);
+    if (!xmlTransformerFactory.supportsTemplates()) {
+      return createdByThread(threadTransforms, cached, urlToUse, xmlTransformerFactory);
+    }
+    Templates templates = TemplatesCache.get(key.key + urlToUse, cacheTimeToLiveMs(),
+        () -> xmlTransformerFactory.createTemplates(urlToUse));
+    // If the shared entry has been recompiled (or evicted), then our transformer is stale.
+    if (cached == null || cached.templates != templates) {
+      cached = new CachedTransformer(templates, templates.newTransformer());
+      threadTransforms.put(urlToUse, cached);
+    }
+    return cached.transformer;
+  }
+
+  // Factories that can't compile Templates; each thread keeps the transformer it created.
+  private static Transformer createdByThread(Map<String, CachedTransformer> threadTransforms, CachedTransformer cached,
+      String urlToUse, XmlTransformerFactory xmlTransformerFactory) throws Exception {
+    if (cached == null) {
+      cached = new CachedTransformer(null, xmlTransformerFactory.createTransformer(urlToUse));
+      threadTransforms.put(urlToUse, cached);
+    }
+    return cached.transformer;
+  }
+
+  private FactoryKey factoryKey(XmlTransformerFactory factory) throws CoreException {
+    FactoryKey key = factoryKey;
+    if (key == null || key.factory != factory) {
+      key = new FactoryKey(factory, DefaultMarshaller.getDefaultMarshaller().marshal(factory));
+      factoryKey = key;
     }
+    return key;
+  }
+
+  private static ThreadLocal<Map<String, CachedTransformer>> newTransformsCache() {
+    return ThreadLocal.withInitial(() -> new LinkedHashMap<String, CachedTransformer>(16, 0.75f, true) {
+      private static final long serialVersionUID = 2019111801L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedTransformer> eldest) {
+        return size() > TemplatesCache.MAX_ENTRIES;
+      }
+    });
   }
 
   // properties...
@@ -282,6 +337,32 @@ public class XmlTransformService extends ServiceImp {
     return BooleanUtils.toBooleanDefaultIfNull(getCacheTransforms(), true);
   }
 
+  /**
+   * Returns how long a compiled XSLT is cached for.
+   * 
+   * @see #setCacheTimeToLive(TimeInterval)
+   */
+  public TimeInterval getCacheTimeToLive() {
+    return cacheTimeToLive;
+  }
+
+  /**
+   * Sets how long a compiled XSLT is cached for before it is read and compiled again.
+   * <p>
+   * Only has an effect if {@link #getCacheTransforms()} is true. This is useful if {@link #getAllowOverride()} is true (or the URL
+   * is derived from metadata) and the XSLTs themselves may be changed while the adapter is running.
+   * </p>
+   * 
+   * @param t how long to cache XSLTs for; if not specified then they are cached until evicted (the cache holds up to 256 XSLTs).
+   */
+  public void setCacheTimeToLive(TimeInterval t) {
+    cacheTimeToLive = t;
+  }
+
+  long cacheTimeToLiveMs() {
+    return TimeInterval.toMillisecondsDefaultIfNull(getCacheTimeToLive(), 0L);
+  }
+
   /**
    * <p>
    * Returns true if a configured XSLT URL may be over-ridden by one stored against a metadata key.
@@ -356,11 +437,34 @@ public class XmlTransformService extends ServiceImp {
     return getTransformParameter() != null ? getTransformParameter() : new IgnoreMetadataParameter();
   }
 
-  HashMap<String, Transformer> getTransforms() {
-    return transforms;
+  /**
+   * The transformers created by the current thread.
+   */
+  Map<String, Transformer> getTransforms() {
+    Map<String, Transformer> result = new HashMap<>();
+    for (Map.Entry<String, CachedTransformer> e : transforms.get().entrySet()) {
+      result.put(e.getKey(), e.getValue().transformer);
+    }
+    return result;
   }
 
-  void setTransforms(HashMap<String, Transformer> transforms) {
-    this.transforms = transforms;
+  private static class CachedTransformer {
+    private final Templates templates;
+    private final Transformer transformer;
+
+    CachedTransformer(Templates templates, Transformer transformer) {
+      this.templates = templates;
+      this.transformer = transformer;
+    }
+  }
+
+  private static class FactoryKey {
+    private final XmlTransformerFactory factory;
+    private final String key;
+
+    FactoryKey(XmlTransformerFactory factory, String key) {
+      this.factory = factory;
+      this.key = key;
+    }
   }
 }
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -93,6 +94,23 @@ public class ManagedThreadFactory implements ThreadFactory {
     }
   }
 
+  /**
+   * Create an {@link ExecutorService} that starts a new virtual thread for each task.
+   * <p>
+   * Virtual threads are only available on Java 21 or later; since we still target earlier JVMs, the method is looked up
+   * reflectively.
+   * </p>
+   * 
+   * @return the executor, or null if the JVM does not support virtual threads.
+   */
+  public static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
   public static List<Runnable> shutdownQuietly(ExecutorService executor, TimeInterval timeout) {
     return shutdownQuietly(executor, timeout.toMilliseconds());
   }
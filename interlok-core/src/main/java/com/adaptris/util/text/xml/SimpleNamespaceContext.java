@@ -155,5 +155,19 @@ public abstract class SimpleNamespaceContext {
     private boolean isNull(Object value) {
       return null == value;
     }
+
+    // Equal contexts compile XPath expressions identically, so XPath can cache them.
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      return o instanceof NamespaceContextMap && prefixMap.equals(((NamespaceContextMap) o).prefixMap);
+    }
+
+    @Override
+    public int hashCode() {
+      return prefixMap.hashCode();
+    }
   }
 }
@@ -16,6 +16,7 @@
 
 package com.adaptris.util.text.xml;
 
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.stream.StreamSource;
 
@@ -53,6 +54,16 @@ public class StxTransformerFactory extends XmlTransformerFactoryImpl {
     return this.createTransformer(url);
   }
 
+  @Override
+  public boolean supportsTemplates() {
+    return true;
+  }
+
+  @Override
+  public Templates createTemplates(String xsl) throws Exception {
+    return configure(new TransformerFactoryImpl()).newTemplates(new StreamSource(xsl));
+  }
+
   @Override
   public XmlTransformer configure(XmlTransformer xmlTransformer) throws Exception {
     return xmlTransformer;
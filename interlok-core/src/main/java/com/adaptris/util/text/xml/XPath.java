@@ -19,9 +19,14 @@ package com.adaptris.util.text.xml;
 import static org.apache.commons.lang3.BooleanUtils.toBooleanDefaultIfNull;
 import static org.apache.commons.lang3.BooleanUtils.toBooleanObject;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
@@ -34,6 +39,11 @@ import com.adaptris.core.util.DocumentBuilderFactoryBuilder;
 
 /**
  * Wrapper around {@link javax.xml.xpath.XPath}/
+ * <p>
+ * Neither {@link XPathFactory} nor {@link XPathExpression} are thread-safe, so each thread has its own default factories, and its
+ * own bounded cache of compiled expressions (keyed by the factory, namespace context and expression); creating a new instance of
+ * this class for each document is cheap, and evaluating a previously seen expression does not compile it again.
+ * </p>
  * 
  * @author Stuart Ellidge
  * 
@@ -70,11 +80,30 @@ public class XPath {
       "net.sf.saxon.xpath.XPathFactoryImpl"
   };
 
+  private static final int MAX_CACHED_EXPRESSIONS = 512;
+
+  private static final ThreadLocal<XPathFactory> DEFAULT_FACTORY = ThreadLocal.withInitial(() -> newXPathFactory());
+  private static final ThreadLocal<XPathFactory> JAXP_FACTORY = ThreadLocal.withInitial(() -> XPathFactory.newInstance());
+
+  private static final ThreadLocal<Map<ExpressionKey, XPathExpression>> EXPRESSIONS = ThreadLocal
+      .withInitial(() -> new LinkedHashMap<ExpressionKey, XPathExpression>(16, 0.75f, true) {
+        private static final long serialVersionUID = 2019111801L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ExpressionKey, XPathExpression> eldest) {
+          return size() > MAX_CACHED_EXPRESSIONS;
+        }
+      });
+
+  // Saxon is found (or not) once, rather than every time we need a factory.
+  private static volatile Class<?> saxonFactoryClass;
+  private static volatile boolean saxonSearched;
+
   private transient XPathFactory xpathFactory;
   private transient javax.xml.xpath.XPath xpathToUse;
   
   public XPath() {
-    xpathFactory = newXPathFactory();
+    xpathFactory = DEFAULT_FACTORY.get();
   }
 
   public XPath(NamespaceContext ctx) {
@@ -83,7 +112,6 @@ public class XPath {
   }
 
   public XPath(NamespaceContext ctx, XPathFactory factory) {
-    this();
     context = ctx;
     xpathFactory = Args.notNull(factory, "xpathFactory");
   }
@@ -98,6 +126,17 @@ public class XPath {
     return xpathToUse;
   }
 
+  private XPathExpression compile(String xpath) throws XPathExpressionException {
+    ExpressionKey key = new ExpressionKey(xpathFactory, context, xpath);
+    Map<ExpressionKey, XPathExpression> cache = EXPRESSIONS.get();
+    XPathExpression result = cache.get(key);
+    if (result == null) {
+      result = createXpath().compile(xpath);
+      cache.put(key, result);
+    }
+    return result;
+  }
+
   /**
    * returns the string value contained in an element returned by an XPath
    *
@@ -108,7 +147,7 @@ public class XPath {
    */
   public String selectSingleTextItem(Node context, String xpath)
       throws XPathExpressionException {
-    return (String) createXpath().evaluate(xpath, context, XPathConstants.STRING);
+    return (String) compile(xpath).evaluate(context, XPathConstants.STRING);
   }
 
   /**
@@ -156,7 +195,7 @@ public class XPath {
    */
   public NodeList selectNodeList(Node context, String xpath)
       throws XPathExpressionException {
-    return (NodeList) createXpath().evaluate(xpath, context, XPathConstants.NODESET);
+    return (NodeList) compile(xpath).evaluate(context, XPathConstants.NODESET);
   }
 
   /**
@@ -169,7 +208,7 @@ public class XPath {
    */
   public Node selectSingleNode(Node context, String xpath)
       throws XPathExpressionException {
-    return (Node) createXpath().evaluate(xpath, context, XPathConstants.NODE);
+    return (Node) compile(xpath).evaluate(context, XPathConstants.NODE);
   }
 
   /**
@@ -264,11 +303,10 @@ public class XPath {
    */
   public static XPath newXPathInstance(DocumentBuilderFactoryBuilder builder, NamespaceContext namespaceCtx) {
     // INTERLOK-2255
-    XPath xpathToUse = new XPath(namespaceCtx);
     if (builder != null && BooleanUtils.isFalse(builder.getNamespaceAware())) {
-      xpathToUse = new XPath(namespaceCtx, XPathFactory.newInstance());
+      return new XPath(namespaceCtx, JAXP_FACTORY.get());
     }
-    return xpathToUse;
+    return new XPath(namespaceCtx);
   }
 
   /**
@@ -276,24 +314,78 @@ public class XPath {
    */
   public static XPath newXPathInstance(DocumentBuilderFactory builder, NamespaceContext namespaceCtx) {
     // INTERLOK-2255
-    XPath xpathToUse = new XPath(namespaceCtx);
     if (builder != null && !builder.isNamespaceAware()) {
-      xpathToUse = new XPath(namespaceCtx, XPathFactory.newInstance());
+      return new XPath(namespaceCtx, JAXP_FACTORY.get());
     }
-    return xpathToUse;
+    return new XPath(namespaceCtx);
   }
 
   static XPathFactory build(boolean useSaxon) {
     if (useSaxon) {
-      for (String clazz : SAXON_XPATH_FACTORIES) {
-        try {
-          return (XPathFactory) Class.forName(clazz).newInstance();
-        } catch (Exception e) {
-          
-        }
+      XPathFactory saxon = newSaxonFactory();
+      if (saxon != null) {
+        return saxon;
       }
     }
     return XPathFactory.newInstance();
   }
 
+  // Remember the first Saxon edition that both loads and instantiates (EE/PE may be present but
+  // unusable), falling back through the editions as before if that stops working.
+  private static XPathFactory newSaxonFactory() {
+    Class<?> cached = saxonFactoryClass;
+    if (cached != null) {
+      try {
+        return (XPathFactory) cached.newInstance();
+      } catch (Exception e) {
+        
+      }
+    }
+    else if (saxonSearched) {
+      return null;
+    }
+    for (String clazz : SAXON_XPATH_FACTORIES) {
+      try {
+        Class<?> c = Class.forName(clazz);
+        XPathFactory result = (XPathFactory) c.newInstance();
+        saxonFactoryClass = c;
+        return result;
+      } catch (Exception | LinkageError e) {
+        
+      }
+    }
+    saxonFactoryClass = null;
+    saxonSearched = true;
+    return null;
+  }
+
+  private static class ExpressionKey {
+    private final XPathFactory factory;
+    private final NamespaceContext context;
+    private final String expression;
+
+    ExpressionKey(XPathFactory factory, NamespaceContext context, String expression) {
+      this.factory = factory;
+      this.context = context;
+      this.expression = expression;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof ExpressionKey)) {
+        return false;
+      }
+      ExpressionKey other = (ExpressionKey) o;
+      return factory == other.factory && Objects.equals(context, other.context) && expression.equals(other.expression);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(System.identityHashCode(factory), context, expression);
+    }
+  }
+
 }
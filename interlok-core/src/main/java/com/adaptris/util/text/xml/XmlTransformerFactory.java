@@ -16,6 +16,7 @@
 
 package com.adaptris.util.text.xml;
 
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 
 import org.xml.sax.EntityResolver;
@@ -25,6 +26,37 @@ public interface XmlTransformerFactory {
   Transformer createTransformer(String transformUrl) throws Exception;
   
   Transformer createTransformer(String transformUrl, EntityResolver entityResolver) throws Exception;
+
+  /**
+   * Compile the transform into a {@link Templates} object.
+   * <p>
+   * Unlike a {@link Transformer}, a {@link Templates} object is thread-safe and may be shared; creating a new {@link Transformer}
+   * from it is cheap as it does not involve parsing or compiling the transform again.
+   * </p>
+   * <p>
+   * Only called if {@link #supportsTemplates()} returns true.
+   * </p>
+   * 
+   * @param transformUrl the url of the transform.
+   * @throws UnsupportedOperationException if the factory cannot create a {@link Templates} object.
+   * @since 3.11.0
+   * @implNote The default implementation throws {@link UnsupportedOperationException}.
+   */
+  default Templates createTemplates(String transformUrl) throws Exception {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support Templates");
+  }
+
+  /**
+   * Whether or not this factory can create a {@link Templates} object.
+   * 
+   * @since 3.11.0
+   * @implNote The default implementation returns false; in which case
+   *           {@link com.adaptris.core.transform.XmlTransformService} uses
+   *           {@link #createTransformer(String)} instead of {@link #createTemplates(String)}.
+   */
+  default boolean supportsTemplates() {
+    return false;
+  }
   
   XmlTransformer configure(XmlTransformer xmlTransformer) throws Exception;
 }
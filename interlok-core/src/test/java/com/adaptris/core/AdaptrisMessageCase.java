@@ -24,6 +24,7 @@ import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.Reader;
@@ -38,6 +39,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -254,6 +259,40 @@ public abstract class AdaptrisMessageCase {
     assertTrue(msg1.getMetadataValue("$$RefKey").equals("val999"));
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddReferencedMetadata_NotResolved() throws Exception {
+    AdaptrisMessage msg1 = createMessage();
+    msg1.addMetadata("$$RefKey", "val999");
+  }
+
+  @Test
+  public void testMetadata_ConcurrentAccess() throws Exception {
+    final AdaptrisMessage msg1 = createMessage();
+    final int count = 1000;
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> writer = executor.submit(() -> {
+        for (int i = 0; i < count; i++) {
+          msg1.addMetadata("concurrent" + i, "value" + i);
+          msg1.removeMessageHeader("concurrent" + (i - 1));
+        }
+      });
+      Future<?> reader = executor.submit(() -> {
+        while (!writer.isDone()) {
+          assertEquals(VAL2, msg1.getMetadataValue(KEY2));
+          msg1.getMetadata();
+          msg1.getMessageHeaders();
+        }
+      });
+      writer.get(30, TimeUnit.SECONDS);
+      reader.get(30, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals("value" + (count - 1), msg1.getMetadataValue("concurrent" + (count - 1)));
+    assertFalse(msg1.headersContainsKey("concurrent" + (count - 2)));
+  }
+
   @Test
   public void testGetMetadataElement() throws Exception {
     AdaptrisMessage msg1 = createMessage();
@@ -405,6 +444,37 @@ public abstract class AdaptrisMessageCase {
     }
   }
 
+  @Test
+  public void testCloneMessage_MetadataIsIndependent() throws Exception {
+    AdaptrisMessage msg1 = createMessage();
+    AdaptrisMessage msg2 = (AdaptrisMessage) msg1.clone();
+    AdaptrisMessage msg3 = (AdaptrisMessage) msg1.clone();
+    msg2.addMetadata(KEY1, "changed");
+    msg2.addMetadata("newKey", "newValue");
+    msg1.removeMessageHeader(KEY2);
+    assertEquals(VAL1, msg1.getMetadataValue(KEY1));
+    assertFalse(msg1.headersContainsKey("newKey"));
+    assertFalse(msg1.headersContainsKey(KEY2));
+    assertEquals("changed", msg2.getMetadataValue(KEY1));
+    assertEquals("newValue", msg2.getMetadataValue("newKey"));
+    assertTrue(msg2.headersContainsKey(KEY2));
+    assertEquals(createMetadata(), msg3.getMetadata());
+    assertEquals(VAL2, msg3.getMetadataValue(KEY2));
+  }
+
+  @Test
+  public void testGetMetadata_IsCopy() throws Exception {
+    AdaptrisMessage msg1 = createMessage();
+    Set<MetadataElement> metadata = msg1.getMetadata();
+    metadata.add(new MetadataElement("newKey", "newValue"));
+    for (MetadataElement e : metadata) {
+      e.setValue("changed");
+    }
+    assertFalse(msg1.headersContainsKey("newKey"));
+    assertEquals(VAL1, msg1.getMetadataValue(KEY1));
+    assertEquals(createMetadata(), msg1.getMetadata());
+  }
+
   @Test
   public void testEquivalentForTracking() throws Exception {
     AdaptrisMessage msg1 = createMessage();
@@ -508,6 +578,44 @@ public abstract class AdaptrisMessageCase {
     assertEquals(PAYLOAD2, msg1.getContent());
   }
 
+  @Test
+  public void testOutputStream_WithSizeHint() throws Exception {
+    AdaptrisMessage msg1 = createMessage();
+    byte[] bytes = PAYLOAD2.getBytes();
+    try (OutputStream out = msg1.getOutputStream(bytes.length)) {
+      out.write(bytes);
+    }
+    assertEquals(PAYLOAD2, msg1.getContent());
+    assertEquals(bytes.length, msg1.getSize());
+    // A bad hint is just a hint.
+    try (OutputStream out = msg1.getOutputStream(1)) {
+      out.write(bytes);
+    }
+    assertEquals(PAYLOAD2, msg1.getContent());
+    // An absurd hint (e.g. from a Content-Length header) doesn't allocate that much up front.
+    try (OutputStream out = msg1.getOutputStream(Integer.MAX_VALUE - 1L)) {
+      out.write(bytes);
+    }
+    assertEquals(PAYLOAD2, msg1.getContent());
+    assertEquals(bytes.length, msg1.getSize());
+  }
+
+  @Test
+  public void testGetPayloadView() throws Exception {
+    AdaptrisMessage msg1 = createMessage();
+    ByteBuffer view = msg1.getPayloadView();
+    assertTrue(view.isReadOnly());
+    assertEquals(msg1.getSize(), view.remaining());
+    byte[] bytes = new byte[view.remaining()];
+    view.get(bytes);
+    assertEquals(PAYLOAD, new String(bytes));
+
+    try (PrintStream out = new PrintStream(msg1.getOutputStream())) {
+      out.print(PAYLOAD2);
+    }
+    assertEquals(ByteBuffer.wrap(PAYLOAD2.getBytes()), msg1.getPayloadView());
+  }
+
   @Test
   public void testReader() throws Exception {
     AdaptrisMessage msg1 = createMessage();
@@ -616,6 +724,48 @@ public abstract class AdaptrisMessageCase {
     }
   }
 
+  @Test
+  public void testResolve_MultiLine() throws Exception {
+    AdaptrisMessage msg = createMessage();
+    msg.addMessageHeader("multiLine", "line1\nline2");
+    String expr = "%message{key1}\n%message{key2}";
+    assertEquals(expr, msg.resolve(expr));
+    assertEquals(VAL1 + "\n" + VAL2, msg.resolve(expr, true));
+    // A multi-line value stops any further resolution unless dotAll is set.
+    assertEquals("%message{key1}_line1\nline2", msg.resolve("%message{key1}_%message{multiLine}"));
+    assertEquals(VAL1 + "_line1\nline2", msg.resolve("%message{key1}_%message{multiLine}", true));
+  }
+
+  @Test
+  public void testResolve_NestedExpression() throws Exception {
+    AdaptrisMessage msg = createMessage();
+    msg.addMessageHeader("keyName", "key1");
+    assertEquals(VAL1, msg.resolve("%message{%message{keyName}}"));
+    assertEquals("%message{not a key}_" + VAL2, msg.resolve("%message{not a key}_%message{key2}"));
+    assertEquals("%message{}_" + VAL2, msg.resolve("%message{}_%message{key2}"));
+  }
+
+  @Test
+  public void testResolve_Repeated() throws Exception {
+    AdaptrisMessage msg = createMessage();
+    String expr = "%message{key1}_%message{key2}";
+    for (int i = 0; i < 3; i++) {
+      assertEquals(VAL1 + "_" + VAL2, msg.resolve(expr));
+    }
+    msg.addMessageHeader(KEY1, "changed");
+    assertEquals("changed_" + VAL2, msg.resolve(expr));
+  }
+
+  @Test
+  public void testResolve_TemplateCacheIsBounded() throws Exception {
+    AdaptrisMessage msg = createMessage();
+    for (int i = 0; i < MessageTemplate.MAX_CACHE_SIZE * 2; i++) {
+      assertEquals(VAL1 + "_" + i, msg.resolve("%message{key1}_" + i));
+      assertEquals("no expression " + i, msg.resolve("no expression " + i));
+    }
+    assertTrue(MessageTemplate.cacheSize() <= MessageTemplate.MAX_CACHE_SIZE);
+  }
+
   // INTERLOK-1949 - resolve() should work with MetadataResolver...
   @Test
   public void testResolve_WithIndirection() throws Exception {
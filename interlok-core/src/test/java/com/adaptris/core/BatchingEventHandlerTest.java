@@ -0,0 +1,137 @@
+package com.adaptris.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import com.adaptris.core.event.AdapterCloseEvent;
+import com.adaptris.core.stubs.MockMessageProducer;
+import com.adaptris.core.util.LifecycleHelper;
+import com.adaptris.util.TimeInterval;
+
+public class BatchingEventHandlerTest extends BaseCase {
+
+  @Override
+  public boolean isAnnotatedForJunit4() {
+    return true;
+  }
+
+  @Test
+  public void testSend_BatchSize() throws Exception {
+    MockMessageProducer producer = new MockMessageProducer();
+    BatchingEventHandler eh = createHandler(producer).withBatchSize(5)
+        .withBatchWindow(new TimeInterval(1L, TimeUnit.MINUTES));
+    try {
+      LifecycleHelper.initAndStart(eh);
+      for (int i = 0; i < 10; i++) {
+        eh.send(EventFactory.create(AdapterCloseEvent.class));
+      }
+      waitForMessages(producer, 2);
+    } finally {
+      LifecycleHelper.stopAndClose(eh);
+    }
+    assertEquals(2, producer.messageCount());
+    for (AdaptrisMessage msg : producer.getMessages()) {
+      assertEquals(List.class.getName(), msg.getMetadataValue(CoreConstants.EVENT_CLASS));
+      List<?> events = (List<?>) DefaultMarshaller.getDefaultMarshaller().unmarshal(msg.getContent());
+      assertEquals(5, events.size());
+      assertEquals(AdapterCloseEvent.class, events.get(0).getClass());
+    }
+  }
+
+  @Test
+  public void testSend_BatchWindow() throws Exception {
+    MockMessageProducer producer = new MockMessageProducer();
+    BatchingEventHandler eh = createHandler(producer).withBatchSize(100)
+        .withBatchWindow(new TimeInterval(100L, TimeUnit.MILLISECONDS));
+    try {
+      LifecycleHelper.initAndStart(eh);
+      Event e = EventFactory.create(AdapterCloseEvent.class);
+      eh.send(e);
+      waitForMessages(producer, 1);
+      AdaptrisMessage msg = producer.getMessages().get(0);
+      assertEquals(e.getUniqueId(), msg.getUniqueId());
+      assertEquals(AdapterCloseEvent.class.getName(), msg.getMetadataValue(CoreConstants.EVENT_CLASS));
+      assertEquals(e.getNameSpace(), msg.getMetadataValue(CoreConstants.EVENT_NAME_SPACE_KEY));
+    } finally {
+      LifecycleHelper.stopAndClose(eh);
+    }
+  }
+
+  @Test
+  public void testStop_DrainsQueue() throws Exception {
+    MockMessageProducer producer = new MockMessageProducer();
+    BatchingEventHandler eh = createHandler(producer).withBatchSize(3)
+        .withBatchWindow(new TimeInterval(1L, TimeUnit.MINUTES));
+    LifecycleHelper.initAndStart(eh);
+    for (int i = 0; i < 7; i++) {
+      eh.send(EventFactory.create(AdapterCloseEvent.class));
+    }
+    LifecycleHelper.stopAndClose(eh);
+    int count = 0;
+    for (AdaptrisMessage msg : producer.getMessages()) {
+      Object o = DefaultMarshaller.getDefaultMarshaller().unmarshal(msg.getContent());
+      count += o instanceof List ? ((List<?>) o).size() : 1;
+    }
+    assertEquals(7, count);
+  }
+
+  @Test
+  public void testSend_Discard() throws Exception {
+    MockMessageProducer producer = new MockMessageProducer();
+    BatchingEventHandler eh = createHandler(producer).withQueueSize(1).withBatchSize(1)
+        .withWhenFull(BatchingEventHandler.WhenFull.Discard);
+    try {
+      LifecycleHelper.initAndStart(eh);
+      for (int i = 0; i < 1000; i++) {
+        eh.send(EventFactory.create(AdapterCloseEvent.class));
+      }
+    } finally {
+      LifecycleHelper.stopAndClose(eh);
+    }
+    assertTrue(eh.discardedEvents() > 0);
+    assertEquals(1000, eh.discardedEvents() + producer.messageCount());
+  }
+
+  @Test
+  public void testSend_CompactFormat() throws Exception {
+    MockMessageProducer producer = new MockMessageProducer();
+    BatchingEventHandler eh = createHandler(producer).withCompactFormat(true)
+        .withBatchWindow(new TimeInterval(100L, TimeUnit.MILLISECONDS));
+    try {
+      LifecycleHelper.initAndStart(eh);
+      eh.send(EventFactory.create(AdapterCloseEvent.class));
+      eh.send(EventFactory.create(AdapterCloseEvent.class));
+      waitForMessages(producer, 1);
+    } finally {
+      LifecycleHelper.stopAndClose(eh);
+    }
+    String payload = producer.getMessages().get(0).getContent();
+    assertFalse(payload.contains("\n"));
+    assertEquals(2, ((List<?>) DefaultMarshaller.getDefaultMarshaller().unmarshal(payload)).size());
+  }
+
+  @Test
+  public void testSend_WithProperties() throws Exception {
+    MockMessageProducer producer = new MockMessageProducer();
+    BatchingEventHandler eh = createHandler(producer)
+        .withBatchWindow(new TimeInterval(1L, TimeUnit.MINUTES));
+    try {
+      LifecycleHelper.initAndStart(eh);
+      eh.send(EventFactory.create(AdapterCloseEvent.class), Collections.singletonMap("key", "value"));
+      waitForMessages(producer, 1);
+      assertEquals("value", producer.getMessages().get(0).getMetadataValue("key"));
+    } finally {
+      LifecycleHelper.stopAndClose(eh);
+    }
+  }
+
+  private BatchingEventHandler createHandler(MockMessageProducer producer) {
+    BatchingEventHandler eh = new BatchingEventHandler(new NullConnection(), producer);
+    eh.setMarshaller(DefaultMarshaller.getDefaultMarshaller());
+    return eh;
+  }
+}
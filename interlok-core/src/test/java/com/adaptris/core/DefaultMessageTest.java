@@ -16,6 +16,10 @@
 
 package com.adaptris.core;
 
+import static org.junit.Assert.assertEquals;
+import java.io.OutputStream;
+import org.junit.Test;
+
 public class DefaultMessageTest extends AdaptrisMessageCase {
 
   private DefaultMessageFactory msgFactory = new DefaultMessageFactory();
@@ -28,4 +32,16 @@ public class DefaultMessageTest extends AdaptrisMessageCase {
     return msgFactory;
   }
 
+  @Test
+  public void testOutputStream_WriteAfterClose() throws Exception {
+    AdaptrisMessage msg = msgFactory.newMessage(PAYLOAD);
+    OutputStream out = msg.getOutputStream();
+    out.write(PAYLOAD2.getBytes());
+    out.close();
+    // The buffer has been handed over, so further writes must not change the payload.
+    out.write(PAYLOAD.getBytes());
+    out.close();
+    assertEquals(PAYLOAD2, msg.getContent());
+  }
+
 }
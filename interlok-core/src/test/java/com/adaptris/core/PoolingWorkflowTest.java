@@ -259,6 +259,45 @@ public class PoolingWorkflowTest extends ExampleWorkflowCase {
     }
   }
 
+  @Test
+  public void testVirtualThreads() throws Exception {
+    MockChannel channel = createChannel();
+    PoolingWorkflow wf = ((PoolingWorkflow) channel.getWorkflowList().get(0)).withVirtualThreads(true);
+    int count = wf.poolSize() * 2;
+    MockMessageProducer prod = (MockMessageProducer) wf.getProducer();
+    try {
+      start(channel);
+      submitMessages(wf, count);
+      waitForMessages(prod, count);
+      assertTrue("ObjectPool >= 1", wf.currentObjectPoolCount() >= 1);
+      assertTrue("ThreadPool >=0", wf.currentThreadPoolCount() >= 0);
+      assertMessages(prod, count);
+    }
+    finally {
+      stop(channel);
+    }
+  }
+
+  @Test
+  public void testShareServiceCollection() throws Exception {
+    MockChannel channel = createChannel();
+    PoolingWorkflow wf = ((PoolingWorkflow) channel.getWorkflowList().get(0)).withShareServiceCollection(true);
+    int count = wf.poolSize() * 2;
+    MockMessageProducer prod = (MockMessageProducer) wf.getProducer();
+    try {
+      start(channel);
+      submitMessages(wf, count);
+      waitForMessages(prod, count);
+      assertEquals(1, wf.currentObjectPoolCount());
+      assertEquals(0, wf.currentlyIdleObjects());
+      assertTrue("Active <= poolSize", wf.currentlyActiveObjects() <= wf.poolSize());
+      assertMessages(prod, count);
+    }
+    finally {
+      stop(channel);
+    }
+  }
+
   @Test
   public void testMaxIdle_CannotExceed_Poolsize() throws Exception {
     MockChannel channel = createChannel();
@@ -18,6 +18,7 @@ package com.adaptris.core;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -34,6 +35,7 @@ import com.adaptris.core.stubs.MockChannel;
 import com.adaptris.core.stubs.MockConnection;
 import com.adaptris.core.stubs.MockMessageConsumer;
 import com.adaptris.core.stubs.MockMessageProducer;
+import com.adaptris.core.stubs.TempFileUtils;
 import com.adaptris.core.util.LifecycleHelper;
 import com.adaptris.core.util.ManagedThreadFactory;
 import com.adaptris.util.SimpleIdGenerator;
@@ -439,6 +441,55 @@ public class RetryMessageErrorHandlerTest extends ExampleErrorHandlerCase {
     }
   }
 
+  @Test
+  public void testPersistentStore_SurvivesRestart() throws Exception {
+    File store = TempFileUtils.createTrackedFile(this);
+    MockMessageProducer failProducer = new MockMessageProducer();
+    RetryMessageErrorHandler meh = createMessageErrorHandler(failProducer);
+    meh.setPersistentStore(store.getCanonicalPath());
+    meh.setRetryLimit(0);
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("XXXX");
+    try {
+      LifecycleHelper.initAndStart(meh);
+      meh.handleProcessingException(msg);
+      assertTrue(meh.waitingForRetry().contains(msg.getUniqueId()));
+      LifecycleHelper.stopAndClose(meh);
+      assertEquals(0, failProducer.getMessages().size());
+      LifecycleHelper.initAndStart(meh);
+      assertTrue(meh.waitingForRetry().contains(msg.getUniqueId()));
+      meh.failAllMessages();
+      assertEquals(1, failProducer.getMessages().size());
+      assertEquals(msg.getUniqueId(), failProducer.getMessages().get(0).getUniqueId());
+      assertEquals("XXXX", failProducer.getMessages().get(0).getContent());
+    } finally {
+      LifecycleHelper.stopAndClose(meh);
+    }
+  }
+
+  @Test
+  public void testPersistentStore_Retry() throws Exception {
+    File store = TempFileUtils.createTrackedFile(this);
+    MockMessageProducer failProducer = new MockMessageProducer();
+    RetryMessageErrorHandler meh = createMessageErrorHandler(failProducer);
+    meh.setPersistentStore(store.getCanonicalPath());
+    meh.setRetryInterval(DEFAULT_RETRY_INTERVAL);
+    meh.setRetryLimit(2);
+    MockMessageProducer workflowProducer = new MockMessageProducer();
+    FailingService service = new FailingService();
+    Workflow workflow = createWorkflow(workflowProducer, new Service[] {service});
+    Channel channel = createChannel(workflow, meh);
+    try {
+      LifecycleHelper.initAndStart(channel);
+      workflow.onAdaptrisMessage(AdaptrisMessageFactory.getDefaultInstance().newMessage("XXXX"));
+      waitForMessages(failProducer, 1);
+      assertEquals(1, failProducer.getMessages().size());
+      assertEquals(3, service.callCount());
+      assertEquals("XXXX", failProducer.getMessages().get(0).getContent());
+    } finally {
+      LifecycleHelper.stopAndClose(channel);
+    }
+  }
+
   @Test
   public void testFilterStarted() throws Exception {
     Map<String, Workflow> workflows = new HashMap<>();
@@ -0,0 +1,180 @@
+package com.adaptris.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import com.adaptris.core.stubs.TempFileUtils;
+
+public class RetryQueueTest {
+
+  @Test
+  public void testPoll_InMemory() throws Exception {
+    RetryQueue queue = new RetryQueue();
+    queue.open(0);
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+    queue.add(msg, 0, 100);
+    assertNull(queue.poll(99));
+    assertEquals(1, queue.size());
+    assertEquals(msg, queue.poll(100));
+    assertNull(queue.poll(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testPoll_Persistent() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    RetryQueue queue = new RetryQueue(f);
+    try {
+      queue.open(0);
+      AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+      msg.addMetadata("key", "value");
+      queue.add(msg, 3, 100);
+      assertNull(queue.poll(99));
+      AdaptrisMessage result = queue.poll(100);
+      assertEquals(msg.getUniqueId(), result.getUniqueId());
+      assertEquals("hello", result.getContent());
+      assertEquals("value", result.getMetadataValue("key"));
+      assertEquals("3", result.getObjectHeaders().get(RetryMessageErrorHandlerImp.RETRY_COUNT_KEY));
+      assertEquals(0, queue.size());
+    } finally {
+      queue.close();
+    }
+  }
+
+  @Test
+  public void testPoll_Unreadable() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    RetryQueue queue = new RetryQueue(f);
+    try {
+      queue.open(0);
+      AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+      queue.add(msg, 0, 100);
+      try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+        raf.setLength(raf.length() - 1);
+      }
+      try {
+        queue.poll(100);
+        fail();
+      } catch (RetryQueue.UnreadableMessageException expected) {
+        assertEquals(msg.getUniqueId(), expected.getUnreadable().getUniqueId());
+        assertSame(expected, expected.getUnreadable().getObjectHeaders().get(CoreConstants.OBJ_METADATA_EXCEPTION));
+      }
+      assertEquals(0, queue.size());
+      assertNull(queue.poll(Long.MAX_VALUE));
+    } finally {
+      queue.close();
+    }
+  }
+
+  @Test
+  public void testReopen() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    RetryQueue queue = new RetryQueue(f);
+    queue.open(0);
+    for (int i = 0; i < 10; i++) {
+      queue.add(AdaptrisMessageFactory.getDefaultInstance().newMessage("msg" + i), i, 0);
+    }
+    AdaptrisMessage first = queue.poll(0);
+    assertEquals("msg0", first.getContent());
+    queue.complete(first);
+    queue.close();
+    // partially written record.
+    try (FileOutputStream out = new FileOutputStream(f, true)) {
+      out.write(new byte[] {1, 0, 0, 0});
+    }
+    queue = new RetryQueue(f);
+    try {
+      queue.open(1000);
+      assertEquals(9, queue.size());
+      assertNull(queue.poll(999));
+      AdaptrisMessage msg = queue.poll(1000);
+      assertEquals("msg1", msg.getContent());
+      assertEquals("1", msg.getObjectHeaders().get(RetryMessageErrorHandlerImp.RETRY_COUNT_KEY));
+      queue.add(AdaptrisMessageFactory.getDefaultInstance().newMessage("msg10"), 0, 0);
+      assertEquals(9, queue.size());
+    } finally {
+      queue.close();
+    }
+  }
+
+  @Test
+  public void testPoll_NotCompleted_SurvivesRestart() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    RetryQueue queue = new RetryQueue(f);
+    queue.open(0);
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+    queue.add(msg, 0, 0);
+    assertEquals(msg.getUniqueId(), queue.poll(0).getUniqueId());
+    assertEquals(0, queue.size());
+    // e.g. the process dies while the message is being retried.
+    queue.close();
+    queue = new RetryQueue(f);
+    try {
+      queue.open(0);
+      assertEquals(1, queue.size());
+      AdaptrisMessage replayed = queue.poll(0);
+      assertEquals(msg.getUniqueId(), replayed.getUniqueId());
+      queue.complete(replayed);
+    } finally {
+      queue.close();
+    }
+    queue = new RetryQueue(f);
+    try {
+      queue.open(0);
+      assertEquals(0, queue.size());
+    } finally {
+      queue.close();
+    }
+  }
+
+  @Test
+  public void testRemove() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    RetryQueue queue = new RetryQueue(f);
+    try {
+      queue.open(0);
+      AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+      queue.add(AdaptrisMessageFactory.getDefaultInstance().newMessage(), 0, 0);
+      queue.add(msg, 0, 0);
+      assertTrue(queue.ids().contains(msg.getUniqueId()));
+      assertEquals(0, queue.remove("hello").size());
+      assertEquals(1, queue.remove(msg.getUniqueId()).size());
+      assertEquals(1, queue.size());
+    } finally {
+      queue.close();
+    }
+  }
+
+  @Test
+  public void testJournalIsTruncated() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    RetryQueue queue = new RetryQueue(f);
+    try {
+      queue.open(0);
+      for (int i = 0; i < 100; i++) {
+        queue.add(AdaptrisMessageFactory.getDefaultInstance().newMessage("msg" + i), 0, 0);
+      }
+      assertTrue(f.length() > 100);
+      for (AdaptrisMessage msg = queue.poll(0); msg != null; msg = queue.poll(0)) {
+        queue.complete(msg);
+      }
+      assertEquals(Integer.BYTES, f.length());
+    } finally {
+      queue.close();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testOpen_NotAJournal() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    FileUtils.writeStringToFile(f, "hello world", "UTF-8");
+    new RetryQueue(f).open(0);
+  }
+}
@@ -0,0 +1,170 @@
+package com.adaptris.core.fs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.adaptris.core.CoreException;
+import com.adaptris.util.TimeInterval;
+
+public class TestJournalingItemCache extends ExpiringCacheCase {
+
+  private File persistentStore;
+
+  @Before
+  public void setUp() throws Exception {
+    persistentStore = File.createTempFile(this.getClass().getSimpleName(), "");
+    persistentStore.delete();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteQuietly(persistentStore);
+  }
+
+  @Override
+  protected JournalingItemCache createCache() throws Exception {
+    return new JournalingItemCache(persistentStore.getCanonicalPath());
+  }
+
+  @Test
+  public void testPersistence() throws Exception {
+    JournalingItemCache cache = createCache();
+    try {
+      start(cache);
+      cache.update(createCacheEntries(100));
+      stop(cache);
+      start(cache);
+      assertEquals(100, cache.size());
+      assertCache(cache, 100);
+    } finally {
+      stop(cache);
+    }
+  }
+
+  @Test
+  public void testSave_OnlyAppendsChanges() throws Exception {
+    JournalingItemCache cache = createCache();
+    try {
+      start(cache);
+      cache.update(createCacheEntries(100));
+      cache.save();
+      long size = persistentStore.length();
+      cache.save();
+      assertEquals(size, persistentStore.length());
+      cache.update(new ProcessedItem(CACHE_PREFIX + 100, 0, 0));
+      cache.save();
+      assertTrue(persistentStore.length() > size);
+      assertTrue(persistentStore.length() - size < size / 50);
+    } finally {
+      stop(cache);
+    }
+  }
+
+  @Test
+  public void testPersistence_EvictAndClear() throws Exception {
+    JournalingItemCache cache = createCache();
+    try {
+      cache.setAgeBeforeEviction(new TimeInterval(100L, TimeUnit.MILLISECONDS));
+      start(cache);
+      cache.update(createCacheEntries(100));
+      cache.save();
+      Thread.sleep(200);
+      cache.update(new ProcessedItem(CACHE_PREFIX + 100, 0, 0));
+      cache.evict();
+      assertEquals(1, cache.size());
+      stop(cache);
+      start(cache);
+      assertEquals(1, cache.size());
+      assertTrue(cache.contains(CACHE_PREFIX + 100));
+      cache.clear();
+      stop(cache);
+      start(cache);
+      assertEquals(0, cache.size());
+    } finally {
+      stop(cache);
+    }
+  }
+
+  @Test
+  public void testCompact() throws Exception {
+    JournalingItemCache cache = createCache();
+    try {
+      start(cache);
+      for (int i = 0; i < 10; i++) {
+        cache.update(createCacheEntries(100));
+        cache.save();
+      }
+      long size = persistentStore.length();
+      cache.compact();
+      assertTrue(persistentStore.length() < size);
+      stop(cache);
+      start(cache);
+      assertCache(cache, 100);
+    } finally {
+      stop(cache);
+    }
+  }
+
+  @Test
+  public void testReplay_PartialEntry() throws Exception {
+    JournalingItemCache cache = createCache();
+    try {
+      start(cache);
+      cache.update(createCacheEntries(10));
+      stop(cache);
+      try (FileOutputStream out = new FileOutputStream(persistentStore, true)) {
+        out.write(new byte[] {1, 0, 5, 'a'});
+      }
+      start(cache);
+      assertEquals(10, cache.size());
+      cache.update(new ProcessedItem(CACHE_PREFIX + 10, 0, 0));
+      stop(cache);
+      start(cache);
+      assertCache(cache, 11);
+    } finally {
+      stop(cache);
+    }
+  }
+
+  @Test
+  public void testReplay_UnknownOperation() throws Exception {
+    JournalingItemCache cache = createCache();
+    try {
+      start(cache);
+      cache.update(createCacheEntries(10));
+      stop(cache);
+      try (FileOutputStream out = new FileOutputStream(persistentStore, true)) {
+        out.write(new byte[] {9, 0, 1, 'a'});
+      }
+      cache.init();
+      fail();
+    } catch (CoreException expected) {
+
+    } finally {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void testInit_BadPersistentStore() throws Exception {
+    JournalingItemCache cache = createCache();
+    FileUtils.writeStringToFile(persistentStore, "<processed-item-list/>", "UTF-8");
+    try {
+      cache.init();
+      fail();
+    } catch (CoreException expected) {
+
+    } finally {
+      cache.close();
+    }
+    assertFalse(cache.contains(CACHE_PREFIX + 0));
+  }
+}
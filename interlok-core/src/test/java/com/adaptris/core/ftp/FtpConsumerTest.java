@@ -31,6 +31,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import org.apache.commons.io.filefilter.RegexFileFilter;
 import org.apache.oro.io.GlobFilenameFilter;
 import org.junit.Test;
@@ -43,6 +44,7 @@ import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.AdaptrisMessageFactory;
 import com.adaptris.core.ConfiguredConsumeDestination;
 import com.adaptris.core.ConsumeDestination;
+import com.adaptris.core.CoreException;
 import com.adaptris.core.FixedIntervalPoller;
 import com.adaptris.core.MimeEncoder;
 import com.adaptris.core.Poller;
@@ -159,6 +161,48 @@ public class FtpConsumerTest extends FtpConsumerCase {
 
   }
 
+  @Test
+  public void testBasicConsume_ConcurrentDownloads() throws Exception {
+    int count = 10;
+    EmbeddedFtpServer helper = new EmbeddedFtpServer();
+    MockMessageListener listener = new MockMessageListener() {
+      @Override
+      public synchronized void onAdaptrisMessage(AdaptrisMessage msg,
+          Consumer<AdaptrisMessage> success) {
+        super.onAdaptrisMessage(msg, success);
+      }
+    };
+    FakeFtpServer server = helper.createAndStart(helper.createFilesystem(count));
+    StandaloneConsumer sc = null;
+    try {
+      FtpConsumer ftpConsumer = createForTests(listener, "testBasicConsume_ConcurrentDownloads");
+      ftpConsumer.setMaxConcurrentDownloads(3);
+      FtpConnection consumeConnection = create(server);
+      sc = new StandaloneConsumer(consumeConnection, ftpConsumer);
+      start(sc);
+      waitForMessages(listener, count);
+      helper.assertMessages(listener.getMessages(), count);
+    }
+    finally {
+      stop(sc);
+      server.stop();
+    }
+  }
+
+  @Test(expected = CoreException.class)
+  public void testInit_LegacySubclass_ConcurrentDownloads() throws Exception {
+    LegacyFtpConsumer consumer = new LegacyFtpConsumer();
+    consumer.setMaxConcurrentDownloads(2);
+    consumer.init();
+  }
+
+  @Test
+  public void testFetchAndProcess_LegacySubclass() throws Exception {
+    LegacyFtpConsumer consumer = new LegacyFtpConsumer();
+    assertTrue(consumer.fetchAndProcess(consumer.ftpClient, "/path/to/file"));
+    assertEquals("/path/to/file", consumer.fetched);
+  }
+
   @Test
   public void testConsumeWithOverride() throws Exception {
     int count = 1;
@@ -599,4 +643,14 @@ public class FtpConsumerTest extends FtpConsumerCase {
 
   }
 
+  // A subclass written before fetchAndProcess(FileTransferClient, String) was introduced.
+  private static class LegacyFtpConsumer extends FtpConsumerImpl {
+    private String fetched;
+
+    @Override
+    protected boolean fetchAndProcess(String fullPath) throws Exception {
+      fetched = fullPath;
+      return true;
+    }
+  }
 }
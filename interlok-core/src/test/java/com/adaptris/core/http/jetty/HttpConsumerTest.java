@@ -250,6 +250,69 @@ public class HttpConsumerTest extends HttpConsumerExample {
     }
   }
 
+  @Test
+  public void testPoolingWorkflow_AsyncRequests() throws Exception {
+    HttpConnection connection = createConnection(null);
+    MockMessageProducer mockProducer = new StaticMockMessageProducer();
+    mockProducer.getMessages().clear();
+    JettyMessageConsumer consumer = JettyHelper.createConsumer(URL_TO_POST_TO);
+    consumer.setAsyncRequests(true);
+    PoolingWorkflow workflow = new PoolingWorkflow();
+    StandardResponseProducer responder = new StandardResponseProducer(HttpStatus.OK_200);
+    workflow.setConsumer(consumer);
+    workflow.getServiceCollection().add(new WaitService(new TimeInterval(1L, TimeUnit.SECONDS)));
+    workflow.getServiceCollection().add(new StandaloneProducer(mockProducer));
+    workflow.getServiceCollection().add(new StandaloneProducer(responder));
+    workflow.addInterceptor(new JettyPoolingWorkflowInterceptor());
+    Channel channel = JettyHelper.createChannel(connection, workflow);
+    try {
+      channel.requestStart();
+
+      AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_PAYLOAD);
+      msg.addMetadata(CONTENT_TYPE_METADATA_KEY, "text/xml");
+      start(httpProducer);
+      AdaptrisMessage reply = httpProducer.request(msg, createProduceDestination(connection.getPort()));
+      assertEquals("Reply Payloads", XML_PAYLOAD, reply.getContent());
+      doAssertions(mockProducer);
+    }
+    finally {
+      stop(httpProducer);
+      channel.requestClose();
+    }
+  }
+
+  @Test
+  public void testPoolingWorkflow_AsyncRequests_TimeoutExceeded() throws Exception {
+    HttpConnection connection = createConnection(null);
+    MockMessageProducer mockProducer = new StaticMockMessageProducer();
+    mockProducer.getMessages().clear();
+    JettyMessageConsumer consumer = JettyHelper.createConsumer(URL_TO_POST_TO);
+    consumer.setAsyncRequests(true);
+    consumer.setTimeoutAction(new TimeoutAction(new TimeInterval(100L, TimeUnit.MILLISECONDS)));
+    PoolingWorkflow workflow = new PoolingWorkflow();
+    workflow.setShutdownWaitTime(new TimeInterval(100L, TimeUnit.MILLISECONDS));
+    StandardResponseProducer responder = new StandardResponseProducer(HttpStatus.OK_200);
+    workflow.setConsumer(consumer);
+    workflow.getServiceCollection().add(new WaitService(new TimeInterval(5L, TimeUnit.SECONDS)));
+    workflow.getServiceCollection().add(new StandaloneProducer(mockProducer));
+    workflow.getServiceCollection().add(new StandaloneProducer(responder));
+    workflow.addInterceptor(new JettyPoolingWorkflowInterceptor());
+    Channel channel = JettyHelper.createChannel(connection, workflow);
+    try {
+      channel.requestStart();
+      AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_PAYLOAD);
+      msg.addMetadata(CONTENT_TYPE_METADATA_KEY, "text/xml");
+      start(httpProducer);
+      AdaptrisMessage reply = httpProducer.request(msg, createProduceDestination(connection.getPort()));
+      assertEquals(Integer.valueOf(HttpStatus.ACCEPTED_202.getStatusCode()),
+          Integer.valueOf(reply.getMetadataValue(CoreConstants.HTTP_PRODUCER_RESPONSE_CODE)));
+    }
+    finally {
+      stop(httpProducer);
+      channel.requestClose();
+    }
+  }
+
   @Test
   public void testPoolingWorkflow_WithoutInterceptor() throws Exception {
     HttpConnection connection = createConnection(null);
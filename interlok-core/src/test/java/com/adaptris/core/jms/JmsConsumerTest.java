@@ -25,6 +25,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.jms.MessageConsumer;
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.junit.After;
@@ -33,6 +34,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.StandaloneConsumer;
 import com.adaptris.core.StandaloneProducer;
 import com.adaptris.core.jms.activemq.BasicActiveMqImplementation;
@@ -294,6 +296,36 @@ public class JmsConsumerTest extends JmsConsumerCase {
   }
 
 
+  @Test
+  public void testQueueConsume_ConcurrentSessions() throws Exception {
+    Assume.assumeTrue(JmsConfig.jmsTestsEnabled());
+
+    EmbeddedActiveMq activeMqBroker = new EmbeddedActiveMq();
+    String rfc6167 = "jms:queue:" + getName();
+
+    try {
+      activeMqBroker.start();
+      JmsConsumer consumer = new JmsConsumer().withEndpoint(rfc6167).withConcurrentSessions(3);
+      StandaloneConsumer standaloneConsumer = new StandaloneConsumer(activeMqBroker.getJmsConnection(createVendorImpl()), consumer);
+
+      MockMessageListener jms = new MockMessageListener(10L) {
+        @Override
+        public synchronized void onAdaptrisMessage(AdaptrisMessage msg, Consumer<AdaptrisMessage> success) {
+          super.onAdaptrisMessage(msg, success);
+        }
+      };
+      standaloneConsumer.registerAdaptrisMessageListener(jms);
+
+      StandaloneProducer producer =
+          new StandaloneProducer(activeMqBroker.getJmsConnection(createVendorImpl()),
+              new JmsProducer().withEndpoint(rfc6167));
+      execute(standaloneConsumer, producer, createMessage(null), 10, MAX_WAIT, jms);
+      assertMessages(jms, 10);
+    } finally {
+      activeMqBroker.destroy();
+    }
+  }
+
 
   protected BasicActiveMqImplementation createVendorImpl() {
     return new BasicActiveMqImplementation();
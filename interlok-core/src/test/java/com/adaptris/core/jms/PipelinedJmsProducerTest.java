@@ -0,0 +1,156 @@
+package com.adaptris.core.jms;
+
+import static com.adaptris.core.CoreConstants.OBJ_METADATA_EXCEPTION;
+import static com.adaptris.core.CoreConstants.OBJ_METADATA_ON_FAILURE_CALLBACK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.jms.CompletionListener;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.DefaultMessageFactory;
+import com.adaptris.core.util.LifecycleHelper;
+import com.adaptris.interlok.util.Closer;
+
+public class PipelinedJmsProducerTest {
+
+  private PtpProducer producer;
+
+  @Mock private ProducerSessionFactory mockSessionFactory;
+  @Mock private ProducerSession mockSession;
+  @Mock private MessageTypeTranslator mockTranslator;
+  @Mock private Message mockMessage;
+  @Mock private MessageProducer mockMessageProducer;
+  @Mock private Destination mockDestination;
+
+  private AutoCloseable openMocks;
+
+  @Before
+  public void setUp() throws Exception {
+    openMocks = MockitoAnnotations.openMocks(this);
+    producer = new PtpProducer().withQueue("queue").withMaxOutstandingSends(2);
+    producer.setSessionFactory(mockSessionFactory);
+    producer.setMessageTranslator(mockTranslator);
+
+    when(mockSessionFactory.createProducerSession(any(), any())).thenReturn(mockSession);
+    when(mockSession.getProducer()).thenReturn(mockMessageProducer);
+    when(mockTranslator.translate(any(AdaptrisMessage.class))).thenReturn(mockMessage);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Closer.closeQuietly(openMocks);
+  }
+
+  @Test
+  public void testProduce_Pipelined() throws Exception {
+    try {
+      LifecycleHelper.init(producer);
+      producer.doProduce(newMessage(), mockDestination, null);
+      producer.doProduce(newMessage(), mockDestination, null);
+      verify(mockMessageProducer, times(2)).send(eq(mockDestination), eq(mockMessage),
+          any(CompletionListener.class));
+    } finally {
+      LifecycleHelper.close(producer);
+    }
+  }
+
+  @Test
+  public void testProduce_Pipelined_PerMessageProperties() throws Exception {
+    try {
+      producer.setPerMessageProperties(true);
+      LifecycleHelper.init(producer);
+      producer.doProduce(newMessage(), mockDestination, null);
+      verify(mockMessageProducer).send(eq(mockDestination), eq(mockMessage), any(int.class),
+          any(int.class), any(long.class), any(CompletionListener.class));
+    } finally {
+      LifecycleHelper.close(producer);
+    }
+  }
+
+  @Test
+  public void testProduce_Pipelined_FailureRoutedToCallback() throws Exception {
+    try {
+      LifecycleHelper.init(producer);
+      List<AdaptrisMessage> failed = new ArrayList<>();
+      AdaptrisMessage msg = newMessage();
+      msg.addObjectHeader(OBJ_METADATA_ON_FAILURE_CALLBACK, (Consumer<AdaptrisMessage>) failed::add);
+      producer.doProduce(msg, mockDestination, null);
+      ArgumentCaptor<CompletionListener> listener = ArgumentCaptor.forClass(CompletionListener.class);
+      verify(mockMessageProducer).send(eq(mockDestination), eq(mockMessage), listener.capture());
+      listener.getValue().onException(mockMessage, new JMSException("expected"));
+      assertEquals(1, failed.size());
+      assertSame(msg, failed.get(0));
+      assertEquals("expected",
+          ((Exception) msg.getObjectHeaders().get(OBJ_METADATA_EXCEPTION)).getMessage());
+      // The next message isn't affected by the earlier failure.
+      producer.doProduce(newMessage(), mockDestination, null);
+      verify(mockMessageProducer, times(2)).send(eq(mockDestination), eq(mockMessage),
+          any(CompletionListener.class));
+    } finally {
+      LifecycleHelper.close(producer);
+    }
+  }
+
+  @Test
+  public void testProduce_Pipelined_FailureWithoutCallback() throws Exception {
+    try {
+      LifecycleHelper.init(producer);
+      producer.doProduce(newMessage(), mockDestination, null);
+      ArgumentCaptor<CompletionListener> listener = ArgumentCaptor.forClass(CompletionListener.class);
+      verify(mockMessageProducer).send(eq(mockDestination), eq(mockMessage), listener.capture());
+      listener.getValue().onException(mockMessage, new JMSException("expected"));
+      producer.doProduce(newMessage(), mockDestination, null);
+      producer.doProduce(newMessage(), mockDestination, null);
+      verify(mockMessageProducer, times(3)).send(eq(mockDestination), eq(mockMessage),
+          any(CompletionListener.class));
+    } finally {
+      LifecycleHelper.close(producer);
+    }
+  }
+
+  @Test
+  public void testProduce_Transacted_NotPipelined() throws Exception {
+    try {
+      producer.setTransacted(true);
+      LifecycleHelper.init(producer);
+      producer.doProduce(newMessage(), mockDestination, null);
+      verify(mockMessageProducer).send(eq(mockDestination), eq(mockMessage));
+      verify(mockMessageProducer, times(0)).send(any(Destination.class), any(Message.class),
+          any(CompletionListener.class));
+    } finally {
+      LifecycleHelper.close(producer);
+    }
+  }
+
+  @Test
+  public void testProduce_WithReplyTo_NotPipelined() throws Exception {
+    try {
+      LifecycleHelper.init(producer);
+      producer.doProduce(newMessage(), mockDestination, mockDestination);
+      verify(mockMessageProducer).send(eq(mockDestination), eq(mockMessage));
+    } finally {
+      LifecycleHelper.close(producer);
+    }
+  }
+
+  private static AdaptrisMessage newMessage() {
+    return DefaultMessageFactory.getDefaultInstance().newMessage();
+  }
+}
@@ -47,4 +47,19 @@ public abstract class PollingJmsConsumerCase extends JmsConsumerCase {
     assertEquals(2000, consumer.receiveTimeout());
 
   }
+
+  @Test
+  public void testBatchSize() throws Exception {
+    JmsPollingConsumerImpl consumer = createConsumer();
+    assertNull(consumer.getBatchSize());
+    assertEquals(1, consumer.batchSize());
+    consumer.setBatchSize(0);
+    assertEquals(1, consumer.batchSize());
+    consumer.setBatchSize(10);
+    assertEquals(10, consumer.batchSize());
+    assertNull(consumer.getBatchWindow());
+    assertEquals(TimeUnit.SECONDS.toMillis(10), consumer.batchWindowMs());
+    consumer.setBatchWindow(new TimeInterval(1L, TimeUnit.MINUTES));
+    assertEquals(TimeUnit.MINUTES.toMillis(1), consumer.batchWindowMs());
+  }
 }
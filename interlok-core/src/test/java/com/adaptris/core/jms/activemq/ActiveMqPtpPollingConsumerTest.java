@@ -21,10 +21,14 @@ import static com.adaptris.core.BaseCase.waitForMessages;
 import static com.adaptris.core.jms.JmsProducerCase.assertMessages;
 import static com.adaptris.core.jms.JmsProducerCase.createMessage;
 import static com.adaptris.core.jms.activemq.ActiveMqPasPollingConsumerTest.shutdownQuietly;
+import static org.junit.Assert.assertTrue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestName;
+import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.FixedIntervalPoller;
 import com.adaptris.core.StandaloneConsumer;
 import com.adaptris.core.StandaloneProducer;
@@ -67,6 +71,71 @@ public class ActiveMqPtpPollingConsumerTest {
     }
   }
 
+  @Test
+  public void testProduceConsume_Batched() throws Exception {
+
+    int msgCount = 25;
+    final EmbeddedActiveMq broker = new EmbeddedActiveMq();
+    final StandaloneProducer sender = new StandaloneProducer(broker.getJmsConnection(),
+        new PtpProducer().withQueue((testName.getMethodName())));
+    final StandaloneConsumer receiver =
+        createConsumer(broker, "testProduceConsume_Batched", testName.getMethodName());
+    ((PtpPollingConsumer) receiver.getConsumer()).setBatchSize(10);
+    try {
+      broker.start();
+      MockMessageListener jms = new MockMessageListener();
+      receiver.registerAdaptrisMessageListener(jms);
+      start(receiver);
+      start(sender);
+      for (int i = 0; i < msgCount; i++) {
+        sender.doService(createMessage());
+      }
+      waitForMessages(jms, msgCount);
+      assertMessages(jms, msgCount);
+    }
+    finally {
+      shutdownQuietly(sender, receiver, broker);
+    }
+  }
+
+  @Test
+  public void testProduceConsume_Batched_FailureIsRedelivered() throws Exception {
+
+    int msgCount = 10;
+    final EmbeddedActiveMq broker = new EmbeddedActiveMq();
+    final StandaloneProducer sender = new StandaloneProducer(broker.getJmsConnection(),
+        new PtpProducer().withQueue((testName.getMethodName())));
+    final StandaloneConsumer receiver =
+        createConsumer(broker, "testProduceConsume_Batched_FailureIsRedelivered", testName.getMethodName());
+    ((PtpPollingConsumer) receiver.getConsumer()).setBatchSize(msgCount);
+    try {
+      broker.start();
+      final AtomicInteger attempts = new AtomicInteger();
+      // Rejects the 5th message it sees, once; it must not be acknowledged along with the rest of the batch.
+      MockMessageListener jms = new MockMessageListener() {
+        @Override
+        public void onAdaptrisMessage(AdaptrisMessage msg, Consumer<AdaptrisMessage> success) {
+          if (attempts.incrementAndGet() == 5) {
+            throw new RuntimeException(testName.getMethodName());
+          }
+          super.onAdaptrisMessage(msg, success);
+        }
+      };
+      receiver.registerAdaptrisMessageListener(jms);
+      start(receiver);
+      start(sender);
+      for (int i = 0; i < msgCount; i++) {
+        sender.doService(createMessage());
+      }
+      waitForMessages(jms, msgCount + 4);
+      // The 4 that succeeded before the failure are redelivered along with it.
+      assertTrue(jms.messageCount() >= msgCount + 4);
+    }
+    finally {
+      shutdownQuietly(sender, receiver, broker);
+    }
+  }
+
   private StandaloneConsumer createConsumer(EmbeddedActiveMq broker, String threadName, String destinationName) throws Exception {
     PtpPollingConsumer consumer = new PtpPollingConsumer().withQueue(destinationName);
     consumer.setPoller(new FixedIntervalPoller(new TimeInterval(500L, TimeUnit.MILLISECONDS)));
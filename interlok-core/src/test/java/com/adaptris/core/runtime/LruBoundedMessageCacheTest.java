@@ -0,0 +1,141 @@
+package com.adaptris.core.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import org.junit.Test;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.AdaptrisMessageFactory;
+import com.adaptris.core.stubs.TempFileUtils;
+import com.adaptris.core.util.LifecycleHelper;
+
+public class LruBoundedMessageCacheTest {
+
+  @Test
+  public void testPutRemove() throws Exception {
+    LruBoundedMessageCache cache = new LruBoundedMessageCache();
+    try {
+      LifecycleHelper.initAndStart(cache);
+      AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+      cache.put(wrap(msg));
+      assertTrue(cache.contains(msg.getUniqueId()));
+      assertEquals(msg, cache.remove(msg.getUniqueId()).getMessage());
+      assertFalse(cache.contains(msg.getUniqueId()));
+      assertNull(cache.remove(msg.getUniqueId()));
+    } finally {
+      LifecycleHelper.stopAndClose(cache);
+    }
+  }
+
+  @Test
+  public void testMaxMessages() throws Exception {
+    LruBoundedMessageCache cache = new LruBoundedMessageCache();
+    cache.setMaxMessages(10);
+    try {
+      LifecycleHelper.initAndStart(cache);
+      AdaptrisMessage first = AdaptrisMessageFactory.getDefaultInstance().newMessage();
+      cache.put(wrap(first));
+      AdaptrisMessage last = null;
+      for (int i = 0; i < 10; i++) {
+        last = AdaptrisMessageFactory.getDefaultInstance().newMessage();
+        cache.put(wrap(last));
+      }
+      assertFalse(cache.contains(first.getUniqueId()));
+      assertTrue(cache.contains(last.getUniqueId()));
+    } finally {
+      LifecycleHelper.stopAndClose(cache);
+    }
+  }
+
+  @Test
+  public void testMaxBytes() throws Exception {
+    LruBoundedMessageCache cache = new LruBoundedMessageCache();
+    cache.setMaxBytes(25L);
+    try {
+      LifecycleHelper.initAndStart(cache);
+      AdaptrisMessage m1 = AdaptrisMessageFactory.getDefaultInstance().newMessage("0123456789");
+      AdaptrisMessage m2 = AdaptrisMessageFactory.getDefaultInstance().newMessage("0123456789");
+      AdaptrisMessage m3 = AdaptrisMessageFactory.getDefaultInstance().newMessage("0123456789");
+      cache.put(wrap(m1));
+      cache.put(wrap(m2));
+      assertTrue(cache.contains(m1.getUniqueId()));
+      cache.put(wrap(m3));
+      assertFalse(cache.contains(m1.getUniqueId()));
+      assertTrue(cache.contains(m2.getUniqueId()));
+      assertTrue(cache.contains(m3.getUniqueId()));
+    } finally {
+      LifecycleHelper.stopAndClose(cache);
+    }
+  }
+
+  @Test
+  public void testSpillDirectory() throws Exception {
+    File dir = TempFileUtils.createTrackedDir(this);
+    LruBoundedMessageCache cache = new LruBoundedMessageCache();
+    cache.setSpillDirectory(dir.getCanonicalPath());
+    cache.setMaxMessages(2);
+    try {
+      LifecycleHelper.initAndStart(cache);
+      AdaptrisMessage m1 = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+      m1.addMetadata("key", "value");
+      cache.put(wrap(m1));
+      cache.put(wrap(AdaptrisMessageFactory.getDefaultInstance().newMessage()));
+      assertEquals(2, dir.listFiles().length);
+      cache.put(wrap(AdaptrisMessageFactory.getDefaultInstance().newMessage()));
+      assertEquals(2, dir.listFiles().length);
+      assertFalse(cache.contains(m1.getUniqueId()));
+      cache.put(wrap(m1));
+      AdaptrisMessage result = cache.remove(m1.getUniqueId()).getMessage();
+      assertEquals(m1.getUniqueId(), result.getUniqueId());
+      assertEquals("hello", result.getContent());
+      assertEquals("value", result.getMetadataValue("key"));
+      assertEquals(1, dir.listFiles().length);
+    } finally {
+      LifecycleHelper.stopAndClose(cache);
+    }
+    assertEquals(0, dir.listFiles().length);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSpillDirectory_ReadFailure() throws Exception {
+    File dir = TempFileUtils.createTrackedDir(this);
+    LruBoundedMessageCache cache = new LruBoundedMessageCache();
+    cache.setSpillDirectory(dir.getCanonicalPath());
+    try {
+      LifecycleHelper.initAndStart(cache);
+      AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+      cache.put(wrap(msg));
+      for (File f : dir.listFiles()) {
+        f.delete();
+      }
+      cache.remove(msg.getUniqueId());
+    } finally {
+      LifecycleHelper.stopAndClose(cache);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testBoundedCache() throws Exception {
+    LruBoundedMessageCache cache = new LruBoundedMessageCache();
+    try {
+      LifecycleHelper.initAndStart(cache);
+      AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("hello");
+      ArrayBlockingQueue<CacheableAdaptrisMessageWrapper> queue = new ArrayBlockingQueue<>(1);
+      queue.add(wrap(msg));
+      cache.setBoundedCache(queue);
+      assertTrue(cache.contains(msg.getUniqueId()));
+      assertEquals(1, cache.getBoundedCache().size());
+      assertEquals(msg, cache.getBoundedCache().peek().getMessage());
+    } finally {
+      LifecycleHelper.stopAndClose(cache);
+    }
+  }
+
+  private static CacheableAdaptrisMessageWrapper wrap(AdaptrisMessage msg) {
+    return new CacheableAdaptrisMessageWrapper(msg.getUniqueId(), msg);
+  }
+}
@@ -21,6 +21,7 @@ import static com.adaptris.core.runtime.AdapterComponentMBean.ID_PREFIX;
 import static com.adaptris.core.runtime.AdapterComponentMBean.JMX_MSG_ERR_DIGESTER_TYPE;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -439,6 +440,73 @@ public class StandardMessageErrorDigestTest extends ComponentManagerCase {
     }
   }
 
+  @Test
+  public void testErrorCounts() throws Exception {
+    StandardMessageErrorDigester digester = createDigester();
+    try {
+      start(digester);
+      createAndDigest(digester, "testErrorCounts", null);
+      for (AdaptrisMessage msg : createMessages(3, 1)) {
+        digester.digest(msg);
+      }
+      assertEquals(Long.valueOf(5), digester.getErrorCountByExceptionClass().get(Exception.class.getName()));
+      assertEquals(Long.valueOf(3),
+          digester.getErrorCountByExceptionClass().get(StandardMessageErrorDigester.NO_EXCEPTION));
+      assertEquals(Long.valueOf(2), digester.getErrorCountByWorkflow().get("workflow1"));
+      assertEquals(Long.valueOf(1), digester.getErrorCountByWorkflow().get("workflow5"));
+      assertEquals(2, digester.getDigest("workflow1").size());
+      assertEquals(0, digester.getDigest("workflow99").size());
+    }
+    finally {
+      stop(digester);
+    }
+  }
+
+  @Test
+  public void testDigest_Evicts() throws Exception {
+    StandardMessageErrorDigester digester = createDigester();
+    digester.setDigestMaxSize(3);
+    try {
+      start(digester);
+      List<AdaptrisMessage> msgs = createAndDigest(digester, "testDigest_Evicts", null);
+      assertEquals(3, digester.getDigest().size());
+      assertEquals(5, digester.getTotalErrorCount());
+      assertEquals(msgs.get(2).getUniqueId(), digester.getDigest().get(0).getUniqueId());
+      assertFalse(digester.remove(msgs.get(0).getUniqueId()));
+      assertTrue(digester.remove(msgs.get(4).getUniqueId()));
+      assertEquals(0, digester.getDigest("workflow5").size());
+      assertEquals(2, digester.getDigestSubset(0, 2).size());
+      assertEquals(msgs.get(3).getUniqueId(), digester.getDigestSubset(1, 2).get(0).getUniqueId());
+    }
+    finally {
+      stop(digester);
+    }
+  }
+
+  @Test
+  public void testDigest_OverflowFile() throws Exception {
+    StandardMessageErrorDigester digester = createDigester();
+    File overflow = File.createTempFile(this.getClass().getSimpleName(), ".log");
+    cleaner.track(overflow, digester, FileDeleteStrategy.FORCE);
+    digester.setDigestMaxSize(2);
+    digester.setOverflowFile(overflow.getCanonicalPath());
+    List<AdaptrisMessage> msgs;
+    try {
+      start(digester);
+      msgs = createAndDigest(digester, "testDigest_OverflowFile", null);
+    }
+    finally {
+      stop(digester);
+    }
+    List<String> lines = Files.readAllLines(overflow.toPath());
+    assertEquals(3, lines.size());
+    for (int i = 0; i < 3; i++) {
+      assertTrue(lines.get(i).contains(msgs.get(i).getUniqueId()));
+      assertTrue(lines.get(i).contains("workflow" + (i + 1)));
+      assertTrue(lines.get(i).contains("testDigest_OverflowFile"));
+    }
+  }
+
   private void doDigesting(StandardMessageErrorDigester digester, String errmsg, String fsLocation)
       throws Exception {
     try {
@@ -20,6 +20,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 import org.junit.Test;
 import com.adaptris.core.AdaptrisMessage;
@@ -49,6 +50,21 @@ public class AppendinglMessageAggregatorTest extends AggregatingServiceExample {
     assertEquals("newValue", original.getMetadataValue("originalKey"));
   }
 
+  @Test
+  public void testAggregate() throws Exception {
+    AppendingMessageAggregator aggr = createAggregatorForTests().withOverwriteMetadata(true);
+    AdaptrisMessage original = AdaptrisMessageFactory.getDefaultInstance().newMessage("Goodbye");
+    original.addMetadata("originalKey", "originalValue");
+    AdaptrisMessage splitMsg1 = AdaptrisMessageFactory.getDefaultInstance().newMessage(" Cruel ");
+    AdaptrisMessage splitMsg2 = AdaptrisMessageFactory.getDefaultInstance().newMessage("World");
+    splitMsg2.addMetadata("originalKey", "newValue");
+    Iterator<AdaptrisMessage> messages = Arrays.asList(splitMsg1, splitMsg2).iterator();
+    // Can only be iterated once.
+    aggr.aggregate(original, () -> messages);
+    assertEquals("Goodbye Cruel World", original.getContent());
+    assertEquals("newValue", original.getMetadataValue("originalKey"));
+  }
+
   @Test
   public void testJoin_WithException() {
     AppendingMessageAggregator aggr = createAggregatorForTests();
@@ -7,6 +7,7 @@ import java.io.ByteArrayInputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.ZipEntry;
@@ -84,6 +85,22 @@ public class ZipAggregatorTest extends AggregatingServiceExample {
 
   }
 
+  @Test
+  public void testAggregate_WithFilter() throws Exception {
+    ZipAggregator aggr = new ZipAggregator();
+    aggr.setFilterCondition(new MetadataFilenameCondition());
+    AdaptrisMessage original = AdaptrisMessageFactory.getDefaultInstance().newMessage();
+    AdaptrisMessage splitMsg1 = AdaptrisMessageFactory.getDefaultInstance().newMessage("<document>hello</document>");
+    splitMsg1.addMetadata(DEFAULT_FILENAME_METADATA, "xfile1.xml");
+    AdaptrisMessage splitMsg2 = AdaptrisMessageFactory.getDefaultInstance().newMessage("<document>world2</document>");
+    splitMsg2.addMetadata(DEFAULT_FILENAME_METADATA, "file2.xml");
+    Iterator<AdaptrisMessage> messages = Arrays.asList(splitMsg1, splitMsg2).iterator();
+    aggr.aggregate(original, () -> messages);
+    Map<String, String> results = zipBytesToResultsMap(original.getPayload());
+    assertEquals(1, results.size());
+    assertEquals("<document>world2</document>", results.get("file2.xml"));
+  }
+
   @Test
   public void testGetFilenameMetadata() throws Exception {
     ZipAggregator z = new ZipAggregator();
@@ -0,0 +1,171 @@
+package com.adaptris.core.services.duplicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.Test;
+import com.adaptris.core.stubs.TempFileUtils;
+
+public class DuplicateValueStoreTest {
+
+  @Test
+  public void testAdd_Contains() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    DuplicateValueStore store = new DuplicateValueStore(f, 3);
+    try {
+      store.load();
+      assertEquals(0, store.size());
+      store.add("1");
+      store.add("2");
+      store.add("2");
+      assertTrue(store.contains("1"));
+      assertTrue(store.contains("2"));
+      store.add("3");
+      assertEquals(3, store.size());
+      assertFalse(store.contains("1"));
+      store.add("4");
+      // one of the "2"s is still in the history.
+      assertTrue(store.contains("2"));
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void testPartiallyWrittenEntry() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    DuplicateValueStore store = new DuplicateValueStore(f, 10);
+    try {
+      store.add("1");
+      store.add("2");
+      store.add("3");
+    } finally {
+      store.close();
+    }
+    // Lose the tail of "3" as though we crashed mid-write.
+    try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+      raf.setLength(raf.length() - 1);
+    }
+    store = new DuplicateValueStore(f, 10);
+    try {
+      store.load();
+      assertEquals(2, store.size());
+      assertFalse(store.contains("3"));
+      store.add("4");
+      store.add("5");
+    } finally {
+      store.close();
+    }
+    DuplicateValueStore reader = new DuplicateValueStore(f, DuplicateValueStore.CAPACITY_FROM_FILE);
+    reader.load();
+    assertEquals(4, reader.size());
+    assertTrue(reader.contains("1"));
+    assertTrue(reader.contains("2"));
+    assertTrue(reader.contains("4"));
+    assertTrue(reader.contains("5"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testNegativeLength() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    DuplicateValueStore store = new DuplicateValueStore(f, 10);
+    try {
+      store.add("1");
+      store.add("2");
+    } finally {
+      store.close();
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+      raf.seek(raf.length());
+      raf.writeInt(-1);
+    }
+    new DuplicateValueStore(f, 10).load();
+  }
+
+  @Test
+  public void testZeroCapacity_KeepsNothing() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    DuplicateValueStore store = new DuplicateValueStore(f, 0);
+    try {
+      store.add("1");
+      assertFalse(store.contains("1"));
+      assertEquals(0, store.size());
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void testReload() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    DuplicateValueStore writer = new DuplicateValueStore(f, 10);
+    DuplicateValueStore reader = new DuplicateValueStore(f, DuplicateValueStore.CAPACITY_FROM_FILE);
+    try {
+      for (int i = 0; i < 5; i++) {
+        writer.add(String.valueOf(i));
+      }
+      reader.load();
+      assertEquals(5, reader.size());
+      // Enough to force several compactions.
+      for (int i = 5; i < 50; i++) {
+        writer.add(String.valueOf(i));
+        reader.load();
+        assertEquals(writer.size(), reader.size());
+      }
+      assertEquals(10, reader.size());
+      assertFalse(reader.contains("39"));
+      assertTrue(reader.contains("40"));
+      assertTrue(reader.contains("49"));
+    } finally {
+      writer.close();
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testJournalIsCompacted() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    DuplicateValueStore store = new DuplicateValueStore(f, 10);
+    try {
+      for (int i = 0; i < 10; i++) {
+        store.add(String.valueOf(i));
+      }
+      long size = f.length();
+      for (int i = 10; i < 1000; i++) {
+        store.add(String.valueOf(i));
+      }
+      assertTrue(f.length() < size * 4);
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void testLoad_Serialized() throws Exception {
+    File f = TempFileUtils.createTrackedFile(this);
+    try (ObjectOutputStream o = new ObjectOutputStream(new FileOutputStream(f))) {
+      o.writeObject(new ArrayList<>(Arrays.asList("1", "2", "3")));
+    }
+    DuplicateValueStore store = new DuplicateValueStore(f, 3);
+    try {
+      store.load();
+      assertEquals(3, store.size());
+      assertTrue(store.contains("1"));
+      store.add("4");
+      assertFalse(store.contains("1"));
+    } finally {
+      store.close();
+    }
+    DuplicateValueStore reader = new DuplicateValueStore(f, DuplicateValueStore.CAPACITY_FROM_FILE);
+    reader.load();
+    assertEquals(3, reader.size());
+    assertTrue(reader.contains("4"));
+  }
+}
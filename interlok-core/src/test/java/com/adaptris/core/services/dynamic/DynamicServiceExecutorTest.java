@@ -36,9 +36,11 @@ import com.adaptris.core.XStreamMarshaller;
 import com.adaptris.core.cache.ExpiringMapCache;
 import com.adaptris.core.common.MetadataDataInputParameter;
 import com.adaptris.core.jdbc.JdbcConnection;
+import com.adaptris.core.services.AlwaysFailService;
 import com.adaptris.core.services.LogMessageService;
 import com.adaptris.core.services.cache.CacheConnection;
 import com.adaptris.core.services.metadata.AddMetadataService;
+import com.adaptris.core.util.LifecycleHelper;
 import com.adaptris.util.GuidGenerator;
 import com.adaptris.util.text.mime.MultiPartOutput;
 import com.adaptris.util.text.mime.SelectByContentId;
@@ -363,6 +365,98 @@ public class DynamicServiceExecutorTest extends DynamicServiceExample {
     assertEquals(getName(), msg.getMetadataValue(getName()));
   }
 
+  @Test
+  public void testDoService_Cached() throws Exception {
+    AddMetadataService metadataService = new AddMetadataService();
+    metadataService.addMetadataElement(new MetadataElement(getName(), getName()));
+    DynamicServiceExecutor dynamicService = createService();
+    dynamicService.setCacheSize(5);
+    try {
+      LifecycleHelper.initAndStart(dynamicService);
+      for (int i = 0; i < 3; i++) {
+        AdaptrisMessage msg = createMessage(metadataService);
+        dynamicService.doService(msg);
+        assertEquals(getName(), msg.getMetadataValue(getName()));
+        assertEquals(1, dynamicService.cachedServiceCount());
+      }
+    }
+    finally {
+      LifecycleHelper.stopAndClose(dynamicService);
+    }
+    assertEquals(0, dynamicService.cachedServiceCount());
+  }
+
+  @Test
+  public void testDoService_Cached_Eviction() throws Exception {
+    DynamicServiceExecutor dynamicService = createService();
+    dynamicService.setCacheSize(1);
+    try {
+      LifecycleHelper.initAndStart(dynamicService);
+      for (String key : new String[] {"first", "second", "first"}) {
+        AddMetadataService metadataService = new AddMetadataService();
+        metadataService.addMetadataElement(new MetadataElement(key, key));
+        AdaptrisMessage msg = createMessage(metadataService);
+        dynamicService.doService(msg);
+        assertEquals(key, msg.getMetadataValue(key));
+        assertEquals(1, dynamicService.cachedServiceCount());
+      }
+    }
+    finally {
+      LifecycleHelper.stopAndClose(dynamicService);
+    }
+  }
+
+  @Test
+  public void testDoService_Cached_FailedServiceNotReused() throws Exception {
+    DynamicServiceExecutor dynamicService = createService();
+    dynamicService.setCacheSize(5);
+    try {
+      LifecycleHelper.initAndStart(dynamicService);
+      for (int i = 0; i < 2; i++) {
+        try {
+          dynamicService.doService(createMessage(new AlwaysFailService()));
+          fail();
+        }
+        catch (ServiceException expected) {
+
+        }
+        assertEquals(0, dynamicService.cachedServiceCount());
+      }
+    }
+    finally {
+      LifecycleHelper.stopAndClose(dynamicService);
+    }
+  }
+
+  @Test
+  public void testDoService_Cached_SwallowException() throws Exception {
+    DynamicServiceExecutor dynamicService = createService();
+    dynamicService.setCacheSize(5);
+    dynamicService.setTreatNotFoundAsError(false);
+    try {
+      LifecycleHelper.initAndStart(dynamicService);
+      dynamicService.doService(AdaptrisMessageFactory.getDefaultInstance().newMessage(getName()));
+      assertEquals(0, dynamicService.cachedServiceCount());
+    }
+    finally {
+      LifecycleHelper.stopAndClose(dynamicService);
+    }
+  }
+
+  @Test
+  public void testDoService_Cached_NotService() throws Exception {
+    DynamicServiceExecutor dynamicService = createService();
+    dynamicService.setCacheSize(5);
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(getName());
+    try {
+      execute(dynamicService, msg);
+      fail();
+    }
+    catch (ServiceException expected) {
+
+    }
+  }
+
   private DynamicServiceExecutor createService() {
     DynamicServiceExecutor service = new DynamicServiceExecutor();
     service.registerEventHandler(null);
@@ -223,6 +223,18 @@ public class FindAndReplaceServiceTest extends GeneralServiceExample {
     assertTrue(msg.getContent().equals(PAYLOAD_REPLACED_ALL_HEX));
   }
 
+  @Test
+  public void testReplace_SourceFromPayload() throws Exception {
+    FindAndReplaceService service = new FindAndReplaceService();
+    service.getFindAndReplaceUnits().add(
+        new FindAndReplaceUnit(new ConfiguredReplacementSource(TO_REPLACE), new ConfiguredReplacementSource(REPLACE_WITH)));
+    // Each unit must see the payload as modified by the previous units.
+    service.getFindAndReplaceUnits().add(new FindAndReplaceUnit(new PayloadPrefixSource(), new ConfiguredReplacementSource("X")));
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage("test test");
+    execute(service, msg);
+    assertEquals("X X", msg.getContent());
+  }
+
   private FindAndReplaceService createServiceForTests(ReplacementSourceImpl impl, boolean replaceFirst) {
     FindAndReplaceService service = new FindAndReplaceService();
     service.setFindAndReplaceUnits(impl.getFindAndReplaceUnits());
@@ -265,4 +277,11 @@ public class FindAndReplaceServiceTest extends GeneralServiceExample {
     return result;
   }
 
+
+  private static class PayloadPrefixSource implements ReplacementSource {
+    @Override
+    public String obtainValue(AdaptrisMessage msg) {
+      return msg.getContent().substring(0, 4);
+    }
+  }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.adaptris.core.services.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.sql.Timestamp;
+import java.util.List;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.services.jdbc.StyledResultTranslatorImp.ColumnStyle;
+import com.adaptris.core.util.DocumentBuilderFactoryBuilder;
+import com.adaptris.core.util.XmlHelper;
+import com.adaptris.util.text.xml.XPath;
+
+public class StreamingXmlPayloadTranslatorTest extends JdbcQueryServiceCaseXmlResults {
+
+  @Override
+  public boolean isAnnotatedForJunit4() {
+    return true;
+  }
+
+  @Test
+  public void testXpathStatementParam() throws Exception {
+    createDatabase();
+    List<AdapterTypeVersion> dbItems = generate(10);
+    AdapterTypeVersion entry = dbItems.get(0);
+    populateDatabase(dbItems, false);
+    JdbcDataQueryService s = createXmlService();
+    s.setResultSetTranslator(new StreamingXmlPayloadTranslator());
+    AdaptrisMessage msg = createMessage(entry);
+    execute(s, msg);
+    XPath xp = new XPath();
+    Document xmlDoc = XmlHelper.createDocument(msg, DocumentBuilderFactoryBuilder.newInstance());
+    assertEquals(entry.getVersion(), xp.selectSingleTextItem(xmlDoc, "/Results/Row/ADAPTER_VERSION"));
+    assertEquals(String.valueOf(entry.getCounter()), xp.selectSingleTextItem(xmlDoc, "/Results/Row/COUNTER"));
+    assertEquals(entry.getTranslatorType(), xp.selectSingleTextItem(xmlDoc, "/Results/Row/MESSAGE_TRANSLATOR_TYPE"));
+    assertEquals(new Timestamp(entry.getDate().getTime()).toString(),
+        xp.selectSingleTextItem(xmlDoc, "/Results/Row/INSERTED_ON"));
+  }
+
+  @Test
+  public void testColumnNameStyle() throws Exception {
+    createDatabase();
+    List<AdapterTypeVersion> dbItems = generate(10);
+    AdapterTypeVersion entry = dbItems.get(0);
+    populateDatabase(dbItems, false);
+    JdbcDataQueryService s = createXmlService();
+    s.setResultSetTranslator(new StreamingXmlPayloadTranslator().withColumnNameStyle(ColumnStyle.LowerCase));
+    AdaptrisMessage msg = createMessage(entry);
+    execute(s, msg);
+    Document xmlDoc = XmlHelper.createDocument(msg, DocumentBuilderFactoryBuilder.newInstance());
+    assertEquals(entry.getVersion(), new XPath().selectSingleTextItem(xmlDoc, "/results/row/adapter_version"));
+  }
+
+  @Test
+  public void testXmlColumn() throws Exception {
+    createDatabase();
+    List<AdapterTypeVersion> dbItems = generate(10);
+    AdapterTypeVersion entry = dbItems.get(0);
+    populateDatabase(dbItems, true, false);
+    JdbcDataQueryService s = createXmlService();
+    StreamingXmlPayloadTranslator translator = new StreamingXmlPayloadTranslator();
+    translator.setXmlColumnRegexp("ADAPTER_VERSION");
+    s.setResultSetTranslator(translator);
+    AdaptrisMessage msg = createMessage(entry);
+    execute(s, msg);
+    Document xmlDoc = XmlHelper.createDocument(msg, DocumentBuilderFactoryBuilder.newInstance());
+    assertNotNull(new XPath().selectSingleNode(xmlDoc, "/Results/Row/ADAPTER_VERSION/version"));
+    assertEquals(entry.getVersion(), new XPath().selectSingleTextItem(xmlDoc, "/Results/Row/ADAPTER_VERSION/version"));
+  }
+
+  @Test
+  public void testCdataColumn() throws Exception {
+    createDatabase();
+    List<AdapterTypeVersion> dbItems = generate(10);
+    AdapterTypeVersion entry = dbItems.get(0);
+    populateDatabase(dbItems, true, false);
+    JdbcDataQueryService s = createXmlService();
+    StreamingXmlPayloadTranslator translator = new StreamingXmlPayloadTranslator();
+    translator.setCdataColumnRegexp("ADAPTER_VERSION");
+    s.setResultSetTranslator(translator);
+    AdaptrisMessage msg = createMessage(entry);
+    execute(s, msg);
+    assertTrue(msg.getContent().contains("<![CDATA[<version>"));
+    Document xmlDoc = XmlHelper.createDocument(msg, DocumentBuilderFactoryBuilder.newInstance());
+    assertEquals("<version>" + entry.getVersion() + "</version>",
+        new XPath().selectSingleTextItem(xmlDoc, "/Results/Row/ADAPTER_VERSION"));
+  }
+
+  @Override
+  protected StreamingXmlPayloadTranslator createTranslatorForConfig() {
+    StreamingXmlPayloadTranslator t = new StreamingXmlPayloadTranslator();
+    t.setStripIllegalXmlChars(true);
+    t.setXmlColumnRegexp("Data_in_columns_that_match_this_regular_expression_will_be_turned_into_a_Document_Object_Before_Processing");
+    return t;
+  }
+
+  @Override
+  protected StreamingXmlPayloadTranslator createPayloadTranslator() {
+    return new StreamingXmlPayloadTranslator();
+  }
+}
@@ -23,12 +23,15 @@ import org.junit.Before;
 import org.junit.Test;
 import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.DefaultMessageFactory;
+import com.adaptris.core.MultiPayloadAdaptrisMessage;
+import com.adaptris.core.MultiPayloadMessageFactory;
 import com.adaptris.core.ServiceCase;
 import com.adaptris.core.ServiceException;
 import com.adaptris.core.common.ConstantDataInputParameter;
 import com.adaptris.core.common.Execution;
 import com.adaptris.core.common.MetadataDataInputParameter;
 import com.adaptris.core.common.MetadataDataOutputParameter;
+import com.adaptris.core.common.MultiPayloadStringInputParameter;
 import com.adaptris.core.common.StringPayloadDataInputParameter;
 import com.adaptris.core.common.StringPayloadDataOutputParameter;
 import com.adaptris.util.KeyValuePair;
@@ -86,6 +89,23 @@ public class XPathServiceTest extends ServiceCase {
     assertEquals("value1", message.getMetadataValue("targetMetadataKey"));
   }
 
+  @Test
+  public void testMultiPayloadSource() throws Exception {
+    MultiPayloadAdaptrisMessage multi =
+        (MultiPayloadAdaptrisMessage) new MultiPayloadMessageFactory().newMessage("xml", sampleXml, "UTF-8");
+    multi.addContent("other", "not valid xml!");
+    // The current payload is not xml, so this only works if the configured payload id is used.
+    MultiPayloadStringInputParameter source = new MultiPayloadStringInputParameter();
+    source.setPayloadId("xml");
+    List<Execution> executions = new ArrayList<>();
+    executions.add(new Execution(new ConstantDataInputParameter("//some/random/xml/node1/text()"),
+        new MetadataDataOutputParameter("targetMetadataKey")));
+    service.setXmlSource(source);
+    service.setExecutions(executions);
+    execute(service, multi);
+    assertEquals("value1", multi.getMetadataValue("targetMetadataKey"));
+  }
+
   @Test
   public void testForCoveragePurposesInvalidXml() throws Exception {
     message.setContent("not valid xml!", message.getContentEncoding());
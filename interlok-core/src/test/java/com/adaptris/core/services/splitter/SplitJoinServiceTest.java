@@ -32,7 +32,9 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -40,16 +42,21 @@ import org.junit.Test;
 import org.junit.rules.TestName;
 import com.adaptris.core.AdaptrisMessage;
 import com.adaptris.core.AdaptrisMessageFactory;
+import com.adaptris.core.ClosedState;
 import com.adaptris.core.CoreException;
 import com.adaptris.core.DefaultEventHandler;
+import com.adaptris.core.MetadataElement;
+import com.adaptris.core.NullConnection;
 import com.adaptris.core.NullService;
 import com.adaptris.core.ServiceException;
 import com.adaptris.core.services.WaitService;
+import com.adaptris.core.services.aggregator.AppendingMessageAggregator;
 import com.adaptris.core.services.aggregator.MessageAggregator;
 import com.adaptris.core.services.aggregator.MimeAggregator;
 import com.adaptris.core.services.aggregator.XmlDocumentAggregator;
 import com.adaptris.core.services.exception.ConfiguredException;
 import com.adaptris.core.services.exception.ThrowExceptionService;
+import com.adaptris.core.services.metadata.AddMetadataService;
 import com.adaptris.core.stubs.MockMessageProducer;
 import com.adaptris.core.util.LifecycleHelper;
 import com.adaptris.core.util.MimeHelper;
@@ -305,6 +312,197 @@ public class SplitJoinServiceTest {
     assertTrue(eventProducer.getMessages().size() > 0);
   }
 
+  @Test
+  public void testShareService() throws Exception {
+    SplitJoinService service = new SplitJoinService();
+    assertNull(service.getShareService());
+    assertFalse(service.shareService());
+    service.withShareService(Boolean.TRUE);
+    assertEquals(Boolean.TRUE, service.getShareService());
+    assertTrue(service.shareService());
+  }
+
+  @Test
+  public void testService_ShareService() throws Exception {
+    // This is a 100 line message, so we expect 10 split messages, and 11 parts.
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    final AtomicInteger count = new AtomicInteger();
+    NullService shared = new NullService() {
+      @Override
+      public void doService(AdaptrisMessage msg) throws ServiceException {
+        count.incrementAndGet();
+      }
+    };
+    SplitJoinService service = createServiceForTests().withShareService(true);
+    service.setService(shared);
+    service.setTimeout(new TimeInterval(10L, TimeUnit.SECONDS));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new MimeAggregator());
+    execute(service, msg);
+    assertEquals(10, count.get());
+    assertEquals(ClosedState.getInstance(), shared.retrieveComponentState());
+    BodyPartIterator input = MimeHelper.createBodyPartIterator(msg);
+    assertEquals(11, input.size());
+  }
+
+  @Test
+  public void testService_Streaming() throws Exception {
+    // This is a 100 line message, so we expect 10 split messages
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    String expected = msg.getContent() + msg.getContent();
+    SplitJoinService service = createServiceForTests().withStreamingWindow(3);
+    service.setService(asCollection(new NullService()));
+    service.setTimeout(new TimeInterval(10L, TimeUnit.SECONDS));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new AppendingMessageAggregator());
+    execute(service, msg);
+    assertEquals(expected, msg.getContent());
+    assertEquals("10", msg.getMetadataValue(MessageSplitterServiceImp.KEY_SPLIT_MESSAGE_COUNT));
+  }
+
+  @Test
+  public void testService_Streaming_WithMimeJoiner() throws Exception {
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    SplitJoinService service = createServiceForTests().withStreamingWindow(2);
+    service.setService(asCollection(new NullService()));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new MimeAggregator());
+    execute(service, msg);
+    BodyPartIterator input = MimeHelper.createBodyPartIterator(msg);
+    assertEquals(11, input.size());
+  }
+
+  @Test
+  public void testService_Streaming_WithException() throws Exception {
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    String original = msg.getContent();
+    SplitJoinService service = createServiceForTests().withStreamingWindow(2);
+    service.setService(asCollection(new ThrowExceptionService(new ConfiguredException(testName.getMethodName()))));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new AppendingMessageAggregator());
+    try {
+      execute(service, msg);
+      fail();
+    } catch (ServiceException expected) {
+
+    }
+    // Nothing should have been joined into the original.
+    assertEquals(original, msg.getContent());
+  }
+
+  @Test
+  public void testService_Streaming_WithMetadataFlagStrategy() throws Exception {
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    String expected = msg.getContent() + msg.getContent();
+    SplitJoinService service = createServiceForTests().withStreamingWindow(2);
+    service.setService(asCollection(new AddMetadataService(new MetadataElement("flag", "true")),
+        new ThrowExceptionService(new ConfiguredException(testName.getMethodName()))));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new AppendingMessageAggregator());
+    MetadataFlagPoolingFutureExceptionStrategy strategy = new MetadataFlagPoolingFutureExceptionStrategy();
+    strategy.setMetadataFlagKey("flag");
+    service.setExceptionStrategy(strategy);
+    execute(service, msg);
+    assertEquals(expected, msg.getContent());
+  }
+
+  @Test
+  public void testService_Streaming_Timeout() throws Exception {
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    SplitJoinService service = createServiceForTests().withStreamingWindow(2);
+    service.setService(asCollection(new WaitService(new TimeInterval(10L, TimeUnit.SECONDS))));
+    service.setTimeout(new TimeInterval(2L, TimeUnit.SECONDS));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new AppendingMessageAggregator());
+    try {
+      execute(service, msg);
+      fail();
+    } catch (ServiceException expected) {
+      assertEquals(DefaultPoolingFutureExceptionStrategy.EXCEPTION_MSG, expected.getMessage());
+    }
+  }
+
+  @Test
+  public void testService_Streaming_WithNoSplitMessages() throws Exception {
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    String expected = msg.getContent();
+    SplitJoinService service = createServiceForTests().withStreamingWindow(2);
+    service.setService(asCollection(new NullService()));
+    service.setSplitter(new MessageSplitter() {
+
+      @Override
+      public List<AdaptrisMessage> splitMessage(AdaptrisMessage msg) throws CoreException {
+        return new ArrayList();
+      }
+
+    });
+    service.setAggregator(new AppendingMessageAggregator());
+    execute(service, msg);
+    assertEquals(expected, msg.getContent());
+    assertNull(msg.getMetadataValue(MessageSplitterServiceImp.KEY_SPLIT_MESSAGE_COUNT));
+  }
+
+  @Test
+  public void testService_MaxThreads() throws Exception {
+    // This is a 100 line message, so we expect to get 11 parts.
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    SplitJoinService service = createServiceForTests().withMaxThreads(2);
+    service.setService(asCollection(new NullService()));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new MimeAggregator());
+    execute(service, msg);
+    BodyPartIterator input = MimeHelper.createBodyPartIterator(msg);
+    assertEquals(11, input.size());
+  }
+
+  @Test
+  public void testService_ExecutorConnection() throws Exception {
+    // This is a 100 line message, so we expect to get 11 parts.
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    BoundedExecutorConnection conn = new BoundedExecutorConnection().withMaxThreads(2).withQueueSize(1);
+    SplitJoinService service = createServiceForTests().withExecutorConnection(conn);
+    service.setService(asCollection(new NullService()));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new MimeAggregator());
+    execute(service, msg);
+    BodyPartIterator input = MimeHelper.createBodyPartIterator(msg);
+    assertEquals(11, input.size());
+    assertNull(conn.retrieveExecutor());
+  }
+
+  @Test
+  public void testService_ExecutorConnection_Rejected() throws Exception {
+    AdaptrisMessage msg = SplitterCase.createLineCountMessageInput();
+    BoundedExecutorConnection conn = new BoundedExecutorConnection().withMaxThreads(1).withQueueSize(1)
+        .withRejectionPolicy(BoundedExecutorConnection.RejectionPolicy.Abort);
+    SplitJoinService service = createServiceForTests().withExecutorConnection(conn);
+    service.setService(asCollection(new WaitService(new TimeInterval(1L, TimeUnit.SECONDS))));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new MimeAggregator());
+    try {
+      execute(service, msg);
+      fail();
+    } catch (ServiceException expected) {
+      assertEquals(RejectedExecutionException.class, expected.getCause().getClass());
+    }
+  }
+
+  @Test
+  public void testInit_WrongExecutorConnection() throws Exception {
+    SplitJoinService service = createServiceForTests().withExecutorConnection(new NullConnection());
+    service.setService(asCollection(new NullService()));
+    service.setSplitter(new LineCountSplitter());
+    service.setAggregator(new MimeAggregator());
+    try {
+      LifecycleHelper.initAndStart(service);
+      fail();
+    } catch (CoreException expected) {
+      assertTrue(expected.getMessage().contains(NullConnection.class.getName()));
+    } finally {
+      LifecycleHelper.stopAndClose(service);
+    }
+  }
+
   protected SplitJoinService createServiceForTests() {
     return new SplitJoinService();
   }
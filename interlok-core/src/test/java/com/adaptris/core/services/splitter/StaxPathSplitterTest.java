@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Adaptris Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+
+package com.adaptris.core.services.splitter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import com.adaptris.core.AdaptrisMessage;
+import com.adaptris.core.AdaptrisMessageFactory;
+import com.adaptris.core.CoreConstants;
+import com.adaptris.core.CoreException;
+import com.adaptris.core.stubs.MockMessageProducer;
+import com.adaptris.core.util.XmlHelper;
+import com.adaptris.interlok.util.CloseableIterable;
+import com.adaptris.util.text.xml.XPath;
+
+public class StaxPathSplitterTest extends SplitterCase {
+
+  private static final String ENVELOPE_DOCUMENT = "/envelope/document";
+
+  private static final String XML_WITH_NAMESPACE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+      + "<ns:envelope xmlns:ns=\"urn:envelope\"><ns:document><ns:id>1</ns:id></ns:document>"
+      + "<ns:document><ns:id>2</ns:id></ns:document></ns:envelope>";
+
+  private MockMessageProducer producer;
+  private BasicMessageSplitterService service;
+
+  @Override
+  public boolean isAnnotatedForJunit4() {
+    return true;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    producer = new MockMessageProducer();
+    service = createBasic(new StaxPathSplitter(ENVELOPE_DOCUMENT));
+    service.setProducer(producer);
+  }
+
+  @Override
+  protected String createBaseFileName(Object object) {
+    return super.createBaseFileName(object) + "-StaxPathSplitter";
+  }
+
+  @Override
+  protected Object retrieveObjectForSampleConfig() {
+    return null; // over-rides retrieveServices below instead
+  }
+
+  @Override
+  protected List retrieveObjectsForSampleConfig() {
+    return createExamples(new StaxPathSplitter(ENVELOPE_DOCUMENT));
+  }
+
+  @Override
+  protected String getExampleCommentHeader(Object o) {
+    return super.getExampleCommentHeader(o) + "\n<!-- \n The example document for this split process is\n"
+        + SplitterCase.XML_MESSAGE + "\n which would create 3 new messages\n-->\n";
+  }
+
+  @Override
+  protected StaxPathSplitter createSplitterForTests() {
+    return new StaxPathSplitter();
+  }
+
+  @Test
+  public void testSplit() throws Exception {
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_MESSAGE);
+    msg.addMetadata("key", "value");
+    List<AdaptrisMessage> result = splitToList(new StaxPathSplitter(ENVELOPE_DOCUMENT), msg);
+    assertEquals(3, result.size());
+    String[] expected = {"one", "two", "three"};
+    for (int i = 0; i < expected.length; i++) {
+      AdaptrisMessage m = result.get(i);
+      Document d = XmlHelper.createDocument(m.getContent());
+      assertEquals(expected[i], new XPath().selectSingleTextItem(d, "/document"));
+      assertEquals("value", m.getMetadataValue("key"));
+      assertEquals(msg.getUniqueId(), m.getMetadataValue(CoreConstants.PARENT_UNIQUE_ID_KEY));
+    }
+  }
+
+  @Test
+  public void testSplit_IsLazy() throws Exception {
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_MESSAGE + "<broken");
+    try (CloseableIterable<AdaptrisMessage> split = new StaxPathSplitter(ENVELOPE_DOCUMENT).splitMessage(msg)) {
+      Iterator<AdaptrisMessage> i = split.iterator();
+      for (int count = 0; count < 3; count++) {
+        assertTrue(i.hasNext());
+        i.next();
+      }
+      try {
+        i.hasNext();
+        fail();
+      }
+      catch (RuntimeException expected) {
+
+      }
+    }
+  }
+
+  @Test
+  public void testSplit_Namespaces() throws Exception {
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_WITH_NAMESPACE);
+    List<AdaptrisMessage> result = splitToList(new StaxPathSplitter("/ns:envelope/ns:document"), msg);
+    assertEquals(2, result.size());
+    Document d = XmlHelper.createDocument(result.get(1).getContent(), true);
+    assertEquals("urn:envelope", d.getDocumentElement().getNamespaceURI());
+    assertEquals("2", d.getDocumentElement().getTextContent());
+  }
+
+  @Test
+  public void testSplit_Wildcard() throws Exception {
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_MESSAGE);
+    assertEquals(3, splitToList(new StaxPathSplitter("/*/document"), msg).size());
+    assertEquals(0, splitToList(new StaxPathSplitter("/document"), msg).size());
+  }
+
+  @Test
+  public void testSplit_InvalidPath() throws Exception {
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_MESSAGE);
+    for (String path : new String[] {null, "envelope/document", "//document", "/envelope/document[1]"}) {
+      try {
+        new StaxPathSplitter(path).splitMessage(msg);
+        fail(path + " should be invalid");
+      }
+      catch (CoreException expected) {
+
+      }
+    }
+  }
+
+  @Test
+  public void testSplit_Encoding() throws Exception {
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_MESSAGE);
+    StaxPathSplitter splitter = new StaxPathSplitter(ENVELOPE_DOCUMENT);
+    splitter.setEncoding("ISO-8859-1");
+    AdaptrisMessage m = (AdaptrisMessage) splitToList(splitter, msg).get(0);
+    assertEquals("ISO-8859-1", m.getContentEncoding());
+    assertTrue(m.getContent().contains("ISO-8859-1"));
+  }
+
+  @Test
+  public void testDoService() throws Exception {
+    AdaptrisMessage msg = AdaptrisMessageFactory.getDefaultInstance().newMessage(XML_MESSAGE);
+    execute(service, msg);
+    assertEquals(3, producer.getMessages().size());
+    assertFalse(producer.getMessages().get(0).getContent().contains("envelope"));
+  }
+}
@@ -57,6 +57,14 @@ public class DefectiveAdaptrisMessage extends DefaultAdaptrisMessageImp {
     return super.getOutputStream();
   }
 
+  @Override
+  public OutputStream getOutputStream(long expectedSize) throws IOException {
+    if (getFactory().brokenOutput()) {
+      return new ErroringOutputStream();
+    }
+    return super.getOutputStream(expectedSize);
+  }
+
   @Override
   public boolean containsKey(String key) {
     return headersContainsKey(key);
@@ -18,17 +18,22 @@ package com.adaptris.core.transform;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import org.junit.Test;
 import org.w3c.dom.Document;
@@ -44,6 +49,7 @@ import com.adaptris.core.util.DocumentBuilderFactoryBuilder;
 import com.adaptris.core.util.LifecycleHelper;
 import com.adaptris.core.util.XmlHelper;
 import com.adaptris.util.KeyValuePair;
+import com.adaptris.util.TimeInterval;
 import com.adaptris.util.text.xml.StxTransformerFactory;
 import com.adaptris.util.text.xml.XPath;
 import com.adaptris.util.text.xml.XmlTransformerFactory;
@@ -440,6 +446,102 @@ public class XmlTransformServiceTest extends TransformServiceExample {
     }
   }
 
+  @Test
+  public void testOutputWithCache_SharesTemplates() throws Exception {
+    String url = PROPERTIES.getProperty(KEY_XML_TEST_TRANSFORM_URL);
+    XmlTransformService s1 = new XmlTransformService();
+    s1.setUrl(url);
+    XmlTransformService s2 = new XmlTransformService();
+    s2.setUrl(url);
+    try {
+      start(s1, s2);
+      Transformer t1 = s1.cacheAndGetTransformer(url, s1.getXmlTransformerFactory());
+      Transformer t2 = s2.cacheAndGetTransformer(url, s2.getXmlTransformerFactory());
+      assertNotSame(t1, t2);
+      assertSame(t1, s1.cacheAndGetTransformer(url, s1.getXmlTransformerFactory()));
+      Transformer[] fromThread = new Transformer[1];
+      Thread t = new Thread(() -> {
+        try {
+          fromThread[0] = s1.cacheAndGetTransformer(url, s1.getXmlTransformerFactory());
+        }
+        catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      });
+      t.start();
+      t.join();
+      assertNotNull(fromThread[0]);
+      assertNotSame(t1, fromThread[0]);
+      AdaptrisMessage m1 = MessageHelper.createMessage(PROPERTIES.getProperty(KEY_XML_TEST_INPUT));
+      s2.doService(m1);
+      assertEquals(PROPERTIES.getProperty(KEY_XML_TEST_OUTPUT), m1.getContent());
+    }
+    finally {
+      stop(s1, s2);
+    }
+  }
+
+  @Test
+  public void testOutputWithCache_TimeToLive() throws Exception {
+    String url = PROPERTIES.getProperty(KEY_XML_TEST_TRANSFORM_URL);
+    XmlTransformService service = new XmlTransformService();
+    service.setUrl(url);
+    service.setCacheTimeToLive(new TimeInterval(100L, TimeUnit.MILLISECONDS));
+    try {
+      start(service);
+      Transformer t1 = service.cacheAndGetTransformer(url, service.getXmlTransformerFactory());
+      Thread.sleep(200);
+      Transformer t2 = service.cacheAndGetTransformer(url, service.getXmlTransformerFactory());
+      assertNotSame(t1, t2);
+      AdaptrisMessage m1 = MessageHelper.createMessage(PROPERTIES.getProperty(KEY_XML_TEST_INPUT));
+      service.doService(m1);
+      assertEquals(PROPERTIES.getProperty(KEY_XML_TEST_OUTPUT), m1.getContent());
+    }
+    finally {
+      stop(service);
+    }
+  }
+
+  @Test
+  public void testOutputWithCache_NoTemplatesSupport() throws Exception {
+    String url = PROPERTIES.getProperty(KEY_XML_TEST_TRANSFORM_URL);
+    XmlTransformService service = new XmlTransformService();
+    service.setUrl(url);
+    service.setXmlTransformerFactory(new NoTemplatesFactory());
+    try {
+      start(service);
+      Transformer t1 = service.cacheAndGetTransformer(url, service.getXmlTransformerFactory());
+      assertSame(t1, service.cacheAndGetTransformer(url, service.getXmlTransformerFactory()));
+      AdaptrisMessage m1 = MessageHelper.createMessage(PROPERTIES.getProperty(KEY_XML_TEST_INPUT));
+      service.doService(m1);
+      assertEquals(PROPERTIES.getProperty(KEY_XML_TEST_OUTPUT), m1.getContent());
+    }
+    finally {
+      stop(service);
+    }
+  }
+
+  @Test
+  public void testTemplatesCache_FailureNotCached() throws Exception {
+    XmlTransformService service = new XmlTransformService();
+    String url = "file:///this/does/not/exist.xsl";
+    try {
+      service.cacheAndGetTransformer(url, service.getXmlTransformerFactory());
+      fail();
+    }
+    catch (Exception expected) {
+
+    }
+    try {
+      service.cacheAndGetTransformer(url, service.getXmlTransformerFactory());
+      fail();
+    }
+    catch (Exception expected) {
+
+    }
+    assertNull(service.getTransforms().get(url));
+  }
+
   @Test
   public void testOutputWithNoCache() throws Exception {
     AdaptrisMessage m1 = MessageHelper.createMessage(PROPERTIES.getProperty(KEY_XML_TEST_INPUT));
@@ -737,6 +839,18 @@ public class XmlTransformServiceTest extends TransformServiceExample {
   }
 
 
+  private static class NoTemplatesFactory extends XsltTransformerFactory {
+    @Override
+    public boolean supportsTemplates() {
+      return false;
+    }
+
+    @Override
+    public Templates createTemplates(String url) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+  }
+
   private static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
     DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
     DocumentBuilder builder = domFactory.newDocumentBuilder();
@@ -32,6 +32,8 @@ import org.w3c.dom.NodeList;
 
 import com.adaptris.core.util.DocumentBuilderFactoryBuilder;
 import com.adaptris.core.util.XmlHelper;
+import com.adaptris.util.KeyValuePair;
+import com.adaptris.util.KeyValuePairSet;
 
 import net.sf.saxon.xpath.XPathFactoryImpl;
 
@@ -162,6 +164,36 @@ public class XPathTest {
     assertNotNull(xpath.selectSingleNode(d, "/root/test"));
   }
 
+  @Test
+  public void testCachedExpression_DifferentDocuments() throws Exception {
+    Document d1 = XmlHelper.createDocument(XML, DocumentBuilderFactoryBuilder.newInstance());
+    Document d2 = XmlHelper.createDocument("<root><test>three</test></root>", DocumentBuilderFactoryBuilder.newInstance());
+    assertEquals("one", new XPath().selectSingleTextItem(d1, "/root/test[1]"));
+    assertEquals("three", new XPath().selectSingleTextItem(d2, "/root/test[1]"));
+    assertEquals("one", new XPath().selectSingleTextItem(d1, "/root/test[1]"));
+  }
+
+  @Test
+  public void testCachedExpression_DifferentNamespaceContexts() throws Exception {
+    String xml = "<root xmlns:a='urn:a' xmlns:b='urn:b'><a:test>A</a:test><b:test>B</b:test></root>";
+    Document d = XmlHelper.createDocument(xml, DocumentBuilderFactoryBuilder.newInstance().withNamespaceAware(true));
+    KeyValuePairSet first = new KeyValuePairSet();
+    first.add(new KeyValuePair("x", "urn:a"));
+    KeyValuePairSet second = new KeyValuePairSet();
+    second.add(new KeyValuePair("x", "urn:b"));
+    assertEquals("A", new XPath(SimpleNamespaceContext.create(first)).selectSingleTextItem(d, "/root/x:test"));
+    assertEquals("B", new XPath(SimpleNamespaceContext.create(second)).selectSingleTextItem(d, "/root/x:test"));
+    assertEquals("A", new XPath(SimpleNamespaceContext.create(first)).selectSingleTextItem(d, "/root/x:test"));
+  }
+
+  @Test
+  public void testNewXPathInstance_NotNamespaceAware() throws Exception {
+    DocumentBuilderFactoryBuilder builder = DocumentBuilderFactoryBuilder.newInstance().withNamespaceAware(false);
+    Document d = XmlHelper.createDocument(XML, builder);
+    assertEquals("two", XPath.newXPathInstance(builder, null).selectSingleTextItem(d, "/root/test[2]"));
+    assertEquals("two", XPath.newXPathInstance(builder, null).selectSingleTextItem(d, "/root/test[2]"));
+  }
+
   @Test
   public void testBuild() {
     assertEquals(XPathFactoryImpl.class, XPath.build(true).getClass());